@@ -0,0 +1,543 @@
+package io.github.qwzhang01.dsecurity.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the data security library.
+ *
+ * <p>All properties are bound under the {@code seven.data-security} prefix
+ * and are optional; the defaults are tuned for typical OLTP workloads.</p>
+ *
+ * <pre>
+ * seven:
+ *   data-security:
+ *     engine: mybatis
+ *     decrypt:
+ *       memo-size: 4096
+ *       parallel-threshold: 10000
+ * </pre>
+ *
+ * @author avinzhang
+ */
+@ConfigurationProperties(prefix = "seven.data-security")
+public class DataSecurityProperties implements InitializingBean,
+        DisposableBean {
+
+    /**
+     * Defaults used when the Spring context is not available, e.g. in unit
+     * tests or before the context is refreshed.
+     */
+    private static final DataSecurityProperties DEFAULTS =
+            new DataSecurityProperties();
+
+    /**
+     * Where encryption and decryption are applied.
+     */
+    private Engine engine = Engine.MYBATIS;
+
+    private final Encrypt encrypt = new Encrypt();
+
+    private final Decrypt decrypt = new Decrypt();
+
+    private final Jdbc jdbc = new Jdbc();
+
+    private final SqlCache sqlCache = new SqlCache();
+
+    private final Scope scope = new Scope();
+
+    private final Warmup warmup = new Warmup();
+
+    /**
+     * The bound properties bean, registered once it is initialized so that
+     * hot paths read settings without a bean lookup.
+     */
+    private static volatile DataSecurityProperties bound;
+
+    /**
+     * Returns the bound properties, or the defaults if the properties bean
+     * is not initialized.
+     *
+     * <p>This is a volatile read and may be called per value.</p>
+     *
+     * @return the current properties, never null
+     */
+    public static DataSecurityProperties current() {
+        DataSecurityProperties properties = bound;
+        return properties != null ? properties : DEFAULTS;
+    }
+
+    /**
+     * Makes the bound properties current; called by Spring after binding.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        bound = this;
+    }
+
+    @Override
+    public void destroy() {
+        if (bound == this) {
+            bound = null;
+        }
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public Encrypt getEncrypt() {
+        return encrypt;
+    }
+
+    public Decrypt getDecrypt() {
+        return decrypt;
+    }
+
+    public Jdbc getJdbc() {
+        return jdbc;
+    }
+
+    public SqlCache getSqlCache() {
+        return sqlCache;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Encryption engines.
+     */
+    public enum Engine {
+        /**
+         * MyBatis interceptors rewrite parameter objects and decrypt mapped
+         * results.
+         */
+        MYBATIS,
+        /**
+         * A {@code DataSource} wrapper encrypts bound parameters and
+         * decrypts result set columns by index, for any JDBC client.
+         */
+        JDBC
+    }
+
+    /**
+     * Parameter encryption settings.
+     */
+    public static class Encrypt {
+        /**
+         * Maximum number of statement shapes whose parameter encryption
+         * plan is cached. Zero disables the cache.
+         */
+        private int planCacheSize = 2048;
+        /**
+         * How encrypted parameter values reach the statement.
+         */
+        private Binding binding = Binding.MUTATE;
+        /**
+         * Whether the parameter values of large batches may be encrypted in
+         * parallel, on the pool sized by {@code decrypt.pool-size} and
+         * {@code decrypt.queue-capacity}.
+         */
+        private boolean parallelEnabled = false;
+        /**
+         * Minimum number of distinct values of a batch column before they
+         * are encrypted in parallel.
+         */
+        private int parallelThreshold = 10000;
+        /**
+         * Number of values handed to a worker at a time.
+         */
+        private int chunkSize = 1000;
+        /**
+         * Maximum number of threads, including the calling thread, that
+         * encrypt one batch column.
+         */
+        private int parallelism =
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+        public int getPlanCacheSize() {
+            return planCacheSize;
+        }
+
+        public void setPlanCacheSize(int planCacheSize) {
+            this.planCacheSize = planCacheSize;
+        }
+
+        public Binding getBinding() {
+            return binding;
+        }
+
+        public void setBinding(Binding binding) {
+            this.binding = binding;
+        }
+
+        public boolean isParallelEnabled() {
+            return parallelEnabled;
+        }
+
+        public void setParallelEnabled(boolean parallelEnabled) {
+            this.parallelEnabled = parallelEnabled;
+        }
+
+        public int getParallelThreshold() {
+            return parallelThreshold;
+        }
+
+        public void setParallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * Parameter binding modes of the MyBatis engine.
+     */
+    public enum Binding {
+        /**
+         * Ciphertext is written into the parameter objects before the
+         * statement is prepared and the plaintext is restored after
+         * execution.
+         */
+        MUTATE,
+        /**
+         * Ciphertext is bound in place of the plaintext when parameters are
+         * set on the statement; parameter objects are never modified.
+         */
+        OVERLAY
+    }
+
+    /**
+     * Result decryption settings.
+     */
+    public static class Decrypt {
+        /**
+         * Maximum number of distinct ciphertexts memoized while decrypting
+         * one result set. Zero disables the memo.
+         */
+        private int memoSize = 4096;
+        /**
+         * Whether large result lists may be decrypted in parallel. Off by
+         * default, as it starts a shared worker pool.
+         */
+        private boolean parallelEnabled = false;
+        /**
+         * Minimum number of rows before a list is decrypted in parallel.
+         */
+        private int parallelThreshold = 10000;
+        /**
+         * Number of rows handed to a worker at a time.
+         */
+        private int chunkSize = 1000;
+        /**
+         * Maximum number of threads, including the calling thread, that
+         * decrypt one result list.
+         */
+        private int parallelism =
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        /**
+         * Size of the shared decryption thread pool, also used for parallel
+         * batch encryption.
+         */
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+        /**
+         * Capacity of the shared pool queue; when full, the calling thread
+         * decrypts the remaining chunks itself.
+         */
+        private int queueCapacity = 64;
+        /**
+         * Whether columns may mix plaintext and ciphertext. Values that are
+         * not ciphertext by format, or fail to decrypt, are returned
+         * unchanged.
+         */
+        private boolean tolerant = false;
+        /**
+         * Minimum time between two logged decryption failures; failures in
+         * between are only counted.
+         */
+        private Duration failureLogInterval = Duration.ofSeconds(10);
+
+        public int getMemoSize() {
+            return memoSize;
+        }
+
+        public void setMemoSize(int memoSize) {
+            this.memoSize = memoSize;
+        }
+
+        public boolean isParallelEnabled() {
+            return parallelEnabled;
+        }
+
+        public void setParallelEnabled(boolean parallelEnabled) {
+            this.parallelEnabled = parallelEnabled;
+        }
+
+        public int getParallelThreshold() {
+            return parallelThreshold;
+        }
+
+        public void setParallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public boolean isTolerant() {
+            return tolerant;
+        }
+
+        public void setTolerant(boolean tolerant) {
+            this.tolerant = tolerant;
+        }
+
+        public Duration getFailureLogInterval() {
+            return failureLogInterval;
+        }
+
+        public void setFailureLogInterval(Duration failureLogInterval) {
+            this.failureLogInterval = failureLogInterval;
+        }
+    }
+
+    /**
+     * JDBC engine settings.
+     */
+    public static class Jdbc {
+        /**
+         * Maximum number of SQL statements whose encryption plan is cached.
+         * Plans of statements not used recently are evicted beyond it. Zero
+         * disables the cache.
+         */
+        private int planCacheSize = 2048;
+
+        /**
+         * Names of the {@code DataSource} beans wrapped by the JDBC engine.
+         * When empty, only the single or the primary data source is
+         * wrapped, so the targets of a routing data source are not
+         * encrypted twice.
+         */
+        private List<String> dataSourceNames = new ArrayList<>();
+
+        public int getPlanCacheSize() {
+            return planCacheSize;
+        }
+
+        public void setPlanCacheSize(int planCacheSize) {
+            this.planCacheSize = planCacheSize;
+        }
+
+        public List<String> getDataSourceNames() {
+            return dataSourceNames;
+        }
+
+        public void setDataSourceNames(List<String> dataSourceNames) {
+            this.dataSourceNames = dataSourceNames;
+        }
+    }
+
+    /**
+     * SQL parse cache settings.
+     */
+    public static class SqlCache {
+        /**
+         * Maximum number of distinct SQL statements whose parse result is
+         * cached. Zero disables the cache.
+         */
+        private int maxSize = 4096;
+
+        /**
+         * Length in characters above which statements are analyzed and
+         * rewritten by their shape, with {@code IN} lists and repeated
+         * {@code VALUES} rows collapsed, instead of parsed in full.
+         */
+        private int largeStatementLength = 4096;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getLargeStatementLength() {
+            return largeStatementLength;
+        }
+
+        public void setLargeStatementLength(int largeStatementLength) {
+            this.largeStatementLength = largeStatementLength;
+        }
+    }
+
+    /**
+     * Data scope settings.
+     */
+    public static class Scope {
+        /**
+         * Number of rights above which
+         * {@code ScopePredicate.in(column, values)} binds the list with
+         * {@link #largeListMode} instead of one placeholder per value.
+         */
+        private int largeListThreshold = 1000;
+
+        /**
+         * How lists above the threshold are bound.
+         */
+        private LargeListMode largeListMode = LargeListMode.IN_LIST;
+
+        /**
+         * How long results of a {@code CacheableDataScopeStrategy} are
+         * reused. Zero disables the cache.
+         */
+        private Duration cacheTtl = Duration.ofSeconds(60);
+
+        /**
+         * Maximum number of cached strategy results.
+         */
+        private int cacheMaxSize = 10000;
+
+        public int getLargeListThreshold() {
+            return largeListThreshold;
+        }
+
+        public void setLargeListThreshold(int largeListThreshold) {
+            this.largeListThreshold = largeListThreshold;
+        }
+
+        public LargeListMode getLargeListMode() {
+            return largeListMode;
+        }
+
+        public void setLargeListMode(LargeListMode largeListMode) {
+            this.largeListMode = largeListMode;
+        }
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        public int getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(int cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+    }
+
+    /**
+     * Binding of large rights lists.
+     */
+    public enum LargeListMode {
+        /**
+         * One placeholder per value, whatever the size of the list.
+         */
+        IN_LIST,
+        /**
+         * {@code column = ANY(?)} with one SQL array parameter, for H2 and
+         * PostgreSQL.
+         */
+        ARRAY,
+        /**
+         * {@code column IN (SELECT ... FROM JSON_TABLE(?, ...))} with one
+         * JSON array parameter, for MySQL 8.
+         */
+        JSON_TABLE
+    }
+
+    /**
+     * Startup warm-up settings.
+     */
+    public static class Warmup {
+        /**
+         * Whether mapped statements, result types and cipher engines are
+         * warmed up in the background once the application is ready.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Time after which the warm-up stops, whatever is left.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
@@ -33,9 +33,12 @@ import io.github.qwzhang01.dsecurity.encrypt.container.EncryptionAlgoContainer;
 import io.github.qwzhang01.dsecurity.encrypt.shield.DefaultEncryptionAlgo;
 import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
 import io.github.qwzhang01.dsecurity.interceptor.SqlRewriteInterceptor;
+import io.github.qwzhang01.dsecurity.jdbc.EncryptDataSourcePostProcessor;
 import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
 import io.github.qwzhang01.dsecurity.scope.container.DataScopeStrategyContainer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -69,6 +72,7 @@ import org.springframework.core.annotation.Order;
  * @since 1.0.0
  */
 @Configuration
+@EnableConfigurationProperties(DataSecurityProperties.class)
 public class MaskAutoConfig {
     @Bean
     @Order(-100)
@@ -78,6 +82,19 @@ public class MaskAutoConfig {
         };
     }
 
+    /**
+     * Wraps data sources with the JDBC encryption engine when
+     * {@code seven.data-security.engine=jdbc}.
+     *
+     * @return the data source post processor
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "seven.data-security", name = "engine",
+            havingValue = "jdbc")
+    public static EncryptDataSourcePostProcessor encryptDataSourcePostProcessor() {
+        return new EncryptDataSourcePostProcessor();
+    }
+
     /**
      * Provides a default encryption algorithm bean.
      * This bean is only created if no other EncryptionAlgo implementation is
@@ -38,6 +38,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -69,6 +70,9 @@ public class MyBatisInterceptorAutoConfig {
     @Autowired
     private Environment environment;
 
+    @Autowired(required = false)
+    private DataSecurityProperties properties;
+
     @Bean
     @ConditionalOnMissingBean(MybatisPlusInterceptor.class)
     @Order(20)
@@ -76,6 +80,20 @@ public class MyBatisInterceptorAutoConfig {
         return new MybatisPlusInterceptor();
     }
 
+    /**
+     * Warms the security pipeline up over all mapped statements once the
+     * application is ready, when
+     * {@code seven.data-security.warmup.enabled=true}.
+     *
+     * @return the warm-up listener
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "seven.data-security.warmup", name =
+            "enabled", havingValue = "true")
+    public SecurityWarmup securityWarmup() {
+        return new SecurityWarmup(sqlSessionFactories);
+    }
+
     /**
      * Adds desensitization interceptors to all available SqlSessionFactory
      * instances.
@@ -88,11 +106,22 @@ public class MyBatisInterceptorAutoConfig {
             for (SqlSessionFactory sqlSessionFactory : sqlSessionFactories) {
                 org.apache.ibatis.session.Configuration configuration =
                         sqlSessionFactory.getConfiguration();
-                configuration.addInterceptor(new DecryptInterceptor());
+                if (isMyBatisEngine()) {
+                    configuration.addInterceptor(new DecryptInterceptor());
+                }
                 configuration.getTypeHandlerRegistry().register(Encrypt.class
                         , EncryptTypeHandler.class);
                 configuration.addInterceptor(new SqlPrintInterceptor(environment));
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks whether results are decrypted by the MyBatis interceptors
+     * rather than the JDBC engine.
+     */
+    private boolean isMyBatisEngine() {
+        return properties == null
+                || properties.getEngine() == DataSecurityProperties.Engine.MYBATIS;
+    }
+}
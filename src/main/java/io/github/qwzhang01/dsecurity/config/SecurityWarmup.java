@@ -0,0 +1,239 @@
+package io.github.qwzhang01.dsecurity.config;
+
+import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptFieldTableContainer;
+import io.github.qwzhang01.dsecurity.encrypt.processor.SingleSelectProcessor;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.ClazzUtil;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysisCache;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background warm-up of the security pipeline once the application is
+ * ready.
+ *
+ * <p>Without it, the first requests after a deploy pay for cipher
+ * initialization, the encrypted column index, JSqlParser class loading,
+ * the first parse of every statement and reflection on result types. The
+ * warm-up fills the same caches ahead of traffic:</p>
+ * <ul>
+ *   <li>every configured encryption algorithm does one encrypt and decrypt
+ *   round trip;</li>
+ *   <li>the static SQL of every mapped statement is analyzed and rewritten
+ *   as at prepare time;</li>
+ *   <li>the field metadata of result map types is loaded for
+ *   decryption.</li>
+ * </ul>
+ *
+ * <p>Dynamic SQL depends on its parameters and is skipped. The warm-up
+ * runs on a daemon thread, logs its progress and stops at
+ * {@code seven.data-security.warmup.timeout}; requests served meanwhile
+ * fill the same caches.</p>
+ *
+ * @author avinzhang
+ */
+public class SecurityWarmup implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger log =
+            LoggerFactory.getLogger(SecurityWarmup.class);
+
+    /**
+     * Number of statements between progress logs.
+     */
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private static final String PROBE = "dsecurity-warmup";
+
+    private final List<SqlSessionFactory> sqlSessionFactories;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public SecurityWarmup(List<SqlSessionFactory> sqlSessionFactories) {
+        this.sqlSessionFactories = sqlSessionFactories == null ? List.of()
+                : sqlSessionFactories;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // Child contexts publish the event again
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        Duration timeout =
+                DataSecurityProperties.current().getWarmup().getTimeout();
+        Thread thread = new Thread(() -> run(timeout), "dsecurity-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the warm-up on the current thread.
+     *
+     * @param timeout the time after which remaining statements are skipped
+     * @return the summary
+     */
+    public Result run(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        EncryptFieldTableContainer container =
+                SpringContextUtil.getBeanSafely(EncryptFieldTableContainer.class);
+
+        int algos = warmAlgos(container);
+
+        List<MappedStatement> statements = mappedStatements();
+        log.info("Data security warm-up started: {} mapped statements",
+                statements.size());
+        Set<Class<?>> types = new HashSet<>();
+        int done = 0;
+        int analyzed = 0;
+        int skipped = 0;
+        int failed = 0;
+        boolean timedOut = false;
+        for (MappedStatement statement : statements) {
+            if (System.nanoTime() - deadline >= 0) {
+                timedOut = true;
+                break;
+            }
+            try {
+                if (warm(statement, container)) {
+                    analyzed++;
+                } else {
+                    skipped++;
+                }
+                for (ResultMap resultMap : statement.getResultMaps()) {
+                    if (types.add(resultMap.getType())) {
+                        ClazzUtil.preload(resultMap.getType());
+                    }
+                }
+            } catch (Exception e) {
+                failed++;
+                log.debug("Data security warm-up failed for {}",
+                        statement.getId(), e);
+            }
+            if (++done % PROGRESS_INTERVAL == 0) {
+                log.info("Data security warm-up: {}/{} statements", done,
+                        statements.size());
+            }
+        }
+
+        Result result = new Result(done, analyzed, skipped, failed,
+                types.size(), algos, timedOut,
+                Duration.ofNanos(System.nanoTime() - start));
+        if (timedOut) {
+            log.warn("Data security warm-up timed out after {}: {}", timeout,
+                    result);
+        } else {
+            log.info("Data security warm-up finished: {}", result);
+        }
+        return result;
+    }
+
+    /**
+     * Prepares the static SQL of a statement the way the interceptors do.
+     *
+     * @return false if the SQL is dynamic
+     */
+    private static boolean warm(MappedStatement statement,
+                                EncryptFieldTableContainer container) {
+        SqlSource source = statement.getSqlSource();
+        if (!(source instanceof RawSqlSource)
+                && !(source instanceof StaticSqlSource)) {
+            return false;
+        }
+        String sql = source.getBoundSql(null).getSql();
+        if (container != null && container.mayInvolveEncrypt(sql)) {
+            SqlAnalysisCache.getInstance().get(sql);
+        }
+        SingleSelectProcessor.getInstance().process(sql);
+        return true;
+    }
+
+    /**
+     * Runs one round trip through the default algorithm and the algorithm
+     * of every encrypted column.
+     *
+     * @return the number of algorithms initialized
+     */
+    private static int warmAlgos(EncryptFieldTableContainer container) {
+        AbstractEncryptAlgoContainer algoContainer =
+                SpringContextUtil.getBeanSafely(AbstractEncryptAlgoContainer.class);
+        if (algoContainer == null) {
+            return 0;
+        }
+        Set<EncryptionAlgo> algos =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        algos.add(algoContainer.getAlgo());
+        if (container != null) {
+            // Also builds the encrypted column index
+            for (Class<? extends EncryptionAlgo> algo : container.getAlgos()) {
+                algos.add(algoContainer.getAlgo(algo));
+            }
+        }
+        int warmed = 0;
+        for (EncryptionAlgo algo : algos) {
+            try {
+                algo.decrypt(algo.encrypt(PROBE));
+                warmed++;
+            } catch (Exception e) {
+                log.warn("Data security warm-up failed for algorithm {}",
+                        algo.getClass().getName(), e);
+            }
+        }
+        return warmed;
+    }
+
+    /**
+     * Returns the mapped statements of all factories, once each; MyBatis
+     * registers statements under their full and short id.
+     */
+    private List<MappedStatement> mappedStatements() {
+        Set<MappedStatement> statements =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        List<MappedStatement> ordered = new ArrayList<>();
+        for (SqlSessionFactory factory : sqlSessionFactories) {
+            for (Object value : new ArrayList<>(
+                    factory.getConfiguration().getMappedStatements())) {
+                // Ambiguous short ids are registered as placeholders
+                if (value instanceof MappedStatement statement
+                        && statements.add(statement)) {
+                    ordered.add(statement);
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Summary of a warm-up run.
+     *
+     * @param statements the number of statements visited
+     * @param analyzed   the number of static statements prepared
+     * @param skipped    the number of dynamic statements
+     * @param failed     the number of statements that failed to warm up
+     * @param types      the number of distinct result types loaded
+     * @param algos      the number of algorithms initialized
+     * @param timedOut   whether the timeout cut the run short
+     * @param elapsed    the duration of the run
+     */
+    public record Result(int statements, int analyzed, int skipped,
+                         int failed, int types, int algos, boolean timedOut,
+                         Duration elapsed) {
+    }
+}
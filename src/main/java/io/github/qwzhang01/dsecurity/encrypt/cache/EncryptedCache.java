@@ -0,0 +1,204 @@
+package io.github.qwzhang01.dsecurity.encrypt.cache;
+
+import io.github.qwzhang01.dsecurity.domain.AnnotatedField;
+import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
+import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.processor.DecryptProcessor;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.dsecurity.exception.SerializationException;
+import io.github.qwzhang01.dsecurity.kit.ClazzUtil;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import org.apache.ibatis.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MyBatis second-level cache that keeps encrypted fields encrypted at rest.
+ *
+ * <p>Results reaching the cache have already been decrypted by
+ * {@code DecryptInterceptor}. On put, a serialized copy is taken and every
+ * {@link EncryptField} value of the copy is encrypted again before it is
+ * stored as bytes; the caller's objects are left untouched. On hit, the
+ * bytes are deserialized into fresh objects and decrypted, so each reader
+ * gets its own plaintext copy and no plaintext stays in the cache.</p>
+ *
+ * <p>The cache holds at most {@code size} entries and evicts the least
+ * recently used one when full. Results must be {@link java.io.Serializable};
+ * results that are not, and map-shaped rows whose encrypted columns are only
+ * known from the SQL, are not cached.</p>
+ *
+ * <pre>
+ * &#64;CacheNamespace(implementation = EncryptedCache.class,
+ *         properties = &#64;Property(name = "size", value = "512"))
+ * public interface UserMapper extends BaseMapper&lt;User&gt; {
+ * }
+ * </pre>
+ *
+ * @author avinzhang
+ */
+public class EncryptedCache implements Cache {
+    private static final Logger log =
+            LoggerFactory.getLogger(EncryptedCache.class);
+
+    private static final int DEFAULT_SIZE = 1024;
+
+    private final String id;
+    private final Map<Object, byte[]> entries;
+    private int size = DEFAULT_SIZE;
+
+    public EncryptedCache(String id) {
+        if (id == null) {
+            throw new DataSecurityException("Cache instances require an ID");
+        }
+        this.id = id;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, byte[]> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * Sets the maximum number of cached results, bound from the
+     * {@code size} cache property.
+     *
+     * @param size the maximum number of entries
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        byte[] bytes = value == null ? null : toCiphertextBytes(value);
+        synchronized (entries) {
+            if (value != null && bytes == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, bytes);
+            }
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        byte[] bytes;
+        synchronized (entries) {
+            bytes = entries.get(key);
+        }
+        if (bytes == null) {
+            return null;
+        }
+        Object value = ClazzUtil.deserialize(bytes);
+        if (value instanceof List<?> list) {
+            DecryptProcessor.getInstance().decryptList(list);
+        } else {
+            DecryptProcessor.getInstance().decryptSingle(value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        synchronized (entries) {
+            return entries.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Serializes a copy of the value with its encrypted fields restored to
+     * ciphertext.
+     *
+     * @return the bytes, or null if the value must not be cached
+     */
+    private byte[] toCiphertextBytes(Object value) {
+        if (containsMapRows(value)) {
+            log.debug("Map-shaped result is not cached by {}", id);
+            return null;
+        }
+        try {
+            Object copy = ClazzUtil.clone(value);
+            if (copy instanceof Collection<?> rows) {
+                for (Object row : rows) {
+                    encryptFields(row);
+                }
+            } else {
+                encryptFields(copy);
+            }
+            return ClazzUtil.serialize(copy);
+        } catch (SerializationException e) {
+            log.warn("Result of type {} is not serializable and is not " +
+                    "cached by {}", value.getClass().getName(), id);
+            return null;
+        }
+    }
+
+    private boolean containsMapRows(Object value) {
+        if (value instanceof Map) {
+            return true;
+        }
+        if (value instanceof Collection<?> rows) {
+            for (Object row : rows) {
+                if (row != null) {
+                    return row instanceof Map;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encrypts the annotated String fields of a cached copy in place.
+     */
+    private void encryptFields(Object row) {
+        if (row == null) {
+            return;
+        }
+        List<AnnotatedField<EncryptField>> fields =
+                ClazzUtil.getAnnotatedFields(row, EncryptField.class);
+        if (fields.isEmpty()) {
+            return;
+        }
+        AbstractEncryptAlgoContainer container =
+                SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class);
+        try {
+            for (AnnotatedField<EncryptField> field : fields) {
+                if (field.getFieldValue() instanceof String value) {
+                    EncryptionAlgo algo =
+                            container.getAlgo(field.annotation().value());
+                    field.field().setAccessible(true);
+                    field.field().set(field.obj(), algo.encrypt(value));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new DataSecurityException("Failed to encrypt cached fields",
+                    e);
+        }
+    }
+}
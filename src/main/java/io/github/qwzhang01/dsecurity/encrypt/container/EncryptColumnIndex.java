@@ -0,0 +1,128 @@
+package io.github.qwzhang01.dsecurity.encrypt.container;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index of encrypted columns keyed by canonical table and column
+ * names.
+ *
+ * <p>Table names are compared ignoring case, whitespace, backticks and
+ * double quotes. Column names are additionally converted from camel case to
+ * snake case, so {@code user_name}, {@code userName}, {@code USER_NAME} and
+ * {@code `user_name`} all resolve to the same column. Underscores stay
+ * significant otherwise: {@code phone_no} and {@code phoneno} are different
+ * columns.</p>
+ *
+ * @author avinzhang
+ */
+public final class EncryptColumnIndex {
+
+    /**
+     * Index without any encrypted column.
+     */
+    public static final EncryptColumnIndex EMPTY = new Builder().build();
+
+    private final Map<Key, Class<? extends EncryptionAlgo>> columns;
+
+    private EncryptColumnIndex(Map<Key, Class<? extends EncryptionAlgo>> columns) {
+        this.columns = columns;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the algorithm of an encrypted column.
+     *
+     * @param table  the table name, as written in SQL or metadata
+     * @param column the column or property name in any accepted spelling
+     * @return the algorithm class, or null if the column is not encrypted
+     */
+    public Class<? extends EncryptionAlgo> get(String table, String column) {
+        if (table == null || column == null || columns.isEmpty()) {
+            return null;
+        }
+        return columns.get(new Key(tableKey(table), columnKey(column)));
+    }
+
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Returns the canonical form of a table name, under which tables are
+     * compared by the index.
+     *
+     * @param table the table name, as written in SQL or metadata
+     * @return the lower-case name without quotes and whitespace
+     */
+    static String tableKey(String table) {
+        return unquote(table).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the canonical form of a column or property name.
+     *
+     * @param column the column or property name
+     * @return the lower-case snake case name without quotes and whitespace
+     */
+    static String columnKey(String column) {
+        return StringUtil.camelToUnderscore(unquote(column))
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String unquote(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '`' && c != '"' && !Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private record Key(String table, String column) {
+    }
+
+    /**
+     * Collects encrypted columns and builds the index.
+     */
+    public static final class Builder {
+        private final Map<Key, Class<? extends EncryptionAlgo>> columns =
+                new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an encrypted column. The first registration of a canonical
+         * table and column wins.
+         *
+         * @param table  the table name
+         * @param column the column name
+         * @param algo   the algorithm class
+         * @return this builder
+         */
+        public Builder add(String table, String column,
+                           Class<? extends EncryptionAlgo> algo) {
+            columns.putIfAbsent(new Key(tableKey(table), columnKey(column)),
+                    algo);
+            return this;
+        }
+
+        public EncryptColumnIndex build() {
+            return new EncryptColumnIndex(new HashMap<>(columns));
+        }
+    }
+}
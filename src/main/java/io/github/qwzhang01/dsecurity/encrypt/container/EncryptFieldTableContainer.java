@@ -4,12 +4,18 @@ import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
 import com.baomidou.mybatisplus.core.metadata.TableInfo;
 import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
 import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
 import io.github.qwzhang01.dsecurity.encrypt.shield.DefaultEncryptionAlgo;
 import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static io.github.qwzhang01.dsecurity.kit.StringUtil.clearSqlTip;
@@ -27,7 +33,10 @@ import static io.github.qwzhang01.dsecurity.kit.StringUtil.clearSqlTip;
  *   <li>Thread-safe caching with ConcurrentHashMap</li>
  *   <li>Support for custom table and field names via MyBatis-Plus
  *   annotations</li>
- *   <li>Fast lookup by table:column key</li>
+ *   <li>Single-probe lookup by canonical table and column name, see
+ *   {@link EncryptColumnIndex}</li>
+ *   <li>Per-SQL pre-filter on the names of tables with encrypted columns,
+ *   see {@link TableNameMatcher}</li>
  * </ul>
  *
  * @author avinzhang
@@ -36,7 +45,14 @@ public class EncryptFieldTableContainer {
 
     private static final Map<String, EncryptColumn> ENCRYPT_COLUMNS =
             new ConcurrentHashMap<>();
-    private boolean init = false;
+    private static final Map<String, Map<String, Class<? extends EncryptionAlgo>>> TABLE_COLUMNS =
+            new ConcurrentHashMap<>();
+    private static volatile EncryptColumnIndex columnIndex =
+            EncryptColumnIndex.EMPTY;
+    private static volatile TableNameMatcher tableMatcher =
+            TableNameMatcher.EMPTY;
+    private volatile BoundedCache<String, Boolean> sqlDecisions;
+    private volatile boolean init = false;
 
     public void init() {
 
@@ -49,6 +65,7 @@ public class EncryptFieldTableContainer {
                 return;
             }
             List<TableInfo> tableInfos = TableInfoHelper.getTableInfos();
+            EncryptColumnIndex.Builder indexBuilder = EncryptColumnIndex.builder();
             tableInfos.forEach(t -> {
                 List<TableFieldInfo> fieldList = t.getFieldList();
                 for (TableFieldInfo fieldInfo : fieldList) {
@@ -62,9 +79,21 @@ public class EncryptFieldTableContainer {
                                         clearSqlTip(encryptColumn.getTable())
                                         , clearSqlTip(encryptColumn.getName())),
                                 encryptColumn);
+                        TABLE_COLUMNS.computeIfAbsent(
+                                        EncryptColumnIndex.tableKey(
+                                                encryptColumn.getTable()),
+                                        k -> new ConcurrentHashMap<>())
+                                .put(clearSqlTip(encryptColumn.getName()),
+                                        encryptColumn.getAlgo());
+                        indexBuilder.add(encryptColumn.getTable(),
+                                encryptColumn.getName(), encryptColumn.getAlgo());
                     }
                 }
             });
+            columnIndex = indexBuilder.build();
+            tableMatcher = TableNameMatcher.of(TABLE_COLUMNS.keySet());
+            sqlDecisions = new BoundedCache<>(() -> DataSecurityProperties
+                    .current().getSqlCache().getMaxSize());
 
             init = true;
         }
@@ -87,10 +116,45 @@ public class EncryptFieldTableContainer {
     }
 
     public boolean isEncrypt(String tableName, String columnName) {
+        return findAlgo(tableName, columnName) != null;
+    }
+
+    /**
+     * Returns the algorithm of an encrypted column in one index probe.
+     *
+     * <p>The column may be given in snake or camel case, in any case and
+     * quoted or not, e.g. as entity property name.</p>
+     *
+     * @param tableName  the table name
+     * @param columnName the column or property name
+     * @return the algorithm class, or null if the column is not encrypted
+     */
+    public Class<? extends EncryptionAlgo> findAlgo(String tableName,
+                                                    String columnName) {
         if (!init) {
             init();
         }
-        return ENCRYPT_COLUMNS.containsKey(clearSqlTip(tableName) + ":" + clearSqlTip(columnName));
+        return columnIndex.get(tableName, columnName);
+    }
+
+    /**
+     * Checks whether a statement may read or bind an encrypted column.
+     *
+     * <p>The SQL is scanned once for the names of tables with encrypted
+     * columns and the decision is cached per SQL text. A false result is
+     * definite, so callers can skip parsing and parameter analysis.</p>
+     *
+     * @param sql the SQL text
+     * @return false if no table with encrypted columns is mentioned
+     */
+    public boolean mayInvolveEncrypt(String sql) {
+        if (!hasEncrypt()) {
+            return false;
+        }
+        if (StringUtil.isEmpty(sql)) {
+            return false;
+        }
+        return sqlDecisions.computeIfAbsent(sql, tableMatcher::matches);
     }
 
     public boolean hasEncrypt() {
@@ -100,17 +164,50 @@ public class EncryptFieldTableContainer {
         return !ENCRYPT_COLUMNS.isEmpty();
     }
 
-    public Class<? extends EncryptionAlgo> getAlgo(String tableName,
-                                                   String columnName) {
+    /**
+     * Returns the encrypted columns of a table with their algorithm classes.
+     *
+     * <p>The table is matched like in {@link #findAlgo}, ignoring case and
+     * quotes, so {@code USER} and {@code `user`} find the columns of the
+     * entity table {@code user}.</p>
+     *
+     * @param tableName the table name
+     * @return an unmodifiable column-to-algorithm map, empty if the table
+     * has no encrypted columns
+     */
+    public Map<String, Class<? extends EncryptionAlgo>> getEncryptColumns(String tableName) {
         if (!init) {
             init();
         }
-        EncryptColumn column = ENCRYPT_COLUMNS.get(clearSqlTip(tableName) +
-                ":" + clearSqlTip(columnName));
-        if (column == null) {
-            return DefaultEncryptionAlgo.class;
+        if (StringUtil.isEmpty(tableName)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Class<? extends EncryptionAlgo>> columns =
+                TABLE_COLUMNS.get(EncryptColumnIndex.tableKey(tableName));
+        if (columns == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(columns);
+    }
+
+    /**
+     * Returns the algorithm classes of all encrypted columns.
+     *
+     * @return the distinct algorithm classes, empty if nothing is encrypted
+     */
+    public Set<Class<? extends EncryptionAlgo>> getAlgos() {
+        if (!init) {
+            init();
         }
-        Class<? extends EncryptionAlgo> algo = column.getAlgo();
+        Set<Class<? extends EncryptionAlgo>> algos = new HashSet<>();
+        TABLE_COLUMNS.values().forEach(columns ->
+                algos.addAll(columns.values()));
+        return algos;
+    }
+
+    public Class<? extends EncryptionAlgo> getAlgo(String tableName,
+                                                   String columnName) {
+        Class<? extends EncryptionAlgo> algo = findAlgo(tableName, columnName);
         if (algo == null) {
             return DefaultEncryptionAlgo.class;
         }
@@ -0,0 +1,264 @@
+package io.github.qwzhang01.dsecurity.encrypt.container;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.AllTableColumns;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the result columns of a query that hold ciphertext.
+ *
+ * <p>Rows are read by column label, so each item of the outer select list
+ * is traced back to the table and column it reads: qualifiers are resolved
+ * through the table aliases of the FROM clause, unqualified columns belong
+ * to the table that has them encrypted, and the label is the alias if the
+ * item has one. {@code SELECT u.phone AS contact} therefore decrypts
+ * {@code contact}, while {@code SELECT o.remark AS phone} and a plain
+ * {@code phone} column of another joined table are left alone.
+ * Expressions are never decrypted.</p>
+ *
+ * <p>Queries reading from subqueries, set operations and statements the
+ * parser does not accept cannot be traced. They fall back to the encrypted
+ * columns of every table in the statement, by name, with the aliases of
+ * plain select items applied where the select list can be read.</p>
+ *
+ * <p>Labels are returned in lower case in every spelling a row key may
+ * take: as written, in snake case and in camel case.</p>
+ *
+ * @author avinzhang
+ */
+public final class ResultColumns {
+    private static final Logger log =
+            LoggerFactory.getLogger(ResultColumns.class);
+
+    private ResultColumns() {
+        throw new UnsupportedOperationException("ResultColumns is a utility " +
+                "class and cannot be instantiated");
+    }
+
+    /**
+     * Returns the algorithms of the encrypted result columns of a query.
+     *
+     * @param sql       the SQL text
+     * @param tables    the tables referenced by the statement
+     * @param container the encrypted column metadata
+     * @return algorithm classes by lower-case label, never null
+     */
+    public static Map<String, Class<? extends EncryptionAlgo>> of(
+            String sql, List<SqlTable> tables,
+            EncryptFieldTableContainer container) {
+        PlainSelect select = plainSelect(sql);
+        Map<String, String> qualifiers = select != null ?
+                qualifiers(select) : null;
+        if (qualifiers == null) {
+            return byTable(select, tables, container);
+        }
+
+        Map<String, Class<? extends EncryptionAlgo>> columns = new HashMap<>();
+        List<String> fromTables =
+                new ArrayList<>(new LinkedHashSet<>(qualifiers.values()));
+        for (SelectItem<?> item : select.getSelectItems()) {
+            Object expression = item.getExpression();
+            if (expression instanceof AllTableColumns all) {
+                String table = qualifiers.get(key(all.getTable().getName()));
+                if (table != null) {
+                    putAll(columns, table, container);
+                }
+            } else if (expression instanceof AllColumns) {
+                fromTables.forEach(table -> putAll(columns, table, container));
+            } else if (expression instanceof Column column) {
+                String name = unquote(column.getColumnName());
+                String table = tableOf(column, name, qualifiers, fromTables,
+                        container);
+                Class<? extends EncryptionAlgo> algo = table != null ?
+                        container.findAlgo(table, name) : null;
+                put(columns, label(item, name), algo);
+            } else if (item.getAlias() != null) {
+                put(columns, label(item, null), null);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Falls back to the encrypted columns of every table by name.
+     */
+    private static Map<String, Class<? extends EncryptionAlgo>> byTable(
+            PlainSelect select, List<SqlTable> tables,
+            EncryptFieldTableContainer container) {
+        Map<String, Class<? extends EncryptionAlgo>> columns = new HashMap<>();
+        for (SqlTable table : tables) {
+            putAll(columns, table.getName(), container);
+        }
+        if (columns.isEmpty() || select == null) {
+            return columns;
+        }
+        // Aliases name the key of the row: an encrypted column under another
+        // name is decrypted, another column named like an encrypted one not
+        Map<String, Class<? extends EncryptionAlgo>> byName = Map.copyOf(columns);
+        for (SelectItem<?> item : select.getSelectItems()) {
+            if (item.getAlias() == null) {
+                continue;
+            }
+            Class<? extends EncryptionAlgo> algo =
+                    item.getExpression() instanceof Column column ?
+                            byName.get(key(column.getColumnName())) : null;
+            put(columns, label(item, null), algo);
+        }
+        return columns;
+    }
+
+    /**
+     * Parses the outer plain select of a query.
+     *
+     * @return the select, or null for other statements and unparseable SQL
+     */
+    private static PlainSelect plainSelect(String sql) {
+        try {
+            Statement statement = CCJSqlParserUtil.parse(sql);
+            return statement instanceof Select select ?
+                    select.getPlainSelect() : null;
+        } catch (Exception e) {
+            log.debug("Failed to parse result columns of SQL: {}", sql, e);
+            return null;
+        }
+    }
+
+    /**
+     * Maps the aliases and names of the FROM tables to the table names.
+     *
+     * @return the tables by lower-case qualifier, or null if the select
+     * reads from anything but tables
+     */
+    private static Map<String, String> qualifiers(PlainSelect select) {
+        Map<String, String> qualifiers = new LinkedHashMap<>();
+        if (!addTable(qualifiers, select.getFromItem())) {
+            return null;
+        }
+        if (select.getJoins() != null) {
+            for (Join join : select.getJoins()) {
+                if (!addTable(qualifiers, join.getFromItem())) {
+                    return null;
+                }
+            }
+        }
+        return qualifiers;
+    }
+
+    private static boolean addTable(Map<String, String> qualifiers,
+                                    FromItem item) {
+        if (!(item instanceof Table table) || table.getName() == null) {
+            return false;
+        }
+        String name = unquote(table.getName());
+        qualifiers.putIfAbsent(key(name), name);
+        Alias alias = table.getAlias();
+        if (alias != null && alias.getName() != null) {
+            qualifiers.put(key(alias.getName()), name);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the table a column item reads, or null if it is unknown.
+     */
+    private static String tableOf(Column column, String name,
+                                  Map<String, String> qualifiers,
+                                  List<String> fromTables,
+                                  EncryptFieldTableContainer container) {
+        Table qualifier = column.getTable();
+        if (qualifier != null && qualifier.getName() != null) {
+            return qualifiers.get(key(qualifier.getName()));
+        }
+        // Unqualified columns are unambiguous, so only one table has them
+        for (String table : fromTables) {
+            if (container.findAlgo(table, name) != null) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private static String label(SelectItem<?> item, String column) {
+        Alias alias = item.getAlias();
+        return alias != null && alias.getName() != null ?
+                unquote(alias.getName()) : column;
+    }
+
+    /**
+     * Adds the encrypted columns of a table unless a label is taken.
+     */
+    private static void putAll(Map<String, Class<? extends EncryptionAlgo>> columns,
+                               String table,
+                               EncryptFieldTableContainer container) {
+        container.getEncryptColumns(table).forEach((column, algo) -> {
+            for (String spelling : spellings(column)) {
+                columns.putIfAbsent(spelling, algo);
+            }
+        });
+    }
+
+    /**
+     * Sets the algorithm of a label, or marks it plain if algo is null.
+     */
+    private static void put(Map<String, Class<? extends EncryptionAlgo>> columns,
+                            String label,
+                            Class<? extends EncryptionAlgo> algo) {
+        if (StringUtil.isEmpty(label)) {
+            return;
+        }
+        for (String spelling : spellings(label)) {
+            if (algo != null) {
+                columns.put(spelling, algo);
+            } else {
+                columns.remove(spelling);
+            }
+        }
+    }
+
+    private static List<String> spellings(String name) {
+        String lower = key(name);
+        String snake = key(StringUtil.camelToUnderscore(name));
+        String camel = key(StringUtil.underscoreToCamel(name));
+        if (lower.equals(snake) && lower.equals(camel)) {
+            return Collections.singletonList(lower);
+        }
+        return List.copyOf(new LinkedHashSet<>(List.of(lower, snake, camel)));
+    }
+
+    /**
+     * Returns the form in which a label is looked up.
+     *
+     * @param name a column name, label or row key
+     * @return the name without quotes, in lower case
+     */
+    public static String key(String name) {
+        return unquote(name).toLowerCase(Locale.ROOT);
+    }
+
+    private static String unquote(String name) {
+        return name.replace("`", "").replace("\"", "").trim();
+    }
+}
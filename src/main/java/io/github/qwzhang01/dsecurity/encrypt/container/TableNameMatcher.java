@@ -0,0 +1,190 @@
+package io.github.qwzhang01.dsecurity.encrypt.container;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Aho–Corasick matcher that finds any of a set of table names in SQL text.
+ *
+ * <p>The names are compiled into a deterministic automaton over ASCII, so
+ * a statement is scanned once, case-insensitively, whatever the number of
+ * names. A match only counts as a whole identifier: the characters around
+ * it must not be letters, digits, {@code _} or {@code $}. Quotes, backticks
+ * and schema dots are therefore boundaries, and {@code user} does not match
+ * inside {@code user_role}.</p>
+ *
+ * <p>The matcher may report a table that only occurs in a string literal or
+ * comment; it never misses one, which is what a pre-filter needs. Names
+ * with non-ASCII characters cannot be compiled, so such a matcher matches
+ * every statement.</p>
+ *
+ * @author avinzhang
+ */
+public final class TableNameMatcher {
+    /**
+     * Matcher without names; it matches nothing.
+     */
+    public static final TableNameMatcher EMPTY = of(List.of());
+
+    private static final int ALPHABET = 128;
+
+    private final int[][] transitions;
+    private final int[][] outputs;
+    private final boolean matchAll;
+
+    private TableNameMatcher(int[][] transitions, int[][] outputs,
+                             boolean matchAll) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.matchAll = matchAll;
+    }
+
+    /**
+     * Compiles a matcher.
+     *
+     * @param tableNames the table names; quoting and schema prefixes are
+     *                   ignored
+     * @return the matcher
+     */
+    public static TableNameMatcher of(Collection<String> tableNames) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String tableName : tableNames) {
+            String name = normalize(tableName);
+            if (name.isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) >= ALPHABET) {
+                    return new TableNameMatcher(new int[1][ALPHABET],
+                            new int[1][0], true);
+                }
+            }
+            names.add(name);
+        }
+        return build(names);
+    }
+
+    /**
+     * Checks whether the SQL mentions any of the table names.
+     *
+     * @param sql the SQL text
+     * @return true if a name occurs as a whole identifier
+     */
+    public boolean matches(CharSequence sql) {
+        if (matchAll) {
+            return true;
+        }
+        if (outputs.length == 1 || sql == null) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0;
+                continue;
+            }
+            state = transitions[state][Character.toLowerCase(c)];
+            for (int length : outputs[state]) {
+                if (!isIdentifierChar(sql, i + 1)
+                        && !isIdentifierChar(sql, i - length)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static TableNameMatcher build(Set<String> names) {
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> lengths = new ArrayList<>();
+        gotos.add(newRow());
+        lengths.add(new ArrayList<>());
+        for (String name : names) {
+            int state = 0;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (gotos.get(state)[c] < 0) {
+                    gotos.get(state)[c] = gotos.size();
+                    gotos.add(newRow());
+                    lengths.add(new ArrayList<>());
+                }
+                state = gotos.get(state)[c];
+            }
+            lengths.get(state).add(name.length());
+        }
+
+        // Breadth-first: resolve failure links into full transitions
+        int size = gotos.size();
+        int[][] transitions = new int[size][];
+        int[] failure = new int[size];
+        transitions[0] = gotos.get(0).clone();
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            lengths.get(state).addAll(lengths.get(failure[state]));
+            transitions[state] = gotos.get(state).clone();
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        int[][] outputs = new int[size][];
+        for (int i = 0; i < size; i++) {
+            outputs[i] = lengths.get(i).stream().distinct()
+                    .mapToInt(Integer::intValue).toArray();
+        }
+        return new TableNameMatcher(transitions, outputs, false);
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * Lowercases a table name and strips quoting and any schema prefix.
+     */
+    private static String normalize(String tableName) {
+        if (tableName == null) {
+            return "";
+        }
+        String name = tableName.replace("`", "").replace("\"", "").trim();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            name = name.substring(dot + 1);
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isIdentifierChar(CharSequence sql, int index) {
+        if (index < 0 || index >= sql.length()) {
+            return false;
+        }
+        char c = sql.charAt(index);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
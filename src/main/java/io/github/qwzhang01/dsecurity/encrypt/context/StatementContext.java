@@ -0,0 +1,149 @@
+package io.github.qwzhang01.dsecurity.encrypt.context;
+
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * SQL of one statement while it is being prepared.
+ *
+ * <p>Created once per prepare and handed to every rewriting processor in
+ * turn. Each processor reads the SQL as left by the previous one and
+ * replaces it with its own result; the final SQL is written to the
+ * {@link BoundSql} once by {@link #commit()}, instead of one reflective
+ * write per processor. Processors that add placeholders replace the
+ * parameter mappings along with the SQL.</p>
+ *
+ * <p>Only the text and the mappings are shared, not a parsed statement.
+ * Each processor keeps its own cache keyed by SQL text, the encryption
+ * analysis in {@code SqlAnalysisCache} and the rewrites of the single
+ * select and data scope processors, and parses only on a miss; the data
+ * scope rewrite and the analysis go through the text-based helpers of the
+ * SQL tool library. Repeated statements are therefore not parsed at
+ * all.</p>
+ *
+ * @author avinzhang
+ */
+public final class StatementContext {
+    private static final Field SQL_FIELD = boundSqlField("sql");
+    private static final Field MAPPINGS_FIELD =
+            boundSqlField("parameterMappings");
+
+    private final StatementHandler statementHandler;
+    private final BoundSql boundSql;
+    private final String originalSql;
+    private String sql;
+    private List<ParameterMapping> parameterMappings;
+
+    private StatementContext(StatementHandler statementHandler) {
+        this.statementHandler = statementHandler;
+        this.boundSql = statementHandler.getBoundSql();
+        this.originalSql = boundSql.getSql();
+        this.sql = originalSql;
+    }
+
+    /**
+     * Creates the context of a statement handler about to be prepared.
+     *
+     * @param statementHandler the statement handler
+     * @return the context
+     */
+    public static StatementContext of(StatementHandler statementHandler) {
+        return new StatementContext(statementHandler);
+    }
+
+    public StatementHandler getStatementHandler() {
+        return statementHandler;
+    }
+
+    public BoundSql getBoundSql() {
+        return boundSql;
+    }
+
+    /**
+     * Returns the SQL as generated by MyBatis.
+     *
+     * @return the original SQL
+     */
+    public String getOriginalSql() {
+        return originalSql;
+    }
+
+    /**
+     * Returns the SQL with the rewrites applied so far.
+     *
+     * @return the current SQL
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Replaces the SQL.
+     *
+     * @param sql the rewritten SQL, ignored if null
+     */
+    public void setSql(String sql) {
+        if (sql != null) {
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Returns the parameter mappings matching the current SQL.
+     *
+     * @return the mappings
+     */
+    public List<ParameterMapping> getParameterMappings() {
+        return parameterMappings != null ? parameterMappings :
+                boundSql.getParameterMappings();
+    }
+
+    /**
+     * Replaces the parameter mappings, e.g. after placeholders were added
+     * to the SQL. The list of the bound SQL may be shared by all executions
+     * of a static statement, so it is replaced rather than modified.
+     *
+     * @param parameterMappings the mappings matching the current SQL
+     */
+    public void setParameterMappings(List<ParameterMapping> parameterMappings) {
+        this.parameterMappings = parameterMappings;
+    }
+
+    public boolean isModified() {
+        return !sql.equals(originalSql) || parameterMappings != null;
+    }
+
+    /**
+     * Writes the rewritten SQL and parameter mappings to the bound SQL, if
+     * they changed.
+     */
+    public void commit() {
+        if (!isModified()) {
+            return;
+        }
+        try {
+            SQL_FIELD.set(boundSql, sql);
+            if (parameterMappings != null) {
+                MAPPINGS_FIELD.set(boundSql, parameterMappings);
+            }
+        } catch (IllegalAccessException e) {
+            throw new DataSecurityException("Failed to rewrite SQL", e);
+        }
+    }
+
+    private static Field boundSqlField(String name) {
+        try {
+            Field field = BoundSql.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new DataSecurityException("BoundSql has no " + name +
+                    " field", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.qwzhang01.dsecurity.encrypt.plan;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+
+import java.util.List;
+
+/**
+ * Parameter encryption plan of one statement shape.
+ *
+ * <p>Which bound properties map to encrypted columns only depends on the
+ * mapped statement and its SQL text, so the matching is done once and the
+ * plan lists the properties to encrypt with their column and algorithm.
+ * Executing the plan only reads those properties and encrypts their
+ * values.</p>
+ *
+ * <p>Elements of {@code <foreach>} lists are bound as additional parameters
+ * named {@code __frch_<item>_<n>}. Consecutive elements bound to the same
+ * column form one group that is matched once and encrypted in one
+ * batch.</p>
+ *
+ * <p>QueryWrapper parameters carry their own SQL segment, so their plan
+ * keeps the parsed statement and matching happens per execution.</p>
+ *
+ * @author avinzhang
+ */
+public final class EncryptPlan {
+
+    private final Kind kind;
+    private final List<Entry> entries;
+    private final List<ForeachGroup> groups;
+    private final List<SqlParam> params;
+    private final List<SqlTable> tables;
+
+    private EncryptPlan(Kind kind, List<Entry> entries,
+                        List<ForeachGroup> groups, List<SqlParam> params,
+                        List<SqlTable> tables) {
+        this.kind = kind;
+        this.entries = List.copyOf(entries);
+        this.groups = List.copyOf(groups);
+        this.params = params;
+        this.tables = tables;
+    }
+
+    /**
+     * Creates the plan of an entity or Map parameter.
+     *
+     * @param kind    the parameter kind
+     * @param entries the properties to encrypt
+     * @return the plan
+     */
+    public static EncryptPlan of(Kind kind, List<Entry> entries) {
+        return of(kind, entries, List.of());
+    }
+
+    /**
+     * Creates the plan of an entity or Map parameter with foreach groups.
+     *
+     * @param kind    the parameter kind
+     * @param entries the properties to encrypt
+     * @param groups  the foreach element groups to encrypt
+     * @return the plan
+     */
+    public static EncryptPlan of(Kind kind, List<Entry> entries,
+                                 List<ForeachGroup> groups) {
+        return new EncryptPlan(kind, entries, groups, List.of(), List.of());
+    }
+
+    /**
+     * Creates the plan of a QueryWrapper parameter.
+     *
+     * @param params the parameter columns of the statement
+     * @param tables the tables of the statement
+     * @return the plan
+     */
+    public static EncryptPlan ofQueryWrapper(List<SqlParam> params,
+                                             List<SqlTable> tables) {
+        return new EncryptPlan(Kind.QUERY_WRAPPER, List.of(), List.of(),
+                params, tables);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public List<ForeachGroup> getGroups() {
+        return groups;
+    }
+
+    public List<SqlParam> getParams() {
+        return params;
+    }
+
+    public List<SqlTable> getTables() {
+        return tables;
+    }
+
+    /**
+     * Checks whether executing the plan can never encrypt anything.
+     *
+     * @return true if there is nothing to encrypt
+     */
+    public boolean isEmpty() {
+        if (kind == Kind.QUERY_WRAPPER) {
+            return tables.isEmpty();
+        }
+        return entries.isEmpty() && groups.isEmpty();
+    }
+
+    /**
+     * Parameter object kinds.
+     */
+    public enum Kind {
+        /**
+         * Entity or other bean parameter, read through property accessors.
+         */
+        OBJECT,
+        /**
+         * Map parameter, e.g. MyBatis {@code @Param} maps.
+         */
+        MAP,
+        /**
+         * Map parameter holding a MyBatis-Plus wrapper under {@code ew}.
+         */
+        QUERY_WRAPPER
+    }
+
+    /**
+     * A bound property that maps to an encrypted column.
+     *
+     * @param property  the parameter property, as in the ParameterMapping
+     * @param tableName the table of the encrypted column
+     * @param fieldName the encrypted column
+     * @param algoClass the encryption algorithm
+     */
+    public record Entry(String property, String tableName, String fieldName,
+                        Class<? extends EncryptionAlgo> algoClass) {
+    }
+
+    /**
+     * Foreach elements bound to one encrypted column.
+     *
+     * @param properties the additional parameter names of the elements, in
+     *                   binding order
+     * @param tableName  the table of the encrypted column
+     * @param fieldName  the encrypted column
+     * @param algoClass  the encryption algorithm
+     */
+    public record ForeachGroup(List<String> properties, String tableName,
+                               String fieldName,
+                               Class<? extends EncryptionAlgo> algoClass) {
+        public ForeachGroup {
+            properties = List.copyOf(properties);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.qwzhang01.dsecurity.encrypt.plan;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of {@link EncryptPlan} instances keyed by mapped statement id and
+ * SQL text.
+ *
+ * @author avinzhang
+ */
+public final class EncryptPlanCache {
+    private final BoundedCache<PlanKey, EncryptPlan> plans;
+
+    private EncryptPlanCache() {
+        this.plans = new BoundedCache<>(() -> DataSecurityProperties.current()
+                .getEncrypt().getPlanCacheSize());
+    }
+
+    public static EncryptPlanCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the plan of a statement shape, building it on first use.
+     *
+     * @param statementId the mapped statement id
+     * @param sql         the SQL text
+     * @param builder     builds the plan on a miss
+     * @return the plan
+     */
+    public EncryptPlan get(String statementId, String sql,
+                           Supplier<EncryptPlan> builder) {
+        return plans.computeIfAbsent(new PlanKey(statementId, sql),
+                k -> builder.get());
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the cache.
+     *
+     * @return the statistics
+     */
+    public BoundedCache.Stats stats() {
+        return plans.stats();
+    }
+
+    public void clear() {
+        plans.clear();
+    }
+
+    private record PlanKey(String statementId, String sql) {
+    }
+
+    private static final class Holder {
+        private static final EncryptPlanCache INSTANCE = new EncryptPlanCache();
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Prepared statement of a JDBC batch that encrypts its rows in bulk.
+ *
+ * <p>Parameter values bound for each row are buffered instead of being set
+ * on the driver statement. When the batch is executed, the values of every
+ * encrypted parameter index are encrypted together for all rows, then the
+ * rows are bound and added to the driver statement and the batch runs.
+ * Encryption therefore no longer alternates with binding on a per-row
+ * basis, and the caller's parameter objects are never modified.</p>
+ *
+ * <p>Like the statements of a MyBatis batch executor, instances are
+ * confined to one thread.</p>
+ *
+ * @author avinzhang
+ */
+final class BatchEncryptingStatement implements InvocationHandler {
+    private static final Set<String> PARAM_SETTERS =
+            Set.of("setString", "setNString", "setObject");
+
+    private final PreparedStatement target;
+    private final EncryptionAlgo[] algos;
+    private List<Binding> row = new ArrayList<>();
+    private final List<List<Binding>> rows = new ArrayList<>();
+
+    private BatchEncryptingStatement(PreparedStatement target,
+                                     EncryptionAlgo[] algos) {
+        this.target = target;
+        this.algos = algos;
+    }
+
+    /**
+     * Wraps a prepared statement of a batch.
+     *
+     * @param statement the driver statement
+     * @param algos     algorithms by 1-based parameter index, null entries
+     *                  for plain parameters
+     * @return the wrapped statement, or the statement itself if it is not
+     * a prepared statement
+     */
+    static Statement wrap(Statement statement, EncryptionAlgo[] algos) {
+        if (!(statement instanceof PreparedStatement prepared)) {
+            return statement;
+        }
+        return (Statement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new BatchEncryptingStatement(prepared, algos));
+    }
+
+    /**
+     * Checks whether a statement encrypts its batch rows itself.
+     *
+     * @param statement the statement
+     * @return true if the statement was created by {@link #wrap}
+     */
+    static boolean isWrapped(Statement statement) {
+        return statement != null && Proxy.isProxyClass(statement.getClass())
+                && Proxy.getInvocationHandler(statement)
+                instanceof BatchEncryptingStatement;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (args != null && args.length >= 2 && args[0] instanceof Integer
+                && name.startsWith("set")) {
+            row.add(new Binding(method, args.clone()));
+            return null;
+        }
+        switch (name) {
+            case "clearParameters" -> {
+                row.clear();
+                return null;
+            }
+            case "addBatch" -> {
+                if (args == null) {
+                    rows.add(row);
+                    row = new ArrayList<>();
+                    return null;
+                }
+            }
+            case "executeBatch", "executeLargeBatch" -> flush();
+            case "clearBatch", "close" -> {
+                rows.clear();
+                row.clear();
+            }
+            default -> {
+            }
+        }
+        return call(method, args);
+    }
+
+    /**
+     * Encrypts the buffered rows per parameter index and adds them to the
+     * driver statement.
+     */
+    private void flush() throws Throwable {
+        for (int index = 1; index < algos.length; index++) {
+            if (algos[index] != null) {
+                encryptColumn(index, algos[index]);
+            }
+        }
+        for (List<Binding> bindings : rows) {
+            for (Binding binding : bindings) {
+                call(binding.method, binding.args);
+            }
+            target.addBatch();
+        }
+        rows.clear();
+    }
+
+    private void encryptColumn(int index, EncryptionAlgo algo) {
+        List<Binding> column = new ArrayList<>(rows.size());
+        for (List<Binding> bindings : rows) {
+            for (Binding binding : bindings) {
+                if ((Integer) binding.args[0] == index
+                        && binding.args[1] instanceof String
+                        && PARAM_SETTERS.contains(binding.method.getName())) {
+                    column.add(binding);
+                }
+            }
+        }
+        if (column.isEmpty()) {
+            return;
+        }
+
+        String[] values = new String[column.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (String) column.get(i).args[1];
+        }
+        String[] encrypted = BulkEncryptor.encrypt(algo, values);
+        for (int i = 0; i < encrypted.length; i++) {
+            column.get(i).args[1] = encrypted[i];
+        }
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Binding(Method method, Object[] args) {
+    }
+}
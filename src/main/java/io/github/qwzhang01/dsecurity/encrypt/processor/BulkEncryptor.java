@@ -0,0 +1,87 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encrypts many values with one algorithm at once.
+ *
+ * <p>Duplicate plaintexts are encrypted once. When parallel encryption is
+ * enabled and the number of distinct values reaches its threshold, they are
+ * encrypted in chunks on the shared pool used for parallel decryption, with
+ * the chunk size and parallelism of {@code seven.data-security.encrypt}.</p>
+ *
+ * @author avinzhang
+ */
+final class BulkEncryptor {
+    private static final Logger log =
+            LoggerFactory.getLogger(BulkEncryptor.class);
+
+    private BulkEncryptor() {
+    }
+
+    /**
+     * Encrypts values.
+     *
+     * @param algo   the algorithm, must be thread-safe
+     * @param values the plaintexts; null entries are kept as null
+     * @return the ciphertexts, in the order of the plaintexts
+     */
+    static String[] encrypt(EncryptionAlgo algo, String[] values) {
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        for (String value : values) {
+            if (value != null && slots.putIfAbsent(value, distinct.size()) == null) {
+                distinct.add(value);
+            }
+        }
+
+        String[] encrypted = new String[distinct.size()];
+        DataSecurityProperties properties = DataSecurityProperties.current();
+        ParallelDecryptor.Settings settings =
+                ParallelDecryptor.Settings.of(properties.getEncrypt());
+        if (ParallelDecryptor.shouldParallelize(distinct.size(), settings)) {
+            List<Integer> indexes = new ArrayList<>(distinct.size());
+            for (int i = 0; i < distinct.size(); i++) {
+                indexes.add(i);
+            }
+            ParallelDecryptor.run(indexes, index -> {
+                int i = (Integer) index;
+                encrypted[i] = encrypt(algo, distinct.get(i));
+            }, settings, properties.getDecrypt());
+        } else {
+            for (int i = 0; i < encrypted.length; i++) {
+                encrypted[i] = encrypt(algo, distinct.get(i));
+            }
+        }
+        log.debug("Encrypted {} values ({} distinct)", values.length,
+                distinct.size());
+
+        String[] result = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result[i] = encrypted[slots.get(values[i])];
+            }
+        }
+        return result;
+    }
+
+    private static String encrypt(EncryptionAlgo algo, String value) {
+        try {
+            return algo.encrypt(value);
+        } catch (RuntimeException e) {
+            if (algo.cryptoThrowable()) {
+                throw e;
+            }
+            log.error("Failed to encrypt value: {}", value, e);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.encrypt.shield.TolerantDecryptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request-scoped memo of decrypted values.
+ *
+ * <p>A memo is created for one {@code handleResultSets} call and dropped
+ * when the call returns, so each distinct ciphertext is decrypted once per
+ * algorithm and no plaintext outlives the query. Once {@code maxSize}
+ * entries are stored, further values are decrypted without being
+ * memoized.</p>
+ *
+ * <p>The memo is safe to share between the workers of a parallel
+ * decryption.</p>
+ *
+ * @author avinzhang
+ */
+final class DecryptMemo {
+    private final Map<Class<? extends EncryptionAlgo>, Map<String, String>> values =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+
+    DecryptMemo(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Decrypts the value, reusing a previous result for the same
+     * ciphertext and algorithm.
+     *
+     * @param algoClass the algorithm class used as memo partition
+     * @param algo      the algorithm instance
+     * @param value     the ciphertext
+     * @return the decrypted value
+     */
+    String decrypt(Class<? extends EncryptionAlgo> algoClass,
+                   EncryptionAlgo algo, String value) {
+        if (maxSize <= 0) {
+            return TolerantDecryptor.decrypt(algo, value);
+        }
+        Map<String, String> partition = values.computeIfAbsent(algoClass,
+                k -> new ConcurrentHashMap<>());
+        String decrypted = partition.get(value);
+        if (decrypted != null) {
+            return decrypted;
+        }
+        decrypted = TolerantDecryptor.decrypt(algo, value);
+        if (decrypted != null && size.get() < maxSize
+                && partition.putIfAbsent(value, decrypted) == null) {
+            size.incrementAndGet();
+        }
+        return decrypted;
+    }
+}
@@ -1,18 +1,29 @@
 package io.github.qwzhang01.dsecurity.encrypt.processor;
 
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
 import io.github.qwzhang01.dsecurity.domain.AnnotatedField;
 import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
 import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptFieldTableContainer;
+import io.github.qwzhang01.dsecurity.encrypt.container.ResultColumns;
 import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
 import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
 import io.github.qwzhang01.dsecurity.kit.ClazzUtil;
 import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysisCache;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Decryption processor for automatic field decryption.
@@ -25,7 +36,10 @@ import java.util.List;
  * <p><strong>Features:</strong></p>
  * <ul>
  *   <li>Singleton pattern for performance</li>
+ *   <li>Per-query memo so repeated ciphertexts are decrypted once</li>
+ *   <li>Chunked parallel decryption for large result lists</li>
  *   <li>Support for both single and list results</li>
+ *   <li>Column-name-driven decryption for map-shaped rows</li>
  *   <li>Automatic algorithm selection based on annotation</li>
  *   <li>Thread-safe operation</li>
  * </ul>
@@ -36,6 +50,10 @@ public class DecryptProcessor {
     private static final Logger log =
             LoggerFactory.getLogger(DecryptProcessor.class);
 
+    private final BoundedCache<String, Map<String, Class<? extends EncryptionAlgo>>> mapColumns =
+            new BoundedCache<>(() -> DataSecurityProperties.current()
+                    .getSqlCache().getMaxSize());
+
     private DecryptProcessor() {
     }
 
@@ -46,6 +64,11 @@ public class DecryptProcessor {
     /**
      * Decrypts encrypted fields in a list of results (selectList scenario).
      *
+     * <p>Identical ciphertexts across rows are decrypted once; the memo
+     * only lives for this call. Lists above the configured threshold are
+     * decrypted in parallel chunks, smaller ones stay on the calling
+     * thread.</p>
+     *
      * @param resultList the list of query results
      */
     public void decryptList(List<?> resultList) {
@@ -56,16 +79,147 @@ public class DecryptProcessor {
 
         log.debug("Decrypting {} results from list query", resultList.size());
 
+        DataSecurityProperties.Decrypt config =
+                DataSecurityProperties.current().getDecrypt();
+        DecryptMemo memo = new DecryptMemo(config.getMemoSize());
+        AtomicReference<AbstractEncryptAlgoContainer> container =
+                new AtomicReference<>();
+
+        if (ParallelDecryptor.shouldParallelize(resultList.size(), config)) {
+            ParallelDecryptor.run(resultList,
+                    result -> decryptRow(result, container, memo), config);
+            return;
+        }
+
         for (Object result : resultList) {
             if (result != null) {
-                List<AnnotatedField<EncryptField>> encryptedFields =
-                        ClazzUtil.getAnnotatedFields(result,
-                                EncryptField.class);
-                decryptFields(encryptedFields);
+                decryptRow(result, container, memo);
             }
         }
     }
 
+    /**
+     * Decrypts encrypted columns in map-shaped rows
+     * ({@code List<Map<String, Object>>} results).
+     *
+     * <p>Map rows carry no field annotations, so the encrypted columns are
+     * resolved once from the tables of the statement through
+     * {@link EncryptFieldTableContainer}. Each distinct row key is matched
+     * once per call; rows are then decrypted by key without further
+     * metadata lookups.</p>
+     *
+     * @param resultList the list of map rows
+     * @param sql        the SQL that produced the rows
+     */
+    public void decryptMapList(List<?> resultList, String sql) {
+        if (CollectionUtils.isEmpty(resultList) || StringUtil.isEmpty(sql)) {
+            return;
+        }
+
+        Map<String, Class<? extends EncryptionAlgo>> encryptColumns =
+                resolveEncryptColumns(sql);
+        if (encryptColumns.isEmpty()) {
+            log.debug("No encrypted columns in statement tables, skipping " +
+                    "map decryption");
+            return;
+        }
+
+        log.debug("Decrypting {} map rows, encrypted columns: {}",
+                resultList.size(), encryptColumns.keySet());
+
+        DataSecurityProperties.Decrypt config =
+                DataSecurityProperties.current().getDecrypt();
+        DecryptMemo memo = new DecryptMemo(config.getMemoSize());
+        AbstractEncryptAlgoContainer container = getContainer();
+        Map<String, ColumnAlgo> resolvedKeys = new ConcurrentHashMap<>();
+
+        if (ParallelDecryptor.shouldParallelize(resultList.size(), config)) {
+            ParallelDecryptor.run(resultList,
+                    row -> decryptMapRow(row, encryptColumns, resolvedKeys,
+                            container, memo), config);
+            return;
+        }
+
+        for (Object row : resultList) {
+            if (row != null) {
+                decryptMapRow(row, encryptColumns, resolvedKeys, container,
+                        memo);
+            }
+        }
+    }
+
+    /**
+     * Returns the encrypted result columns of the SQL by lower-case label,
+     * as resolved by {@link ResultColumns}. Cached per SQL text.
+     */
+    private Map<String, Class<? extends EncryptionAlgo>> resolveEncryptColumns(String sql) {
+        return mapColumns.computeIfAbsent(sql, this::loadEncryptColumns);
+    }
+
+    private Map<String, Class<? extends EncryptionAlgo>> loadEncryptColumns(String sql) {
+        EncryptFieldTableContainer tableContainer =
+                SpringContextUtil.getBean(EncryptFieldTableContainer.class);
+        if (!tableContainer.mayInvolveEncrypt(sql)) {
+            return Collections.emptyMap();
+        }
+        List<SqlTable> tables = SqlAnalysisCache.getInstance().get(sql).tables();
+        if (tables.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return ResultColumns.of(sql, tables, tableContainer);
+    }
+
+    /**
+     * Decrypts the encrypted values of one map row in place.
+     */
+    @SuppressWarnings("unchecked")
+    private void decryptMapRow(Object row,
+                               Map<String, Class<? extends EncryptionAlgo>> encryptColumns,
+                               Map<String, ColumnAlgo> resolvedKeys,
+                               AbstractEncryptAlgoContainer container,
+                               DecryptMemo memo) {
+        if (!(row instanceof Map<?, ?> map)) {
+            return;
+        }
+        for (Map.Entry<Object, Object> entry :
+                ((Map<Object, Object>) map).entrySet()) {
+            if (!(entry.getKey() instanceof String key)
+                    || !(entry.getValue() instanceof String value)) {
+                continue;
+            }
+            ColumnAlgo columnAlgo = resolvedKeys.computeIfAbsent(key, k -> {
+                Class<? extends EncryptionAlgo> algoClass =
+                        encryptColumns.get(ResultColumns.key(k));
+                return algoClass == null ? ColumnAlgo.NONE :
+                        new ColumnAlgo(algoClass, container.getAlgo(algoClass));
+            });
+            if (columnAlgo != ColumnAlgo.NONE) {
+                entry.setValue(memo.decrypt(columnAlgo.algoClass(),
+                        columnAlgo.algo(), value));
+            }
+        }
+    }
+
+    /**
+     * Decrypts the encrypted fields of one row, resolving the algorithm
+     * container on first use.
+     */
+    private void decryptRow(Object result,
+                            AtomicReference<AbstractEncryptAlgoContainer> container,
+                            DecryptMemo memo) {
+        List<AnnotatedField<EncryptField>> encryptedFields =
+                ClazzUtil.getAnnotatedFields(result, EncryptField.class);
+        if (encryptedFields.isEmpty()) {
+            return;
+        }
+        AbstractEncryptAlgoContainer algoContainer = container.get();
+        if (algoContainer == null) {
+            algoContainer = getContainer();
+            container.set(algoContainer);
+        }
+        decryptFields(encryptedFields, algoContainer, memo);
+    }
+
     /**
      * Decrypts encrypted fields in a single result (selectOne scenario).
      *
@@ -77,27 +231,28 @@ public class DecryptProcessor {
 
         List<AnnotatedField<EncryptField>> encryptedFields =
                 ClazzUtil.getAnnotatedFields(resultObject, EncryptField.class);
-        decryptFields(encryptedFields);
+        if (encryptedFields.isEmpty()) {
+            log.debug("No encrypted fields found, skipping decryption");
+            return;
+        }
+        decryptFields(encryptedFields, getContainer(), newMemo());
     }
 
     /**
-     * Decrypts a collection of encrypted fields using their configured
-     * algorithms.
-     *
-     * <p>This method retrieves the encryption container from Spring context
-     * and applies
-     * the appropriate decryption algorithm to each field based on its
-     * annotation.</p>
-     *
-     * @param fields the list of annotated field results to decrypt
-     * @throws DataSecurityException if decryption fails
+     * Creates the memo shared by all rows of one result set.
      */
-    private void decryptFields(List<AnnotatedField<EncryptField>> fields) {
-        if (fields.isEmpty()) {
-            log.debug("No encrypted fields found, skipping decryption");
-            return;
-        }
+    private DecryptMemo newMemo() {
+        return new DecryptMemo(DataSecurityProperties.current().getDecrypt()
+                .getMemoSize());
+    }
 
+    /**
+     * Retrieves the encryption algorithm container from Spring context.
+     *
+     * @return the container, never null
+     * @throws DataSecurityException if the container is not available
+     */
+    private AbstractEncryptAlgoContainer getContainer() {
         AbstractEncryptAlgoContainer container =
                 SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class);
         if (container == null) {
@@ -106,12 +261,29 @@ public class DecryptProcessor {
             throw new DataSecurityException("Encryption algorithm container " +
                     "not available");
         }
+        return container;
+    }
 
+    /**
+     * Decrypts a collection of encrypted fields using their configured
+     * algorithms.
+     *
+     * <p>This method applies the appropriate decryption algorithm to each
+     * field based on its annotation.</p>
+     *
+     * @param fields    the list of annotated field results to decrypt
+     * @param container the encryption algorithm container
+     * @param memo      the memo of values already decrypted for this query
+     * @throws DataSecurityException if decryption fails
+     */
+    private void decryptFields(List<AnnotatedField<EncryptField>> fields,
+                               AbstractEncryptAlgoContainer container,
+                               DecryptMemo memo) {
         log.debug("Decrypting {} encrypted fields", fields.size());
 
         try {
             for (AnnotatedField<EncryptField> fieldResult : fields) {
-                decryptSingleField(fieldResult, container);
+                decryptSingleField(fieldResult, container, memo);
             }
         } catch (IllegalAccessException e) {
             throw new DataSecurityException("Failed to decrypt fields due to " +
@@ -126,10 +298,12 @@ public class DecryptProcessor {
      *
      * @param fieldResult the annotated field result containing field metadata
      * @param container   the encryption algorithm container
+     * @param memo        the memo of values already decrypted for this query
      * @throws IllegalAccessException if field access fails
      */
     private void decryptSingleField(AnnotatedField<EncryptField> fieldResult,
-                                    AbstractEncryptAlgoContainer container) throws IllegalAccessException {
+                                    AbstractEncryptAlgoContainer container,
+                                    DecryptMemo memo) throws IllegalAccessException {
         EncryptField annotation = fieldResult.annotation();
         Field field = fieldResult.field();
         Object containingObject = fieldResult.obj();
@@ -143,7 +317,8 @@ public class DecryptProcessor {
 
         // Apply decryption using the configured algorithm
         Class<? extends EncryptionAlgo> algoClass = annotation.value();
-        String decryptedValue = container.getAlgo(algoClass).decrypt(strValue);
+        String decryptedValue = memo.decrypt(algoClass,
+                container.getAlgo(algoClass), strValue);
 
         // Update the field with decrypted value
         field.setAccessible(true);
@@ -153,6 +328,14 @@ public class DecryptProcessor {
                 containingObject.getClass().getSimpleName());
     }
 
+    /**
+     * Algorithm resolved for a map row key.
+     */
+    private record ColumnAlgo(Class<? extends EncryptionAlgo> algoClass,
+                              EncryptionAlgo algo) {
+        private static final ColumnAlgo NONE = new ColumnAlgo(null, null);
+    }
+
     private static final class Holder {
         private static final DecryptProcessor INSTANCE = new DecryptProcessor();
     }
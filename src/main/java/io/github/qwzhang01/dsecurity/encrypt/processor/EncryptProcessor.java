@@ -1,19 +1,35 @@
 package io.github.qwzhang01.dsecurity.encrypt.processor;
 
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
 import io.github.qwzhang01.dsecurity.domain.EncryptInfo;
+import io.github.qwzhang01.dsecurity.encrypt.context.StatementContext;
+import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
 import io.github.qwzhang01.dsecurity.encrypt.container.EncryptFieldTableContainer;
+import io.github.qwzhang01.dsecurity.encrypt.plan.EncryptPlan;
+import io.github.qwzhang01.dsecurity.encrypt.plan.EncryptPlanCache;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
 import io.github.qwzhang01.dsecurity.kit.ParamUtil;
 import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
-import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysis;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysisCache;
 import io.github.qwzhang01.sql.tool.model.SqlParam;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
+import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Statement;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Encryption processor for automatic parameter encryption.
@@ -24,8 +40,9 @@ import java.util.List;
  *
  * <p><strong>Process Flow:</strong></p>
  * <ol>
- *   <li>Parse SQL to identify tables and parameters</li>
- *   <li>Match parameters to encrypted fields</li>
+ *   <li>Skip statements that mention no table with encrypted columns</li>
+ *   <li>Look up the cached encryption plan of the statement shape, parsing
+ *   the SQL and matching parameters to encrypted fields on first use</li>
  *   <li>Encrypt matched parameters</li>
  *   <li>Save restoration info for later parameter recovery</li>
  * </ol>
@@ -36,6 +53,8 @@ public class EncryptProcessor {
     private static final Logger log =
             LoggerFactory.getLogger(EncryptProcessor.class);
 
+    private static final String EXECUTOR_PROPERTY = "delegate.executor";
+
     private EncryptProcessor() {
     }
 
@@ -48,34 +67,32 @@ public class EncryptProcessor {
      *
      * <p>This method:</p>
      * <ol>
-     *   <li>Parses the SQL to identify tables and parameters</li>
-     *   <li>Analyzes parameter objects to find encrypted fields</li>
+     *   <li>Finds the encryption plan of the mapped statement and SQL</li>
+     *   <li>Reads the planned encrypted fields from the parameter object</li>
      *   <li>Encrypts the parameters using configured algorithms</li>
      *   <li>Saves restoration info to ThreadLocal for later recovery</li>
      * </ol>
      *
-     * @param invocation the method invocation containing SQL and parameters
+     * <p>Runs first in the prepare phase, on the SQL as generated by
+     * MyBatis; only parameter values change, the SQL is left to the
+     * rewriting processors that follow.</p>
+     *
+     * @param context the statement context
      */
-    public void apply(Invocation invocation) {
-        StatementHandler statementHandler =
-                (StatementHandler) invocation.getTarget();
+    public void apply(StatementContext context) {
+        StatementHandler statementHandler = context.getStatementHandler();
         // 获取 ParameterHandler 中的参数对象
         Object parameterObject =
                 statementHandler.getParameterHandler().getParameterObject();
-        BoundSql boundSql = statementHandler.getBoundSql();
+        String statementId = PluginUtils.mpStatementHandler(statementHandler)
+                .mappedStatement().getId();
 
-        apply(boundSql, parameterObject);
+        apply(statementId, context.getBoundSql(), parameterObject);
     }
 
-    private void apply(BoundSql boundSql, Object parameterObject) {
+    private void apply(String statementId, BoundSql boundSql,
+                       Object parameterObject) {
         try {
-            EncryptFieldTableContainer container =
-                    SpringContextUtil.getBean(EncryptFieldTableContainer.class);
-            if (!container.hasEncrypt()) {
-                // No encrypted fields, skip this interceptor
-                // return;
-            }
-
             String originalSql = boundSql.getSql();
             log.debug("Starting query encryption processing, SQL: {}",
                     originalSql);
@@ -85,25 +102,16 @@ public class EncryptProcessor {
                 return;
             }
 
-            // 1. Parse SQL to get all involved table information
-            List<SqlTable> tables = null;
-            List<SqlParam> param = null;
-            try {
-                tables = ParserHelper.getTables(originalSql);
-                param = ParserHelper.getParam(originalSql);
-            } catch (Exception e) {
-                log.error(e.getMessage(), e);
-            }
-            if (param == null || param.isEmpty() || tables.isEmpty()) {
-                log.debug("No table information found, skipping encryption");
+            // 1. Look up the encryption plan of this statement shape
+            EncryptPlan plan = planOf(statementId, boundSql, parameterObject);
+            if (plan.isEmpty()) {
+                log.debug("No encrypted parameters, skipping encryption");
                 return;
             }
 
-            // 2. Parse parameter object to get parameters that need encryption
+            // 2. Read the planned parameters that need encryption
             List<EncryptInfo> encryptInfos =
-                    ParamUtil.analyzeParameters(
-                            boundSql.getParameterMappings(), param, tables,
-                            parameterObject);
+                    ParamUtil.analyzeParameters(plan, parameterObject);
 
             // 3. Execute parameter encryption
             if (!encryptInfos.isEmpty()) {
@@ -111,12 +119,230 @@ public class EncryptProcessor {
                 log.debug("Completed parameter encryption, processed {} " +
                         "parameters", encryptInfos.size());
             }
+
+            // 4. Encrypt foreach elements in the statement's own parameters
+            encryptForeachGroups(plan, boundSql);
         } catch (Exception e) {
             log.error("Query parameter encryption processing failed", e);
             throw e;
         }
     }
 
+    /**
+     * Binds encrypted parameters without modifying the parameter object.
+     *
+     * <p>Used for the parameterize phase in overlay binding mode. The
+     * ciphertexts are computed from the cached plan and bound through a
+     * statement view that replaces the plaintext values by index, so the
+     * caller's objects keep their plaintext and need no restoration. Since
+     * parameterize runs once per row, batched statements are covered as
+     * well.</p>
+     *
+     * @param invocation the parameterize invocation
+     * @return the result of proceeding with the invocation
+     * @throws Throwable if binding fails
+     */
+    public Object overlay(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        if (BatchEncryptingStatement.isWrapped((Statement) args[0])) {
+            // Encrypted in bulk when the batch is executed
+            return invocation.proceed();
+        }
+        StatementHandler statementHandler =
+                (StatementHandler) invocation.getTarget();
+        Object parameterObject =
+                statementHandler.getParameterHandler().getParameterObject();
+        BoundSql boundSql = statementHandler.getBoundSql();
+        if (parameterObject == null) {
+            return invocation.proceed();
+        }
+        String statementId = PluginUtils.mpStatementHandler(statementHandler)
+                .mappedStatement().getId();
+
+        EncryptPlan plan = planOf(statementId, boundSql, parameterObject);
+        if (plan.isEmpty()) {
+            return invocation.proceed();
+        }
+        encryptForeachGroups(plan, boundSql);
+        List<EncryptInfo> encryptInfos =
+                ParamUtil.analyzeParameters(plan, parameterObject);
+        if (encryptInfos.isEmpty()) {
+            return invocation.proceed();
+        }
+
+        String[] overlay = ParamUtil.encryptOverlay(encryptInfos,
+                boundSql.getParameterMappings());
+        args[0] = ParameterOverlay.wrap((Statement) args[0], overlay);
+        log.debug("Bound {} encrypted parameters by overlay",
+                encryptInfos.size());
+        return invocation.proceed();
+    }
+
+    /**
+     * Checks whether a statement handler belongs to a batch executor.
+     *
+     * <p>A batch executor prepares a statement once and then binds and adds
+     * one row per update, without ever executing the handler, so parameters
+     * cannot be encrypted in the parameter objects and restored later.</p>
+     *
+     * <p>Queries run in a batch session are executed right away, even when
+     * the batch executor created their handler, so only inserts, updates
+     * and deletes count as batched.</p>
+     *
+     * @param statementHandler the statement handler
+     * @return true if the handler was created by a {@link BatchExecutor}
+     * for an insert, update or delete
+     */
+    public boolean isBatch(StatementHandler statementHandler) {
+        MetaObject metaObject = SystemMetaObject.forObject(
+                PluginUtils.realTarget(statementHandler));
+        if (!metaObject.hasGetter(EXECUTOR_PROPERTY)
+                || !(metaObject.getValue(EXECUTOR_PROPERTY) instanceof BatchExecutor)) {
+            return false;
+        }
+        SqlCommandType commandType = PluginUtils.mpStatementHandler(
+                statementHandler).mappedStatement().getSqlCommandType();
+        return commandType == SqlCommandType.INSERT
+                || commandType == SqlCommandType.UPDATE
+                || commandType == SqlCommandType.DELETE;
+    }
+
+    /**
+     * Wraps the prepared statement of a batch so that its rows are
+     * encrypted in bulk when the batch is executed.
+     *
+     * <p>The encryption plan is resolved once for the batch from the first
+     * row's parameter object and turned into algorithms by parameter index.
+     * QueryWrapper statements are left unwrapped; their rows are encrypted
+     * one by one at parameterize time.</p>
+     *
+     * @param statementHandler the statement handler of the first row
+     * @param statement        the prepared statement
+     * @return the statement to use for the batch
+     */
+    public Statement batch(StatementHandler statementHandler,
+                           Statement statement) {
+        Object parameterObject =
+                statementHandler.getParameterHandler().getParameterObject();
+        if (parameterObject == null) {
+            return statement;
+        }
+        BoundSql boundSql = statementHandler.getBoundSql();
+        String statementId = PluginUtils.mpStatementHandler(statementHandler)
+                .mappedStatement().getId();
+        EncryptPlan plan = planOf(statementId, boundSql, parameterObject);
+        if (plan.isEmpty() || plan.getKind() == EncryptPlan.Kind.QUERY_WRAPPER) {
+            return statement;
+        }
+
+        AbstractEncryptAlgoContainer algoContainer =
+                SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class);
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        EncryptionAlgo[] algos = new EncryptionAlgo[mappings.size() + 1];
+        boolean encrypted = false;
+        Map<String, EncryptionAlgo> algoByProperty = new HashMap<>();
+        for (EncryptPlan.Entry entry : plan.getEntries()) {
+            algoByProperty.put(entry.property(),
+                    algoContainer.getAlgo(entry.algoClass()));
+        }
+        for (EncryptPlan.ForeachGroup group : plan.getGroups()) {
+            EncryptionAlgo algo = algoContainer.getAlgo(group.algoClass());
+            group.properties().forEach(property ->
+                    algoByProperty.put(property, algo));
+        }
+        for (int i = 0; i < mappings.size(); i++) {
+            ParameterMapping mapping = mappings.get(i);
+            if (mapping.getMode() != ParameterMode.OUT) {
+                algos[i + 1] = algoByProperty.get(mapping.getProperty());
+                encrypted |= algos[i + 1] != null;
+            }
+        }
+        if (!encrypted) {
+            return statement;
+        }
+        log.debug("Encrypting batch of {} in bulk", statementId);
+        return BatchEncryptingStatement.wrap(statement, algos);
+    }
+
+    /**
+     * Encrypts the foreach elements of a statement.
+     *
+     * <p>Element values live in the additional parameters of the BoundSql,
+     * which belong to this execution only, so they are replaced in place
+     * and need no restoration. The values of each group are encrypted in
+     * one batch, distinct values once.</p>
+     */
+    private void encryptForeachGroups(EncryptPlan plan, BoundSql boundSql) {
+        if (plan.getGroups().isEmpty()) {
+            return;
+        }
+        AbstractEncryptAlgoContainer algoContainer =
+                SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class);
+        for (EncryptPlan.ForeachGroup group : plan.getGroups()) {
+            List<String> properties = group.properties();
+            String[] values = new String[properties.size()];
+            boolean present = false;
+            for (int i = 0; i < values.length; i++) {
+                String property = properties.get(i);
+                if (boundSql.hasAdditionalParameter(property)
+                        && boundSql.getAdditionalParameter(property)
+                        instanceof String value) {
+                    values[i] = value;
+                    present = true;
+                }
+            }
+            if (!present) {
+                continue;
+            }
+
+            String[] encrypted = BulkEncryptor.encrypt(
+                    algoContainer.getAlgo(group.algoClass()), values);
+            for (int i = 0; i < encrypted.length; i++) {
+                if (encrypted[i] != null) {
+                    boundSql.setAdditionalParameter(properties.get(i),
+                            encrypted[i]);
+                }
+            }
+            log.debug("Encrypted {} foreach elements of {}.{}",
+                    values.length, group.tableName(), group.fieldName());
+        }
+    }
+
+    private EncryptPlan planOf(String statementId, BoundSql boundSql,
+                               Object parameterObject) {
+        EncryptFieldTableContainer container =
+                SpringContextUtil.getBean(EncryptFieldTableContainer.class);
+        if (!container.mayInvolveEncrypt(boundSql.getSql())) {
+            // No table with encrypted columns, skip parsing and analysis
+            return EncryptPlan.of(ParamUtil.parameterKind(parameterObject),
+                    List.of());
+        }
+        EncryptPlan plan = EncryptPlanCache.getInstance().get(statementId,
+                boundSql.getSql(), () -> buildPlan(boundSql, parameterObject));
+        if (plan.getKind() != ParamUtil.parameterKind(parameterObject)) {
+            // Same statement called with another parameter type
+            plan = buildPlan(boundSql, parameterObject);
+        }
+        return plan;
+    }
+
+    /**
+     * Builds the encryption plan of a statement from its parsed SQL.
+     */
+    private EncryptPlan buildPlan(BoundSql boundSql, Object parameterObject) {
+        SqlAnalysis analysis =
+                SqlAnalysisCache.getInstance().get(boundSql.getSql());
+        List<SqlTable> tables = analysis.tables();
+        List<SqlParam> param = analysis.params();
+        if (param.isEmpty() || tables.isEmpty()) {
+            log.debug("No table information found, skipping encryption");
+            return EncryptPlan.of(ParamUtil.parameterKind(parameterObject),
+                    List.of());
+        }
+        return ParamUtil.buildPlan(boundSql.getParameterMappings(), param,
+                tables, parameterObject);
+    }
+
     private static final class Holder {
         private static final EncryptProcessor INSTANCE = new EncryptProcessor();
     }
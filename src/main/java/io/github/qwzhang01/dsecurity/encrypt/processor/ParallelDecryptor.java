@@ -0,0 +1,207 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Chunked parallel decryption of large result lists.
+ *
+ * <p>The list is split into fixed-size chunks that are pulled by the calling
+ * thread and up to {@code parallelism - 1} workers of a shared, bounded
+ * pool. Backpressure is applied at submission: when the pool queue is full
+ * no further workers are enlisted and the calling thread keeps decrypting
+ * the remaining chunks itself, so a busy pool never blocks a query.</p>
+ *
+ * <p>Bulk encryption of batch parameters runs on the same pool with its own
+ * {@link Settings}; the pool itself is sized by the decryption settings.</p>
+ *
+ * @author avinzhang
+ */
+final class ParallelDecryptor {
+    private static final Logger log =
+            LoggerFactory.getLogger(ParallelDecryptor.class);
+
+    private static volatile ThreadPoolExecutor executor;
+
+    private ParallelDecryptor() {
+    }
+
+    /**
+     * Checks whether a list of the given size should be decrypted in
+     * parallel.
+     *
+     * @param rows   the number of rows
+     * @param config the decryption settings
+     * @return true if the parallel path should be used
+     */
+    static boolean shouldParallelize(int rows,
+                                     DataSecurityProperties.Decrypt config) {
+        return shouldParallelize(rows, Settings.of(config));
+    }
+
+    /**
+     * Checks whether a list of the given size should be processed in
+     * parallel.
+     *
+     * @param rows     the number of rows
+     * @param settings the parallel settings
+     * @return true if the parallel path should be used
+     */
+    static boolean shouldParallelize(int rows, Settings settings) {
+        return settings.enabled()
+                && settings.parallelism() > 1
+                && rows >= settings.threshold()
+                && rows > settings.chunkSize();
+    }
+
+    /**
+     * Applies the row task to every non-null row, in parallel chunks.
+     *
+     * @param rows    the rows to process
+     * @param rowTask the per-row decryption task, must be thread-safe
+     * @param config  the decryption settings
+     */
+    static void run(List<?> rows, Consumer<Object> rowTask,
+                    DataSecurityProperties.Decrypt config) {
+        run(rows, rowTask, Settings.of(config), config);
+    }
+
+    /**
+     * Applies the row task to every non-null row, in parallel chunks.
+     *
+     * @param rows     the rows to process
+     * @param rowTask  the per-row task, must be thread-safe
+     * @param settings the chunk size and parallelism
+     * @param pool     the settings the shared pool is created with
+     */
+    static void run(List<?> rows, Consumer<Object> rowTask, Settings settings,
+                    DataSecurityProperties.Decrypt pool) {
+        Object[] items = rows.toArray();
+        int chunkSize = Math.max(1, settings.chunkSize());
+        int chunks = (items.length + chunkSize - 1) / chunkSize;
+        int workers = Math.min(settings.parallelism(), chunks) - 1;
+
+        AtomicInteger nextChunk = new AtomicInteger();
+        Runnable worker = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                int from = chunk * chunkSize;
+                int to = Math.min(from + chunkSize, items.length);
+                for (int i = from; i < to; i++) {
+                    if (items[i] != null) {
+                        rowTask.accept(items[i]);
+                    }
+                }
+            }
+        };
+
+        ThreadPoolExecutor threads = executor(pool);
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            try {
+                futures.add(threads.submit(worker));
+            } catch (RejectedExecutionException e) {
+                log.debug("Decryption pool saturated, continuing with {} " +
+                        "workers", futures.size());
+                break;
+            }
+        }
+
+        log.debug("Decrypting {} rows in {} chunks with {} workers",
+                items.length, chunks, futures.size() + 1);
+
+        Throwable failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException e) {
+            failure = e;
+            // Let the other workers stop at their next chunk
+            nextChunk.set(chunks);
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure != null) {
+            throw new DataSecurityException("Parallel decryption failed",
+                    failure);
+        }
+    }
+
+    /**
+     * Lazily creates the shared decryption pool.
+     */
+    private static ThreadPoolExecutor executor(DataSecurityProperties.Decrypt config) {
+        ThreadPoolExecutor pool = executor;
+        if (pool == null) {
+            synchronized (ParallelDecryptor.class) {
+                pool = executor;
+                if (pool == null) {
+                    int size = Math.max(1, config.getPoolSize());
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    pool = new ThreadPoolExecutor(size, size, 60L,
+                            TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(Math.max(1,
+                                    config.getQueueCapacity())),
+                            r -> {
+                                Thread thread = new Thread(r,
+                                        "dsecurity-decrypt-" + threadIndex.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            new ThreadPoolExecutor.AbortPolicy());
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * When and how a list is split across the pool.
+     *
+     * @param enabled     whether the parallel path may be used
+     * @param threshold   minimum number of rows for the parallel path
+     * @param chunkSize   number of rows handed to a worker at a time
+     * @param parallelism maximum number of threads, including the caller
+     */
+    record Settings(boolean enabled, int threshold, int chunkSize,
+                    int parallelism) {
+
+        static Settings of(DataSecurityProperties.Decrypt config) {
+            return new Settings(config.isParallelEnabled(),
+                    config.getParallelThreshold(), config.getChunkSize(),
+                    config.getParallelism());
+        }
+
+        static Settings of(DataSecurityProperties.Encrypt config) {
+            return new Settings(config.isParallelEnabled(),
+                    config.getParallelThreshold(), config.getChunkSize(),
+                    config.getParallelism());
+        }
+    }
+}
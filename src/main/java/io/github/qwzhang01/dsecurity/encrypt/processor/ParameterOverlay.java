@@ -0,0 +1,72 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Statement view that binds encrypted values in place of plaintext ones.
+ *
+ * <p>The parameter handler binds the caller's plaintext values as usual;
+ * this proxy replaces the value of every String parameter that has an entry
+ * in the overlay before it reaches the driver. The caller's parameter
+ * objects are never modified, so there is nothing to restore after
+ * execution.</p>
+ *
+ * @author avinzhang
+ */
+final class ParameterOverlay implements InvocationHandler {
+    private static final Set<String> PARAM_SETTERS =
+            Set.of("setString", "setNString", "setObject");
+
+    private final Statement target;
+    private final String[] overlay;
+
+    private ParameterOverlay(Statement target, String[] overlay) {
+        this.target = target;
+        this.overlay = overlay;
+    }
+
+    /**
+     * Wraps a prepared or callable statement.
+     *
+     * @param statement the statement passed to parameterize
+     * @param overlay   ciphertexts by 1-based parameter index
+     * @return the wrapped statement, or the statement itself if it binds no
+     * parameters
+     */
+    static Statement wrap(Statement statement, String[] overlay) {
+        Class<?> type;
+        if (statement instanceof CallableStatement) {
+            type = CallableStatement.class;
+        } else if (statement instanceof PreparedStatement) {
+            type = PreparedStatement.class;
+        } else {
+            return statement;
+        }
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, new ParameterOverlay(statement, overlay));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (args != null && args.length >= 2
+                && args[0] instanceof Integer index
+                && args[1] instanceof String
+                && index > 0 && index < overlay.length
+                && overlay[index] != null
+                && PARAM_SETTERS.contains(method.getName())) {
+            args[1] = overlay[index];
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package io.github.qwzhang01.dsecurity.encrypt.processor;
 
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.encrypt.context.StatementContext;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+import io.github.qwzhang01.dsecurity.sql.SqlShape;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
@@ -7,13 +11,9 @@ import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.*;
-import org.apache.ibatis.executor.statement.StatementHandler;
-import org.apache.ibatis.mapping.BoundSql;
-import org.apache.ibatis.plugin.Invocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,12 +30,27 @@ import java.util.List;
  * Output: SELECT user.id, user.name FROM user WHERE user.status = 1
  * </pre>
  *
+ * <p>The rewrite only depends on the SQL text, so results are cached per
+ * SQL in a {@link BoundedCache}, including a marker for statements that
+ * need no rewrite. Repeated statements cost one hash lookup and always get
+ * the identical rewritten text, which keeps JDBC statement caches
+ * effective.</p>
+ *
  * @author avinzhang
  */
 public class SingleSelectProcessor {
     private static final Logger log =
             LoggerFactory.getLogger(SingleSelectProcessor.class);
 
+    /**
+     * Cached result of statements that are left unchanged.
+     */
+    private static final String NO_REWRITE = new String("");
+
+    private final BoundedCache<String, String> rewrites =
+            new BoundedCache<>(() -> DataSecurityProperties.current()
+                    .getSqlCache().getMaxSize());
+
     private SingleSelectProcessor() {
     }
 
@@ -44,23 +59,18 @@ public class SingleSelectProcessor {
     }
 
     /**
-     * Apply single table select processing to add table prefix to columns.
+     * Apply single table select processing to the SQL of a statement being
+     * prepared.
      *
-     * @param invocation the method invocation containing SQL to modify
+     * @param context the statement context
      */
-    public void apply(Invocation invocation) {
+    public void apply(StatementContext context) {
         try {
-            StatementHandler statementHandler =
-                    (StatementHandler) invocation.getTarget();
-            BoundSql boundSql = statementHandler.getBoundSql();
-            String originalSql = boundSql.getSql();
-
+            String originalSql = context.getSql();
             String modifiedSql = process(originalSql);
 
             if (modifiedSql != null && !modifiedSql.equals(originalSql)) {
-                Field field = BoundSql.class.getDeclaredField("sql");
-                field.setAccessible(true);
-                field.set(boundSql, modifiedSql);
+                context.setSql(modifiedSql);
                 log.debug("SQL modified: {} -> {}", originalSql, modifiedSql);
             }
         } catch (Exception e) {
@@ -79,19 +89,49 @@ public class SingleSelectProcessor {
         if (sql == null || sql.isEmpty()) {
             return null;
         }
+        if (SqlShape.isLarge(sql)) {
+            // Bulk statements are rewritten once per shape
+            SqlShape shape = SqlShape.of(sql);
+            if (!shape.isSelect()) {
+                return null;
+            }
+            if (shape.hasLists()) {
+                String rewritten = rewrites.computeIfAbsent(shape.template(),
+                        this::rewrite);
+                return rewritten == NO_REWRITE ? null : shape.restore(rewritten);
+            }
+        }
+        String rewritten = rewrites.computeIfAbsent(sql, this::rewrite);
+        return rewritten == NO_REWRITE ? null : rewritten;
+    }
 
+    /**
+     * Returns the hit, miss and eviction counts of the rewrite cache.
+     *
+     * @return the statistics
+     */
+    public BoundedCache.Stats stats() {
+        return rewrites.stats();
+    }
+
+    /**
+     * Parses and rewrites a statement.
+     *
+     * @return the rewritten SQL, or {@link #NO_REWRITE}
+     */
+    private String rewrite(String sql) {
         try {
             Statement statement = CCJSqlParserUtil.parse(sql);
 
             if (!(statement instanceof Select)) {
                 log.debug("Not a SELECT statement, skipping");
-                return null;
+                return NO_REWRITE;
             }
 
             Select select = (Select) statement;
             if (!(select.getPlainSelect() != null)) {
                 log.debug("Not a plain SELECT, skipping");
-                return null;
+                return NO_REWRITE;
             }
 
             PlainSelect plainSelect = select.getPlainSelect();
@@ -100,13 +140,13 @@ public class SingleSelectProcessor {
             if (plainSelect.getJoins() != null && !plainSelect.getJoins().isEmpty()) {
                 log.debug("Query has joins, not a single table query, " +
                         "skipping");
-                return null;
+                return NO_REWRITE;
             }
 
             // Get the table name
             if (!(plainSelect.getFromItem() instanceof Table)) {
                 log.debug("FromItem is not a Table, skipping");
-                return null;
+                return NO_REWRITE;
             }
 
             Table table = (Table) plainSelect.getFromItem();
@@ -115,7 +155,7 @@ public class SingleSelectProcessor {
 
             if (tableName == null || tableName.isEmpty()) {
                 log.debug("Table name is empty, skipping");
-                return null;
+                return NO_REWRITE;
             }
 
             // Process SELECT items
@@ -157,7 +197,7 @@ public class SingleSelectProcessor {
 
         } catch (Exception e) {
             log.error("Failed to parse SQL: {}", sql, e);
-            return null;
+            return NO_REWRITE;
         }
     }
 
@@ -91,6 +91,39 @@ public class DefaultEncryptionAlgo implements EncryptionAlgo {
         return DesKit.decrypt(DesKit.KEY, value);
     }
 
+    /**
+     * Checks the format of a stored value: either the ciphertext prefix, or
+     * unprefixed Base64 of whole DES blocks as written by older versions.
+     *
+     * @param value the stored value
+     * @return true if the value may be ciphertext
+     */
+    @Override
+    public boolean isEncrypted(String value) {
+        if (value.startsWith(ENCRYPT_PREFIX)) {
+            return true;
+        }
+        int length = value.length();
+        if (length < 12 || length % 4 != 0) {
+            return false;
+        }
+        int padding = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '=' && i >= length - 2) {
+                padding++;
+            } else if (padding > 0 || !isBase64(c)) {
+                return false;
+            }
+        }
+        return (length / 4 * 3 - padding) % 8 == 0;
+    }
+
+    private static boolean isBase64(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+                || (c >= '0' && c <= '9') || c == '+' || c == '/';
+    }
+
     /**
      * Internal utility class for DES encryption and decryption operations.
      * Encapsulates all cryptographic operations and configuration constants.
@@ -230,7 +263,7 @@ public class DefaultEncryptionAlgo implements EncryptionAlgo {
 
                 return new String(decryptedBytes, CHARSET);
             } catch (Exception e) {
-                log.error("decrypt error", e);
+                TolerantDecryptor.reportFailure(e);
                 return data; // Return original data if decryption fails
             }
         }
@@ -71,4 +71,20 @@ public interface EncryptionAlgo {
     default boolean cryptoThrowable() {
         return false;
     }
+
+    /**
+     * Checks whether a stored value may be ciphertext of this algorithm.
+     *
+     * <p>Used by tolerant decryption to pass plaintext through without
+     * calling the cipher. Implementations should only inspect the format,
+     * e.g. a prefix, the length or the alphabet, and must not return false
+     * for any value produced by {@link #encrypt(String)}.</p>
+     *
+     * @param value the stored value, never null
+     * @return false if the value certainly is not ciphertext; the default
+     * always returns true
+     */
+    default boolean isEncrypted(String value) {
+        return true;
+    }
 }
\ No newline at end of file
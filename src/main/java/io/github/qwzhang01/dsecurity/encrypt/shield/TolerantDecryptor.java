@@ -0,0 +1,114 @@
+package io.github.qwzhang01.dsecurity.encrypt.shield;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.kit.RateLimitedLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decryption entry point that tolerates columns mixing plaintext and
+ * ciphertext, e.g. while existing rows are being migrated.
+ *
+ * <p>With {@code seven.data-security.decrypt.tolerant=true}, each value is
+ * first classified with {@link EncryptionAlgo#isEncrypted(String)}; values
+ * that cannot be ciphertext are returned unchanged without calling the
+ * cipher. Values that still fail to decrypt are returned unchanged as well,
+ * unless the algorithm requires failures to propagate.</p>
+ *
+ * <p>Failures in either mode are counted and logged through a
+ * {@link RateLimitedLog}, so a page of undecryptable rows does not produce
+ * one stack trace per row.</p>
+ *
+ * @author avinzhang
+ */
+public final class TolerantDecryptor {
+    private static final Logger log =
+            LoggerFactory.getLogger(TolerantDecryptor.class);
+
+    private static final LongAdder DECRYPTED = new LongAdder();
+    private static final LongAdder PASSED_THROUGH = new LongAdder();
+    private static final LongAdder FAILED = new LongAdder();
+    private static volatile RateLimitedLog failureLog;
+
+    private TolerantDecryptor() {
+    }
+
+    /**
+     * Decrypts a value.
+     *
+     * @param algo  the algorithm
+     * @param value the stored value, ciphertext or, in tolerant mode,
+     *              possibly plaintext
+     * @return the plaintext
+     */
+    public static String decrypt(EncryptionAlgo algo, String value) {
+        if (!DataSecurityProperties.current().getDecrypt().isTolerant()) {
+            return algo.decrypt(value);
+        }
+        if (!algo.isEncrypted(value)) {
+            PASSED_THROUGH.increment();
+            return value;
+        }
+        try {
+            String decrypted = algo.decrypt(value);
+            DECRYPTED.increment();
+            return decrypted;
+        } catch (RuntimeException e) {
+            if (algo.cryptoThrowable()) {
+                throw e;
+            }
+            reportFailure(e);
+            return value;
+        }
+    }
+
+    /**
+     * Counts and logs a decryption failure that is not propagated.
+     *
+     * @param error the failure
+     */
+    public static void reportFailure(Throwable error) {
+        FAILED.increment();
+        failureLog().warn("Failed to decrypt value, returning it unchanged",
+                error);
+    }
+
+    /**
+     * Returns the failure log for the configured interval. Resolved on
+     * first failure rather than at class initialization, which may happen
+     * before the properties are bound.
+     */
+    static RateLimitedLog failureLog() {
+        Duration interval = DataSecurityProperties.current().getDecrypt()
+                .getFailureLogInterval();
+        RateLimitedLog current = failureLog;
+        if (current == null || !current.getInterval().equals(interval)) {
+            current = new RateLimitedLog(log, interval);
+            failureLog = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the counters of tolerant decryption.
+     *
+     * @return the statistics since startup
+     */
+    public static Stats stats() {
+        return new Stats(DECRYPTED.sum(), PASSED_THROUGH.sum(), FAILED.sum());
+    }
+
+    /**
+     * Decryption counters.
+     *
+     * @param decrypted     values decrypted in tolerant mode
+     * @param passedThrough values classified as plaintext and not decrypted
+     * @param failed        values that failed to decrypt and were returned
+     *                      unchanged
+     */
+    public record Stats(long decrypted, long passedThrough, long failed) {
+    }
+}
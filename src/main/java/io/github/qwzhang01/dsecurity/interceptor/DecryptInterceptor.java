@@ -26,16 +26,21 @@
 
 package io.github.qwzhang01.dsecurity.interceptor;
 
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
 import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
 import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
 import io.github.qwzhang01.dsecurity.encrypt.processor.DecryptProcessor;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Statement;
 import java.util.List;
+import java.util.Map;
 
 /**
  * MyBatis interceptor for automatic decryption of query results.
@@ -53,6 +58,7 @@ import java.util.List;
  *   <li>Automatic detection of encrypted fields via @EncryptField
  *   annotation</li>
  *   <li>Support for both selectOne and selectList operations</li>
+ *   <li>Map rows decrypted by column name of the queried tables</li>
  *   <li>Multiple encryption algorithm support through Strategy Pattern</li>
  *   <li>Thread-safe operation</li>
  * </ul>
@@ -113,7 +119,12 @@ public class DecryptInterceptor implements Interceptor {
 
         // Process results based on type
         if (resultObject instanceof List<?> resultList) {
-            DecryptProcessor.getInstance().decryptList(resultList);
+            if (isMapList(resultList)) {
+                DecryptProcessor.getInstance().decryptMapList(resultList,
+                        getSql(invocation));
+            } else {
+                DecryptProcessor.getInstance().decryptList(resultList);
+            }
         } else {
             DecryptProcessor.getInstance().decryptSingle(resultObject);
         }
@@ -121,6 +132,33 @@ public class DecryptInterceptor implements Interceptor {
         return resultObject;
     }
 
+    /**
+     * Checks whether the list holds map rows, judged by its first non-null
+     * element.
+     */
+    private boolean isMapList(List<?> resultList) {
+        for (Object row : resultList) {
+            if (row != null) {
+                return row instanceof Map;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the SQL of the statement whose result set is being handled.
+     */
+    private String getSql(Invocation invocation) {
+        try {
+            MetaObject metaObject = SystemMetaObject.forObject(
+                    PluginUtils.realTarget(invocation.getTarget()));
+            Object boundSql = metaObject.getValue("boundSql");
+            return boundSql instanceof BoundSql sql ? sql.getSql() : null;
+        } catch (Exception e) {
+            log.debug("Unable to read SQL from result set handler", e);
+            return null;
+        }
+    }
 
     /**
      * Wraps the target object with this interceptor.
@@ -25,7 +25,9 @@
 
 package io.github.qwzhang01.dsecurity.interceptor;
 
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
 import io.github.qwzhang01.dsecurity.encrypt.context.SqlRewriteContext;
+import io.github.qwzhang01.dsecurity.encrypt.context.StatementContext;
 import io.github.qwzhang01.dsecurity.encrypt.processor.EncryptProcessor;
 import io.github.qwzhang01.dsecurity.encrypt.processor.SingleSelectProcessor;
 import io.github.qwzhang01.dsecurity.scope.processor.DataScopeProcessor;
@@ -53,6 +55,11 @@ import java.util.Properties;
                 method = "prepare",
                 args = {Connection.class, Integer.class}
         ),
+        @Signature(
+                type = StatementHandler.class,
+                method = "parameterize",
+                args = {Statement.class}
+        ),
         @Signature(
                 type = StatementHandler.class,
                 method = "update",
@@ -74,6 +81,7 @@ public class SqlRewriteInterceptor implements Interceptor {
             LoggerFactory.getLogger(SqlRewriteInterceptor.class);
     // Method name constants for better maintainability
     private static final String METHOD_PREPARE = "prepare";
+    private static final String METHOD_PARAMETERIZE = "parameterize";
     private static final String METHOD_UPDATE = "update";
     private static final String METHOD_QUERY = "query";
     private static final String METHOD_QUERY_CURSOR = "queryCursor";
@@ -88,6 +96,8 @@ public class SqlRewriteInterceptor implements Interceptor {
 
         if (METHOD_PREPARE.equals(methodName)) {
             return handlePreparePhase(invocation);
+        } else if (METHOD_PARAMETERIZE.equals(methodName)) {
+            return handleParameterizePhase(invocation);
         } else if (isExecutionMethod(methodName)) {
             return handleExecutionPhase(invocation);
         }
@@ -106,13 +116,53 @@ public class SqlRewriteInterceptor implements Interceptor {
     private Object handlePreparePhase(Invocation invocation) throws Throwable {
         SqlRewriteContext.clear();
 
-        EncryptProcessor.getInstance().apply(invocation);
+        StatementHandler statementHandler =
+                (StatementHandler) invocation.getTarget();
+        boolean batch = isMybatisEngine()
+                && EncryptProcessor.getInstance().isBatch(statementHandler);
+        // Processors share the SQL text, which is written to BoundSql once
+        StatementContext context = StatementContext.of(statementHandler);
+        if (isMybatisEngine() && !isOverlayBinding() && !batch) {
+            EncryptProcessor.getInstance().apply(context);
+        }
+        SingleSelectProcessor.getInstance().apply(context);
+        DataScopeProcessor.getInstance().apply(context);
+        context.commit();
+
+        Object statement = invocation.proceed();
+        if (batch) {
+            // Batch rows are never restored, encrypt them at execution
+            return EncryptProcessor.getInstance().batch(statementHandler,
+                    (Statement) statement);
+        }
+        return statement;
+    }
 
-        SingleSelectProcessor.getInstance().apply(invocation);
+    /**
+     * Handles the parameterize phase where encrypted values are bound in
+     * overlay binding mode and for batch rows.
+     *
+     * @param invocation the method invocation
+     * @return the result of proceeding with the invocation
+     * @throws Throwable if the operation fails
+     */
+    private Object handleParameterizePhase(Invocation invocation) throws Throwable {
+        if (isMybatisEngine() && (isOverlayBinding()
+                || EncryptProcessor.getInstance().isBatch(
+                (StatementHandler) invocation.getTarget()))) {
+            return EncryptProcessor.getInstance().overlay(invocation);
+        }
+        return invocation.proceed();
+    }
 
-        DataScopeProcessor.getInstance().apply(invocation);
+    private boolean isMybatisEngine() {
+        return DataSecurityProperties.current().getEngine()
+                == DataSecurityProperties.Engine.MYBATIS;
+    }
 
-        return invocation.proceed();
+    private boolean isOverlayBinding() {
+        return DataSecurityProperties.current().getEncrypt().getBinding()
+                == DataSecurityProperties.Binding.OVERLAY;
     }
 
     /**
@@ -0,0 +1,82 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Decrypts encrypted columns read through {@link ResultSet#getString},
+ * {@link ResultSet#getNString} and {@link ResultSet#getObject}.
+ *
+ * @author avinzhang
+ */
+final class DecryptingResultSetHandler implements InvocationHandler {
+    private final ResultSet target;
+    private final JdbcEncryptPlan plan;
+    private final Statement statement;
+    private EncryptionAlgo[] columnsByIndex;
+
+    private DecryptingResultSetHandler(ResultSet target, JdbcEncryptPlan plan,
+                                       Statement statement) {
+        this.target = target;
+        this.plan = plan;
+        this.statement = statement;
+    }
+
+    /**
+     * Wraps a result set, or returns it unchanged if the plan has no
+     * encrypted columns.
+     *
+     * @param resultSet the driver result set, may be null
+     * @param plan      the plan of the statement
+     * @param statement the proxied statement returned by getStatement
+     * @return the wrapped result set
+     */
+    static ResultSet wrap(ResultSet resultSet, JdbcEncryptPlan plan,
+                          Statement statement) {
+        if (resultSet == null || plan == null || !plan.hasColumns()) {
+            return resultSet;
+        }
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                new DecryptingResultSetHandler(resultSet, plan, statement));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if ("getStatement".equals(name) && statement != null) {
+            return statement;
+        }
+
+        Object result = JdbcCrypto.invoke(target, method, args);
+        if (!(result instanceof String value) || args == null || !isGetter(name, args)) {
+            return result;
+        }
+
+        EncryptionAlgo algo = args[0] instanceof Integer index ?
+                columnAlgo(index) : plan.columnAlgo((String) args[0]);
+        return algo == null ? value : JdbcCrypto.decrypt(algo, value);
+    }
+
+    private boolean isGetter(String name, Object[] args) {
+        if ("getString".equals(name) || "getNString".equals(name)) {
+            return true;
+        }
+        return "getObject".equals(name)
+                && (args.length == 1 || args[1] == String.class);
+    }
+
+    private EncryptionAlgo columnAlgo(int index) throws Exception {
+        if (columnsByIndex == null) {
+            columnsByIndex = plan.columnAlgos(target.getMetaData());
+        }
+        return index > 0 && index <= columnsByIndex.length ?
+                columnsByIndex[index - 1] : null;
+    }
+}
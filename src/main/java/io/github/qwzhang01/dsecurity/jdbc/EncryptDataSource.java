@@ -0,0 +1,102 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * {@link DataSource} wrapper implementing the JDBC encryption engine.
+ *
+ * <p>Values bound with {@code setString}, {@code setNString} or
+ * {@code setObject} to parameters of encrypted columns are encrypted, and
+ * encrypted columns read with {@code getString}, {@code getNString} or
+ * {@code getObject} are decrypted. Which parameter and column indexes are
+ * encrypted is decided once per SQL text by a {@link JdbcEncryptPlan}, so
+ * no parameter or result object is inspected reflectively. Because it works
+ * below every client, MyBatis, MyBatis-Plus and plain JDBC code sharing the
+ * data source are all covered.</p>
+ *
+ * <p>Enable it with {@code seven.data-security.engine=jdbc}; the MyBatis
+ * encryption interceptors are then disabled to avoid double encryption.</p>
+ *
+ * @author avinzhang
+ */
+public class EncryptDataSource implements DataSource {
+    private final DataSource delegate;
+    private final Function<String, JdbcEncryptPlan> planResolver;
+
+    public EncryptDataSource(DataSource delegate) {
+        this(delegate, JdbcEncryptPlanCache.getInstance()::get);
+    }
+
+    /**
+     * Creates a wrapper with a custom plan source.
+     *
+     * @param delegate     the wrapped data source
+     * @param planResolver resolves the plan of a SQL statement, must not
+     *                     return null
+     */
+    public EncryptDataSource(DataSource delegate,
+                             Function<String, JdbcEncryptPlan> planResolver) {
+        this.delegate = delegate;
+        this.planResolver = planResolver;
+    }
+
+    public DataSource getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return EncryptingConnectionHandler.wrap(delegate.getConnection(),
+                planResolver);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return EncryptingConnectionHandler.wrap(
+                delegate.getConnection(username, password), planResolver);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
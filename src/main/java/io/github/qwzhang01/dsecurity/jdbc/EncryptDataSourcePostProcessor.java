@@ -0,0 +1,100 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Wraps the application's {@link DataSource} in an {@link EncryptDataSource}
+ * when the JDBC engine is enabled.
+ *
+ * <p>Only one layer of data sources may be wrapped, otherwise values are
+ * encrypted twice on write and decrypted twice on read. The wrapped beans
+ * are therefore chosen as follows:</p>
+ * <ul>
+ *   <li>the beans named in
+ *   {@code seven.data-security.jdbc.data-source-names}, if set;</li>
+ *   <li>otherwise the only {@code DataSource} bean;</li>
+ *   <li>otherwise the primary {@code DataSource} bean, e.g. the routing
+ *   data source in front of its targets.</li>
+ * </ul>
+ *
+ * <p>A wrapped bean is exposed as {@code EncryptDataSource}, so it can no
+ * longer be injected by its concrete type, such as
+ * {@code HikariDataSource}. Inject it as {@code DataSource} and use
+ * {@code unwrap(HikariDataSource.class)} to reach the pool.</p>
+ *
+ * @author avinzhang
+ */
+public class EncryptDataSourcePostProcessor implements BeanPostProcessor,
+        BeanFactoryAware, EnvironmentAware {
+    private static final Logger log =
+            LoggerFactory.getLogger(EncryptDataSourcePostProcessor.class);
+
+    private static final String DATA_SOURCE_NAMES =
+            "seven.data-security.jdbc.data-source-names";
+
+    private ConfigurableListableBeanFactory beanFactory;
+    private List<String> dataSourceNames = List.of();
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (beanFactory instanceof ConfigurableListableBeanFactory listable) {
+            this.beanFactory = listable;
+        }
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        // Bound directly: the properties bean may not exist yet
+        dataSourceNames = Binder.get(environment).bind(DATA_SOURCE_NAMES,
+                Bindable.listOf(String.class)).orElse(List.of());
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource dataSource
+                && !(bean instanceof EncryptDataSource)
+                && shouldWrap(beanName)) {
+            log.info("Wrapping data source '{}' with the JDBC encryption " +
+                    "engine", beanName);
+            return new EncryptDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    /**
+     * Checks whether a data source bean is the one to encrypt.
+     */
+    private boolean shouldWrap(String beanName) {
+        if (!dataSourceNames.isEmpty()) {
+            return dataSourceNames.contains(beanName);
+        }
+        if (beanFactory == null) {
+            return true;
+        }
+        String[] names = beanFactory.getBeanNamesForType(DataSource.class,
+                true, false);
+        if (names.length <= 1) {
+            return true;
+        }
+        if (beanFactory.containsBeanDefinition(beanName)
+                && beanFactory.getBeanDefinition(beanName).isPrimary()) {
+            return true;
+        }
+        log.debug("Not wrapping data source '{}': neither primary nor " +
+                "listed in {}", beanName, DATA_SOURCE_NAMES);
+        return false;
+    }
+}
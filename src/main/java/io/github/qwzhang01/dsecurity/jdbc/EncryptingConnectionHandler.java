@@ -0,0 +1,65 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.function.Function;
+
+/**
+ * Wraps the statements created by a connection.
+ *
+ * @author avinzhang
+ */
+final class EncryptingConnectionHandler implements InvocationHandler {
+    private final Connection target;
+    private final Function<String, JdbcEncryptPlan> planResolver;
+    private Connection proxy;
+
+    private EncryptingConnectionHandler(Connection target,
+                                        Function<String, JdbcEncryptPlan> planResolver) {
+        this.target = target;
+        this.planResolver = planResolver;
+    }
+
+    /**
+     * Wraps a connection.
+     *
+     * @param connection   the driver or pool connection
+     * @param planResolver resolves the plan of a SQL statement
+     * @return the wrapped connection
+     */
+    static Connection wrap(Connection connection,
+                           Function<String, JdbcEncryptPlan> planResolver) {
+        if (connection == null) {
+            return null;
+        }
+        EncryptingConnectionHandler handler =
+                new EncryptingConnectionHandler(connection, planResolver);
+        handler.proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        return handler.proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object result = JdbcCrypto.invoke(target, method, args);
+        if (!(result instanceof Statement statement)) {
+            return result;
+        }
+
+        String name = method.getName();
+        JdbcEncryptPlan plan = null;
+        if (("prepareStatement".equals(name) || "prepareCall".equals(name))
+                && args != null && args[0] instanceof String sql) {
+            plan = planResolver.apply(sql);
+            if (plan.isEmpty()) {
+                return statement;
+            }
+        }
+        return EncryptingStatementHandler.wrap(statement,
+                method.getReturnType(), this.proxy, plan, planResolver);
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Encrypts parameters bound to encrypted columns and wraps the result sets
+ * of a statement.
+ *
+ * <p>Prepared and callable statements carry the plan of the SQL they were
+ * prepared with. Plain statements look up the plan of each SQL passed to
+ * {@code execute} or {@code executeQuery}.</p>
+ *
+ * @author avinzhang
+ */
+final class EncryptingStatementHandler implements InvocationHandler {
+    private static final Set<String> PARAM_SETTERS =
+            Set.of("setString", "setNString", "setObject");
+    private static final Set<String> SQL_EXECUTORS =
+            Set.of("execute", "executeQuery");
+
+    private final Statement target;
+    private final Connection connection;
+    private final Function<String, JdbcEncryptPlan> planResolver;
+    private JdbcEncryptPlan plan;
+    private Statement proxy;
+
+    private EncryptingStatementHandler(Statement target, Connection connection,
+                                       JdbcEncryptPlan plan,
+                                       Function<String, JdbcEncryptPlan> planResolver) {
+        this.target = target;
+        this.connection = connection;
+        this.plan = plan;
+        this.planResolver = planResolver;
+    }
+
+    /**
+     * Wraps a statement in a proxy of the given statement interface.
+     *
+     * @param statement    the driver statement
+     * @param type         Statement, PreparedStatement or CallableStatement
+     * @param connection   the proxied connection returned by getConnection
+     * @param plan         the plan of a prepared statement, null for plain
+     *                     statements
+     * @param planResolver resolves plans of SQL executed directly
+     * @return the wrapped statement
+     */
+    static Statement wrap(Statement statement, Class<?> type,
+                          Connection connection, JdbcEncryptPlan plan,
+                          Function<String, JdbcEncryptPlan> planResolver) {
+        if (statement == null) {
+            return null;
+        }
+        EncryptingStatementHandler handler = new EncryptingStatementHandler(
+                statement, connection, plan, planResolver);
+        handler.proxy = (Statement) Proxy.newProxyInstance(
+                type.getClassLoader(), new Class<?>[]{type}, handler);
+        return handler.proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        if (args != null && args.length >= 2 && plan != null
+                && args[0] instanceof Integer index
+                && args[1] instanceof String value
+                && PARAM_SETTERS.contains(name)) {
+            EncryptionAlgo algo = plan.paramAlgo(index);
+            if (algo != null) {
+                args[1] = JdbcCrypto.encrypt(algo, value);
+            }
+        } else if (args != null && args.length >= 1
+                && args[0] instanceof String sql
+                && SQL_EXECUTORS.contains(name)) {
+            plan = planResolver.apply(sql);
+        } else if ("getConnection".equals(name)) {
+            return connection;
+        }
+
+        Object result = JdbcCrypto.invoke(target, method, args);
+        if (result instanceof ResultSet resultSet
+                && !"getGeneratedKeys".equals(name)) {
+            return DecryptingResultSetHandler.wrap(resultSet, plan, this.proxy);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.encrypt.shield.TolerantDecryptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Shared helpers of the JDBC proxies.
+ *
+ * @author avinzhang
+ */
+final class JdbcCrypto {
+    private static final Logger log = LoggerFactory.getLogger(JdbcCrypto.class);
+
+    private JdbcCrypto() {
+    }
+
+    /**
+     * Encrypts a bound value, keeping it unchanged on failure unless the
+     * algorithm requires failures to propagate.
+     */
+    static String encrypt(EncryptionAlgo algo, String value) {
+        try {
+            return algo.encrypt(value);
+        } catch (RuntimeException e) {
+            if (algo.cryptoThrowable()) {
+                throw e;
+            }
+            log.error("Failed to encrypt JDBC parameter", e);
+            return value;
+        }
+    }
+
+    /**
+     * Decrypts a column value, keeping it unchanged on failure unless the
+     * algorithm requires failures to propagate.
+     */
+    static String decrypt(EncryptionAlgo algo, String value) {
+        try {
+            return TolerantDecryptor.decrypt(algo, value);
+        } catch (RuntimeException e) {
+            if (algo.cryptoThrowable()) {
+                throw e;
+            }
+            TolerantDecryptor.reportFailure(e);
+            return value;
+        }
+    }
+
+    /**
+     * Invokes a method on the delegate, unwrapping the reflective
+     * exception so callers see the driver's own exception.
+     */
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
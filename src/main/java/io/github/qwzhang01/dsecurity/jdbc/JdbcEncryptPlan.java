@@ -0,0 +1,204 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptFieldTableContainer;
+import io.github.qwzhang01.dsecurity.encrypt.container.ResultColumns;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.FieldMatchUtil;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysis;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysisCache;
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encryption plan of one SQL statement for the JDBC engine.
+ *
+ * <p>The plan records which parameter indexes bind encrypted columns and
+ * which result columns hold ciphertext, so binding and reading values only
+ * costs an array or map lookup. Result column indexes are resolved from the
+ * result set metadata the first time the statement returns rows.</p>
+ *
+ * <p>Plans are immutable apart from the lazily resolved column indexes and
+ * are shared between threads.</p>
+ *
+ * @author avinzhang
+ */
+public final class JdbcEncryptPlan {
+    /**
+     * Plan of statements without encrypted parameters or columns.
+     */
+    public static final JdbcEncryptPlan EMPTY =
+            new JdbcEncryptPlan(new EncryptionAlgo[0], Collections.emptyMap());
+
+    private static final Object NO_ALGO = new Object();
+
+    private final EncryptionAlgo[] params;
+    private final Map<String, EncryptionAlgo> columns;
+    private final Map<String, Object> labels = new ConcurrentHashMap<>();
+    private volatile EncryptionAlgo[] columnsByIndex;
+
+    private JdbcEncryptPlan(EncryptionAlgo[] params,
+                            Map<String, EncryptionAlgo> columns) {
+        this.params = params;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a plan from explicit parameter and column algorithms.
+     *
+     * @param params  algorithms by 1-based parameter index
+     * @param columns algorithms by result column name, matched ignoring case
+     * @return the plan
+     */
+    public static JdbcEncryptPlan of(Map<Integer, EncryptionAlgo> params,
+                                     Map<String, EncryptionAlgo> columns) {
+        int size = params.keySet().stream().mapToInt(Integer::intValue)
+                .max().orElse(0);
+        EncryptionAlgo[] paramAlgos = new EncryptionAlgo[size];
+        params.forEach((index, algo) -> paramAlgos[index - 1] = algo);
+        Map<String, EncryptionAlgo> columnAlgos = new HashMap<>();
+        columns.forEach((column, algo) ->
+                columnAlgos.put(column.toLowerCase(Locale.ROOT), algo));
+        return new JdbcEncryptPlan(paramAlgos, columnAlgos);
+    }
+
+    /**
+     * Builds the plan of a SQL statement from the encrypted columns of the
+     * tables it references.
+     *
+     * <p>Parameters are matched to columns by their position in the
+     * statement, as in the MyBatis engine. Result columns are traced to
+     * their table and column through the select list by
+     * {@link ResultColumns}, as for map rows. Statements that cannot be
+     * parsed get the empty plan and pass through unchanged.</p>
+     *
+     * @param sql the SQL statement
+     * @return the plan, never null
+     */
+    static JdbcEncryptPlan build(String sql) {
+        if (StringUtil.isEmpty(sql)) {
+            return EMPTY;
+        }
+        EncryptFieldTableContainer tableContainer =
+                SpringContextUtil.getBean(EncryptFieldTableContainer.class);
+        if (!tableContainer.mayInvolveEncrypt(sql)) {
+            return EMPTY;
+        }
+
+        SqlAnalysis analysis = SqlAnalysisCache.getInstance().get(sql);
+        if (analysis.isEmpty()) {
+            return EMPTY;
+        }
+        List<SqlTable> tables = analysis.tables();
+        List<SqlParam> sqlParams = analysis.params();
+
+        AbstractEncryptAlgoContainer algoContainer =
+                SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class);
+
+        EncryptionAlgo[] params = new EncryptionAlgo[sqlParams.size()];
+        boolean encryptedParam = false;
+        for (int i = 0; i < params.length; i++) {
+            String column = sqlParams.get(i).getColumn();
+            if (StringUtil.isEmpty(column)) {
+                continue;
+            }
+            for (SqlTable table : tables) {
+                Class<? extends EncryptionAlgo> algoClass =
+                        FieldMatchUtil.getEncryptAlgo(table.getName(), column);
+                if (algoClass != null) {
+                    params[i] = algoContainer.getAlgo(algoClass);
+                    encryptedParam = true;
+                    break;
+                }
+            }
+        }
+
+        Map<String, EncryptionAlgo> columns = new HashMap<>();
+        ResultColumns.of(sql, tables, tableContainer).forEach((label, algoClass) ->
+                columns.put(label, algoContainer.getAlgo(algoClass)));
+
+        if (!encryptedParam && columns.isEmpty()) {
+            return EMPTY;
+        }
+        return new JdbcEncryptPlan(encryptedParam ? params :
+                new EncryptionAlgo[0], columns);
+    }
+
+    /**
+     * Returns the algorithm of a parameter.
+     *
+     * @param index the 1-based parameter index
+     * @return the algorithm, or null if the parameter is not encrypted
+     */
+    public EncryptionAlgo paramAlgo(int index) {
+        return index > 0 && index <= params.length ? params[index - 1] : null;
+    }
+
+    /**
+     * Checks whether result sets of the statement may hold ciphertext.
+     *
+     * @return true if any result column is encrypted
+     */
+    public boolean hasColumns() {
+        return !columns.isEmpty();
+    }
+
+    /**
+     * Checks whether the statement needs no encryption at all.
+     *
+     * @return true if neither parameters nor columns are encrypted
+     */
+    public boolean isEmpty() {
+        return params.length == 0 && columns.isEmpty();
+    }
+
+    /**
+     * Returns the algorithm of a result column by label.
+     *
+     * @param label the column label
+     * @return the algorithm, or null if the column is not encrypted
+     */
+    public EncryptionAlgo columnAlgo(String label) {
+        if (label == null) {
+            return null;
+        }
+        Object algo = labels.computeIfAbsent(label, k -> {
+            EncryptionAlgo found = columns.get(ResultColumns.key(k));
+            return found != null ? found : NO_ALGO;
+        });
+        return algo == NO_ALGO ? null : (EncryptionAlgo) algo;
+    }
+
+    /**
+     * Returns the algorithms of the result columns by index, resolving
+     * them from the metadata on first use.
+     *
+     * @param metaData the result set metadata
+     * @return algorithms by 0-based column index, null entries for plain
+     * columns
+     * @throws SQLException if the metadata cannot be read
+     */
+    EncryptionAlgo[] columnAlgos(ResultSetMetaData metaData) throws SQLException {
+        EncryptionAlgo[] resolved = columnsByIndex;
+        if (resolved == null) {
+            int count = metaData.getColumnCount();
+            resolved = new EncryptionAlgo[count];
+            for (int i = 0; i < count; i++) {
+                resolved[i] = columnAlgo(metaData.getColumnLabel(i + 1));
+            }
+            columnsByIndex = resolved;
+        }
+        return resolved;
+    }
+}
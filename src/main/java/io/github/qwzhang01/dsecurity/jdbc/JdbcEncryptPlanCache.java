@@ -0,0 +1,60 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+
+/**
+ * Cache of {@link JdbcEncryptPlan} instances keyed by SQL text.
+ *
+ * <p>The cache holds at most the configured number of plans and evicts
+ * plans of statements that are no longer used, which keeps memory bounded
+ * for applications that generate unbounded SQL text.</p>
+ *
+ * @author avinzhang
+ */
+public final class JdbcEncryptPlanCache {
+    private final BoundedCache<String, JdbcEncryptPlan> plans =
+            new BoundedCache<>(() -> DataSecurityProperties.current().getJdbc()
+                    .getPlanCacheSize());
+
+    private JdbcEncryptPlanCache() {
+    }
+
+    public static JdbcEncryptPlanCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the plan of a SQL statement, building it on first use.
+     *
+     * @param sql the SQL statement
+     * @return the plan, never null
+     */
+    public JdbcEncryptPlan get(String sql) {
+        if (sql == null) {
+            return JdbcEncryptPlan.EMPTY;
+        }
+        return plans.computeIfAbsent(sql, JdbcEncryptPlan::build);
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return the statistics
+     */
+    public BoundedCache.Stats stats() {
+        return plans.stats();
+    }
+
+    /**
+     * Drops all cached plans, e.g. after encrypted columns changed.
+     */
+    public void clear() {
+        plans.clear();
+    }
+
+    private static final class Holder {
+        private static final JdbcEncryptPlanCache INSTANCE =
+                new JdbcEncryptPlanCache();
+    }
+}
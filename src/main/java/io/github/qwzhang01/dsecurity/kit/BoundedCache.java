@@ -0,0 +1,213 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded concurrent cache with second-chance (clock) eviction.
+ *
+ * <p>Reads are lock-free: a hit only sets the entry's reference bit. When a
+ * put grows the cache past its maximum size, the thread that wins the
+ * eviction lock sweeps the entries, clearing reference bits and removing
+ * the first entry not referenced since the previous sweep. Other writers do
+ * not wait for the sweep, so the size may briefly exceed the maximum.</p>
+ *
+ * <p>Loaders run outside any lock and may occasionally run twice for the
+ * same key under contention; they must be side-effect free.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author avinzhang
+ */
+public final class BoundedCache<K, V> {
+    private final Map<K, Node<V>> entries = new ConcurrentHashMap<>();
+    private final IntSupplier maxSize;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private Iterator<Map.Entry<K, Node<V>>> hand;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum number of entries; zero or less disables
+     *                caching
+     */
+    public BoundedCache(int maxSize) {
+        this(() -> maxSize);
+    }
+
+    /**
+     * Creates a cache whose bound is read whenever a value is stored, e.g.
+     * from configuration that is bound after the cache is created.
+     *
+     * @param maxSize supplies the maximum number of entries; zero or less
+     *                disables caching
+     */
+    public BoundedCache(IntSupplier maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @param key the key
+     * @return the value, or null on a miss
+     */
+    public V get(K key) {
+        Node<V> node = entries.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        node.referenced = true;
+        hits.increment();
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value, loading and caching it on a miss.
+     *
+     * @param key    the key
+     * @param loader computes the value; a null result is not cached
+     * @return the value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        Node<V> node = entries.get(key);
+        if (node != null) {
+            node.referenced = true;
+            hits.increment();
+            return node.value;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        int max = maxSize.getAsInt();
+        if (value == null || max <= 0) {
+            return value;
+        }
+        Node<V> existing = entries.putIfAbsent(key, new Node<>(value));
+        if (existing != null) {
+            existing.referenced = true;
+            return existing.value;
+        }
+        evictIfNeeded(max);
+        return value;
+    }
+
+    /**
+     * Caches a value, replacing any previous one.
+     *
+     * @param key   the key
+     * @param value the value, must not be null
+     */
+    public void put(K key, V value) {
+        int max = maxSize.getAsInt();
+        if (max <= 0) {
+            return;
+        }
+        entries.put(key, new Node<>(value));
+        evictIfNeeded(max);
+    }
+
+    /**
+     * Removes a cached value.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes the cached values whose key matches a condition. Runs in time
+     * linear in the size of the cache.
+     *
+     * @param condition selects the keys to remove
+     */
+    public void invalidateIf(Predicate<? super K> condition) {
+        entries.keySet().removeIf(condition);
+    }
+
+    /**
+     * Removes all cached values. Statistics are kept.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return the statistics
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(),
+                entries.size());
+    }
+
+    private void evictIfNeeded(int max) {
+        if (entries.size() <= max || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (entries.size() > max) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<K, Node<V>> entry = hand.next();
+                Node<V> node = entry.getValue();
+                if (node.referenced) {
+                    node.referenced = false;
+                } else if (entries.remove(entry.getKey(), node)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits      number of lookups that found a value
+     * @param misses    number of lookups that did not
+     * @param evictions number of entries removed to respect the size bound
+     * @param size      current number of entries
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        /**
+         * Returns the share of lookups that were hits.
+         *
+         * @return the hit rate between 0 and 1, 0 if there were no lookups
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private volatile boolean referenced;
+
+        private Node(V value) {
+            this.value = value;
+        }
+    }
+}
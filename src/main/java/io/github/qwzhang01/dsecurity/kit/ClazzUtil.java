@@ -29,13 +29,18 @@ package io.github.qwzhang01.dsecurity.kit;
 import io.github.qwzhang01.dsecurity.domain.AnnotatedField;
 import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
 import io.github.qwzhang01.dsecurity.exception.SerializationException;
-import org.springframework.util.StringUtils;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
 
 import java.io.*;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -50,6 +55,9 @@ public final class ClazzUtil {
     private final static Set<Class<?>> NO_CLASS = new CopyOnWriteArraySet<>();
     private static final Map<Class<?>, List<Field>> FIELD_CACHE =
             new ConcurrentHashMap<>();
+    private static final ReflectorFactory REFLECTORS =
+            new DefaultReflectorFactory();
+    private static final Object[] NO_ARGS = new Object[0];
     private static final Set<Class<?>> PRIMITIVE_TYPES = Set.of(
             String.class, Integer.class, Long.class, Double.class, Float.class,
             Boolean.class, Byte.class, Short.class, Character.class,
@@ -59,6 +67,10 @@ public final class ClazzUtil {
 
     /**
      * Get object property value
+     *
+     * <p>Getters, {@code is} getters and fields are resolved once per class
+     * by the MyBatis {@link Reflector}; unknown properties are a map miss,
+     * not a failed reflective lookup.</p>
      */
     public static Object getPropertyValue(Object obj, String propertyName) throws Exception {
         if (obj == null || propertyName == null || propertyName.trim().isEmpty()) {
@@ -70,19 +82,15 @@ public final class ClazzUtil {
             return obj;
         }
 
-        String capitalizedName = StringUtils.capitalize(propertyName);
-
-        Object result = tryGetterMethod(obj, "get" + capitalizedName);
-        if (result != null) {
-            return result;
+        Reflector reflector = REFLECTORS.findForClass(obj.getClass());
+        if (!reflector.hasGetter(propertyName)) {
+            throw new DataSecurityException("Cannot get property: " + propertyName);
         }
-
-        result = tryGetterMethod(obj, "is" + capitalizedName);
-        if (result != null) {
-            return result;
+        try {
+            return reflector.getGetInvoker(propertyName).invoke(obj, NO_ARGS);
+        } catch (InvocationTargetException e) {
+            throw unwrap(e);
         }
-
-        return getFieldValue(obj, propertyName);
     }
 
     /**
@@ -95,65 +103,26 @@ public final class ClazzUtil {
                     "cannot be null");
         }
 
-        String setterName = "set" + StringUtils.capitalize(propertyName);
-
-        if (trySetterMethod(obj, setterName, value)) {
-            return;
+        Reflector reflector = REFLECTORS.findForClass(obj.getClass());
+        if (!reflector.hasSetter(propertyName)) {
+            throw new DataSecurityException("Cannot set property: " + propertyName);
         }
-
-        setFieldValue(obj, propertyName, value);
-    }
-
-    /**
-     * Try getter method
-     */
-    private static Object tryGetterMethod(Object obj, String methodName) {
         try {
-            Method getter = obj.getClass().getMethod(methodName);
-            return getter.invoke(obj);
-        } catch (Exception e) {
-            return null;
+            reflector.getSetInvoker(propertyName).invoke(obj, new Object[]{value});
+        } catch (InvocationTargetException e) {
+            throw unwrap(e);
         }
     }
 
-    /**
-     * Try setter method
-     */
-    private static boolean trySetterMethod(Object obj, String methodName,
-                                           Object value) {
-        try {
-            Method setter = obj.getClass().getMethod(methodName,
-                    value != null ? value.getClass() : Object.class);
-            setter.invoke(obj, value);
-            return true;
-        } catch (Exception e) {
-            return false;
+    private static Exception unwrap(InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception exception) {
+            return exception;
         }
-    }
-
-    /**
-     * Get value via field
-     */
-    private static Object getFieldValue(Object obj, String fieldName) throws Exception {
-        Field field = findField(obj.getClass(), fieldName);
-        if (field == null) {
-            throw new DataSecurityException("Cannot get property: " + fieldName);
+        if (cause instanceof Error error) {
+            throw error;
         }
-        field.setAccessible(true);
-        return field.get(obj);
-    }
-
-    /**
-     * Set value via field
-     */
-    private static void setFieldValue(Object obj, String fieldName,
-                                      Object value) throws Exception {
-        Field field = findField(obj.getClass(), fieldName);
-        if (field == null) {
-            throw new DataSecurityException("Cannot set property: " + fieldName);
-        }
-        field.setAccessible(true);
-        field.set(obj, value);
+        return e;
     }
 
     /**
@@ -200,6 +169,44 @@ public final class ClazzUtil {
         return getAnnotatedFieldsInternal(obj, annotationClass, false);
     }
 
+    /**
+     * Loads the field and property metadata of a class and of the classes
+     * its fields hold, so that the first lookup on a result does not pay
+     * for reflection.
+     *
+     * @param clazz the class, e.g. a mapped result type
+     */
+    public static void preload(Class<?> clazz) {
+        preload(clazz, new HashSet<>());
+    }
+
+    private static void preload(Class<?> clazz, Set<Class<?>> visited) {
+        if (clazz == null || isPrimitiveOrCommonType(clazz)
+                || !visited.add(clazz)) {
+            return;
+        }
+        if (clazz.isArray()) {
+            preload(clazz.getComponentType(), visited);
+            return;
+        }
+        REFLECTORS.findForClass(clazz);
+        for (Field field : getAllFields(clazz)) {
+            if (isFinalAndStatic(field)) {
+                continue;
+            }
+            field.getAnnotations();
+            preload(field.getType(), visited);
+            // Element types of collections and maps
+            if (field.getGenericType() instanceof ParameterizedType type) {
+                for (Type argument : type.getActualTypeArguments()) {
+                    if (argument instanceof Class<?> argumentClass) {
+                        preload(argumentClass, visited);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Internal method for retrieving annotated fields
      */
@@ -494,7 +501,14 @@ public final class ClazzUtil {
         return deserialize(bytes);               // 再立刻反序列化回物件
     }
 
-    private static byte[] serialize(Object obj) {
+    /**
+     * Serializes an object graph with Java serialization.
+     *
+     * @param obj the object, must be serializable
+     * @return the serialized bytes
+     * @throws SerializationException if the graph is not serializable
+     */
+    public static byte[] serialize(Object obj) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream(512);
         try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
             out.writeObject(obj);
@@ -504,8 +518,15 @@ public final class ClazzUtil {
         }
     }
 
+    /**
+     * Deserializes bytes produced by {@link #serialize(Object)}.
+     *
+     * @param data the serialized bytes
+     * @return the object graph
+     * @throws SerializationException if the bytes cannot be read
+     */
     @SuppressWarnings("unchecked")
-    private static <T> T deserialize(byte[] data) {
+    public static <T> T deserialize(byte[] data) {
         ByteArrayInputStream bais = new ByteArrayInputStream(data);
         try (ObjectInputStream in = new ObjectInputStream(bais)) {
             return (T) in.readObject();
@@ -3,7 +3,6 @@ package io.github.qwzhang01.dsecurity.kit;
 import io.github.qwzhang01.dsecurity.domain.EncryptInfo;
 import io.github.qwzhang01.dsecurity.encrypt.container.EncryptFieldTableContainer;
 import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
-import io.github.qwzhang01.sql.tool.model.SqlParam;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,36 +35,17 @@ public final class FieldMatchUtil {
     /**
      * Retrieves the encryption algorithm class for a specific table field.
      *
-     * <p>This method tries multiple naming format variants to match the
-     * field:</p>
-     * <ul>
-     *   <li>Original field name</li>
-     *   <li>camelCase to snake_case conversion</li>
-     *   <li>snake_case to camelCase conversion</li>
-     * </ul>
+     * <p>The field may be given as column or property name; spellings that
+     * only differ in case or underscores resolve to the same column through
+     * the canonical index of {@link EncryptFieldTableContainer}.</p>
      *
      * @param tableName the table name
      * @param fieldName the field name
      * @return the encryption algorithm class, or null if field is not encrypted
      */
-    private static Class<? extends EncryptionAlgo> getEncryptAlgo(String tableName, String fieldName) {
-        EncryptFieldTableContainer container =
-                SpringContextUtil.getBean(EncryptFieldTableContainer.class);
-
-        // 尝试多种命名格式
-        String[] variants = {
-                fieldName,
-                StringUtil.camelToUnderscore(fieldName),
-                StringUtil.underscoreToCamel(fieldName)
-        };
-
-        for (String variant : variants) {
-            if (container.isEncrypt(tableName, variant)) {
-                return container.getAlgo(tableName, variant);
-            }
-        }
-
-        return null;
+    public static Class<? extends EncryptionAlgo> getEncryptAlgo(String tableName, String fieldName) {
+        return SpringContextUtil.getBean(EncryptFieldTableContainer.class)
+                .findAlgo(tableName, fieldName);
     }
 
     /**
@@ -97,22 +77,18 @@ public final class FieldMatchUtil {
     /**
      * Matches a parameter to a table field for encryption.
      *
-     * <p>The matching process includes:</p>
-     * <ol>
-     *   <li>Direct field name matching across all tables</li>
-     *   <li>SQL condition analysis to find field references</li>
-     *   <li>Multiple naming convention support</li>
-     * </ol>
+     * <p>The cleaned parameter name is looked up as column of each table;
+     * camelCase and snake_case spellings match through the canonical column
+     * index.</p>
      *
-     * @param paramName   the parameter name
-     * @param paramValue  the parameter value
-     * @param sqlAnalysis SQL analysis information
-     * @param tables      list of tables in the SQL
+     * @param paramName  the parameter name
+     * @param paramValue the parameter value
+     * @param tables     list of tables in the SQL
      * @return encryption information if match found, null otherwise
      */
     public static EncryptInfo matchParameterToTableField(String paramName,
                                                          String paramValue,
-                                                         List<SqlParam> sqlAnalysis, List<SqlTable> tables) {
+                                                         List<SqlTable> tables) {
         // 清理参数名
         String cleanParamName = StringUtil.cleanParameterName(paramName);
 
@@ -129,46 +105,6 @@ public final class FieldMatchUtil {
             }
         }
 
-        // Match from SQL conditions
-        for (SqlParam condition : sqlAnalysis) {
-            String columnName = condition.getColumn();
-
-            if (isFieldNameMatch(cleanParamName, columnName)) {
-                // Found matching field, check which table contains this
-                // encrypted field
-                for (SqlTable tableInfo : tables) {
-                    String tableName = tableInfo.getName();
-                    EncryptInfo encryptInfo =
-                            createEncryptInfo(tableName, columnName,
-                                    paramValue);
-                    if (encryptInfo != null) {
-                        log.debug("Matched encrypted field via SQL condition:" +
-                                        " table[{}] field[{}]", tableName,
-                                columnName);
-                        return encryptInfo;
-                    }
-                }
-            }
-        }
-
         return null;
     }
-
-    /**
-     * Checks if field name matches (supports multiple naming formats).
-     *
-     * @param paramName  the parameter name
-     * @param columnName the column name
-     * @return true if names match
-     */
-    private static boolean isFieldNameMatch(String paramName,
-                                            String columnName) {
-        if (paramName == null || columnName == null) {
-            return false;
-        }
-
-        return paramName.equalsIgnoreCase(columnName) ||
-                StringUtil.camelToUnderscore(paramName).equalsIgnoreCase(columnName) ||
-                StringUtil.underscoreToCamel(paramName).equalsIgnoreCase(columnName);
-    }
-}
\ No newline at end of file
+}
@@ -4,19 +4,19 @@ import io.github.qwzhang01.dsecurity.domain.EncryptInfo;
 import io.github.qwzhang01.dsecurity.domain.RestoreInfo;
 import io.github.qwzhang01.dsecurity.encrypt.container.AbstractEncryptAlgoContainer;
 import io.github.qwzhang01.dsecurity.encrypt.context.SqlRewriteContext;
+import io.github.qwzhang01.dsecurity.encrypt.plan.EncryptPlan;
 import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
 import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
-import io.github.qwzhang01.sql.tool.helper.ParserHelper;
 import io.github.qwzhang01.sql.tool.model.SqlParam;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
 import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.*;
 
 import static io.github.qwzhang01.dsecurity.kit.ClazzUtil.setPropertyValue;
@@ -29,6 +29,7 @@ import static io.github.qwzhang01.dsecurity.kit.ClazzUtil.setPropertyValue;
 public final class ParamUtil {
 
     private static final Logger log = LoggerFactory.getLogger(ParamUtil.class);
+    private static final String FOREACH_PREFIX = ForEachSqlNode.ITEM_PREFIX;
 
     private ParamUtil() {
         throw new UnsupportedOperationException("ParamUtil is a utility class" +
@@ -58,21 +59,137 @@ public final class ParamUtil {
         if (parameterObject == null) {
             return Collections.emptyList();
         }
+        return analyzeParameters(buildPlan(parameterMappings, params, tables,
+                parameterObject), parameterObject);
+    }
 
-        log.debug("Parameter type: {}, mappings: {}",
-                parameterObject.getClass().getSimpleName(),
-                parameterMappings.size());
+    /**
+     * Returns the plan kind matching a parameter object.
+     */
+    public static EncryptPlan.Kind parameterKind(Object parameterObject) {
+        if (parameterObject instanceof Map) {
+            return isQueryWrapperParameter(parameterObject) ?
+                    EncryptPlan.Kind.QUERY_WRAPPER : EncryptPlan.Kind.MAP;
+        }
+        return EncryptPlan.Kind.OBJECT;
+    }
 
-        if (parameterObject instanceof Map paramMap) {
-            if (isQueryWrapperParameter(parameterObject)) {
-                log.debug("QueryWrapper parameter detected");
-                return analyzeQueryWrapperParameters(paramMap, params, tables);
+    /**
+     * Build the encryption plan of a statement shape.
+     *
+     * <p>Each bound property is matched once, by its first position in the
+     * parameter mappings and then by name, against the encrypted columns of
+     * the statement tables.</p>
+     */
+    public static EncryptPlan buildPlan(List<ParameterMapping> parameterMappings,
+                                        List<SqlParam> params,
+                                        List<SqlTable> tables,
+                                        Object parameterObject) {
+        EncryptPlan.Kind kind = parameterKind(parameterObject);
+        if (kind == EncryptPlan.Kind.QUERY_WRAPPER) {
+            return EncryptPlan.ofQueryWrapper(params, tables);
+        }
+
+        List<EncryptPlan.Entry> entries = new ArrayList<>();
+        List<EncryptPlan.ForeachGroup> groups = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        // Run of foreach elements bound to the same SQL column
+        String groupName = null;
+        String groupColumn = null;
+        EncryptInfo groupMatch = null;
+        List<String> groupProperties = new ArrayList<>();
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            String property = parameterMappings.get(i).getProperty();
+            if (property == null || !seen.add(property)) {
+                continue;
+            }
+
+            String foreachName = foreachName(property);
+            if (foreachName != null) {
+                String column = i < params.size() ?
+                        params.get(i).getColumn() : null;
+                if (!foreachName.equals(groupName)
+                        || !Objects.equals(column, groupColumn)) {
+                    addGroup(groups, groupMatch, groupProperties);
+                    groupName = foreachName;
+                    groupColumn = column;
+                    groupMatch = matchParameterToSqlField(property, null,
+                            params, tables, i);
+                    groupProperties = new ArrayList<>();
+                }
+                groupProperties.add(property);
+                continue;
+            }
+
+            EncryptInfo encryptInfo = matchParameterToSqlField(property,
+                    null, params, tables, i);
+            if (encryptInfo != null) {
+                entries.add(new EncryptPlan.Entry(property,
+                        encryptInfo.getTableName(), encryptInfo.getFieldName(),
+                        encryptInfo.getAlgoClass()));
+            }
+        }
+        addGroup(groups, groupMatch, groupProperties);
+
+        log.debug("Built {} encryption plan with {} encrypted properties " +
+                "and {} foreach groups", kind, entries.size(), groups.size());
+        return EncryptPlan.of(kind, entries, groups);
+    }
+
+    /**
+     * Returns the foreach item name of an element parameter, e.g.
+     * {@code __frch_item} for {@code __frch_item_3}.
+     *
+     * @return the item name, or null if the property is not a plain
+     * foreach element
+     */
+    private static String foreachName(String property) {
+        if (!property.startsWith(FOREACH_PREFIX) || property.indexOf('.') >= 0) {
+            return null;
+        }
+        int separator = property.lastIndexOf('_');
+        if (separator <= FOREACH_PREFIX.length()
+                || separator == property.length() - 1) {
+            return null;
+        }
+        for (int i = separator + 1; i < property.length(); i++) {
+            if (!Character.isDigit(property.charAt(i))) {
+                return null;
             }
-            return analyzeMapParameters(paramMap, parameterMappings, params,
-                    tables);
         }
-        return analyzeObjectParameters(parameterObject, parameterMappings,
-                params, tables);
+        return property.substring(0, separator);
+    }
+
+    private static void addGroup(List<EncryptPlan.ForeachGroup> groups,
+                                 EncryptInfo match, List<String> properties) {
+        if (match != null && !properties.isEmpty()) {
+            groups.add(new EncryptPlan.ForeachGroup(properties,
+                    match.getTableName(), match.getFieldName(),
+                    match.getAlgoClass()));
+        }
+    }
+
+    /**
+     * Execute an encryption plan against a parameter object
+     */
+    @SuppressWarnings("unchecked")
+    public static List<EncryptInfo> analyzeParameters(EncryptPlan plan,
+                                                      Object parameterObject) {
+        if (parameterObject == null || plan.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return switch (plan.getKind()) {
+            case QUERY_WRAPPER -> {
+                log.debug("QueryWrapper parameter detected");
+                yield analyzeQueryWrapperParameters(
+                        (Map<String, Object>) parameterObject,
+                        plan.getParams(), plan.getTables());
+            }
+            case MAP -> analyzeMapParameters(
+                    (Map<String, Object>) parameterObject, plan);
+            case OBJECT -> analyzeObjectParameters(parameterObject, plan);
+        };
     }
 
     /**
@@ -91,13 +208,13 @@ public final class ParamUtil {
 
         try {
             Map<String, Object> paramNameValuePairs =
-                    getParamNameValuePairs(wrapper);
+                    WrapperUtil.getParamNameValuePairs(wrapper);
             if (paramNameValuePairs == null || paramNameValuePairs.isEmpty()) {
                 log.debug("No parameters in QueryWrapper");
                 return Collections.emptyList();
             }
 
-            String sqlSegment = getSqlSegment(wrapper);
+            String sqlSegment = WrapperUtil.getSqlSegment(wrapper);
             if (sqlSegment == null || sqlSegment.isEmpty()) {
                 log.debug("No SQL segment in QueryWrapper");
                 return Collections.emptyList();
@@ -107,7 +224,7 @@ public final class ParamUtil {
             log.debug("QueryWrapper params: {}", paramNameValuePairs);
 
             Map<String, String> fieldParamMapping =
-                    parseFieldParamMapping(sqlSegment);
+                    WrapperUtil.getFieldParamMapping(sqlSegment);
 
             List<EncryptInfo> encryptInfos = new ArrayList<>();
             for (Map.Entry<String, String> entry :
@@ -121,7 +238,7 @@ public final class ParamUtil {
                             " {}", fieldName, paramName, paramValue);
 
                     EncryptInfo encryptInfo =
-                            FieldMatchUtil.matchParameterToTableField(fieldName, (String) paramValue, params, tables);
+                            FieldMatchUtil.matchParameterToTableField(fieldName, (String) paramValue, tables);
                     if (encryptInfo != null) {
                         String parameterKey =
                                 "ew.paramNameValuePairs." + paramName;
@@ -146,69 +263,30 @@ public final class ParamUtil {
     /**
      * Analyze Map parameters
      */
-    private static List<EncryptInfo> analyzeMapParameters(Map<String
-            , Object> paramMap,
-                                                          List<ParameterMapping> parameterMappings,
-                                                          List<SqlParam> params, List<SqlTable> tables) {
+    private static List<EncryptInfo> analyzeMapParameters(Map<String, Object> paramMap,
+                                                          EncryptPlan plan) {
         List<EncryptInfo> encryptInfos = new ArrayList<>();
         log.debug("Analyzing Map parameters: {}", paramMap.keySet());
 
         MetaObject metaObject = SystemMetaObject.forObject(paramMap);
-        for (ParameterMapping mapping : parameterMappings) {
-            String property = mapping.getProperty();
-            Object value = null;
-
+        for (EncryptPlan.Entry entry : plan.getEntries()) {
+            String property = entry.property();
             try {
-                if (metaObject.hasGetter(property)) {
-                    value = metaObject.getValue(property);
-                } else {
-                    value = paramMap.get(property);
-                }
-
-                if (value instanceof String) {
-                    log.debug("Checking parameter: {} = {}", property, value);
-
-                    EncryptInfo encryptInfo = matchParameterToSqlField(
-                            property, (String) value, params, tables,
-                            parameterMappings);
-                    if (encryptInfo != null) {
-                        encryptInfo.setParameterKey(property);
-                        encryptInfo.setParameterMap(paramMap);
-                        encryptInfo.setMetaObject(metaObject);
-                        encryptInfos.add(encryptInfo);
-                        log.debug("Added encryption parameter: {}", property);
-                    }
+                Object value = metaObject.hasGetter(property) ?
+                        metaObject.getValue(property) : paramMap.get(property);
+                if (value instanceof String stringValue) {
+                    EncryptInfo encryptInfo = toEncryptInfo(entry,
+                            stringValue);
+                    encryptInfo.setParameterKey(property);
+                    encryptInfo.setParameterMap(paramMap);
+                    encryptInfo.setMetaObject(metaObject);
+                    encryptInfos.add(encryptInfo);
+                    log.debug("Added encryption parameter: {}", property);
                 }
             } catch (Exception e) {
                 log.debug("Failed to get parameter value: {}", property, e);
             }
         }
-
-        for (Map.Entry<String, Object> entry : paramMap.entrySet()) {
-            String paramName = entry.getKey();
-            Object paramValue = entry.getValue();
-
-            if (paramValue instanceof String) {
-                boolean alreadyProcessed = parameterMappings.stream()
-                        .anyMatch(mapping -> paramName.equals(mapping.getProperty()));
-
-                if (!alreadyProcessed) {
-                    EncryptInfo encryptInfo =
-                            FieldMatchUtil.matchParameterToTableField(
-                                    paramName, (String) paramValue, params,
-                                    tables);
-                    if (encryptInfo != null) {
-                        encryptInfo.setParameterKey(paramName);
-                        encryptInfo.setParameterMap(paramMap);
-                        encryptInfo.setMetaObject(metaObject);
-                        encryptInfos.add(encryptInfo);
-                        log.debug("Added additional encryption parameter: {}"
-                                , paramName);
-                    }
-                }
-            }
-        }
-
         return encryptInfos;
     }
 
@@ -216,30 +294,24 @@ public final class ParamUtil {
      * Analyze object parameters
      */
     private static List<EncryptInfo> analyzeObjectParameters(Object parameterObject,
-                                                             List<ParameterMapping> parameterMappings,
-                                                             List<SqlParam> sqlAnalysis, List<SqlTable> tables) {
+                                                             EncryptPlan plan) {
         log.debug("Analyzing object parameters: {}",
                 parameterObject.getClass().getSimpleName());
 
         List<EncryptInfo> encryptInfos = new ArrayList<>();
-        for (ParameterMapping mapping : parameterMappings) {
-            String property = mapping.getProperty();
+        for (EncryptPlan.Entry entry : plan.getEntries()) {
+            String property = entry.property();
             try {
                 Object value = ClazzUtil.getPropertyValue(parameterObject,
                         property);
-                if (value instanceof String) {
-                    log.debug("Checking object property: {} = {}", property,
-                            value);
-                    EncryptInfo encryptInfo =
-                            matchParameterToSqlField(property, (String) value
-                                    , sqlAnalysis, tables, parameterMappings);
-                    if (encryptInfo != null) {
-                        encryptInfo.setTargetObject(parameterObject);
-                        encryptInfo.setPropertyName(property);
-                        encryptInfos.add(encryptInfo);
-                        log.debug("Added object encryption property: {}",
-                                property);
-                    }
+                if (value instanceof String stringValue) {
+                    EncryptInfo encryptInfo = toEncryptInfo(entry,
+                            stringValue);
+                    encryptInfo.setTargetObject(parameterObject);
+                    encryptInfo.setPropertyName(property);
+                    encryptInfos.add(encryptInfo);
+                    log.debug("Added object encryption property: {}",
+                            property);
                 }
             } catch (Exception e) {
                 throw new DataSecurityException("Failed to get object " +
@@ -250,6 +322,16 @@ public final class ParamUtil {
         return encryptInfos;
     }
 
+    private static EncryptInfo toEncryptInfo(EncryptPlan.Entry entry,
+                                             String value) {
+        EncryptInfo encryptInfo = new EncryptInfo();
+        encryptInfo.setTableName(entry.tableName());
+        encryptInfo.setFieldName(entry.fieldName());
+        encryptInfo.setOriginalValue(value);
+        encryptInfo.setAlgoClass(entry.algoClass());
+        return encryptInfo;
+    }
+
     /**
      * Map parameter to SQL field
      */
@@ -257,9 +339,7 @@ public final class ParamUtil {
                                                         String paramValue,
                                                         List<SqlParam> params
             , List<SqlTable> tables,
-                                                        List<ParameterMapping> parameterMappings) {
-        int paramIndex = findParameterIndex(paramProperty, parameterMappings);
-
+                                                        int paramIndex) {
         if (paramIndex >= 0 && paramIndex < params.size()) {
             SqlParam param = params.get(paramIndex);
 
@@ -279,73 +359,58 @@ public final class ParamUtil {
         }
         String fieldName = StringUtil.extractFieldName(paramProperty);
         return FieldMatchUtil.matchParameterToTableField(fieldName,
-                paramValue, params, tables);
+                paramValue, tables);
     }
 
     /**
-     * Find parameter index in mapping list
+     * Encrypt the value of one parameter with its configured algorithm
      */
-    private static int findParameterIndex(String paramProperty,
-                                          List<ParameterMapping> parameterMappings) {
-        for (int i = 0; i < parameterMappings.size(); i++) {
-            if (paramProperty.equals(parameterMappings.get(i).getProperty())) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    /**
-     * Get QueryWrapper SQL segment
-     */
-    private static String getSqlSegment(Object wrapper) {
+    public static String encryptValue(EncryptInfo encryptInfo) {
+        EncryptionAlgo algo =
+                SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class)
+                        .getAlgo(encryptInfo.getAlgoClass());
         try {
-            Method getSqlSegmentMethod =
-                    ClazzUtil.findMethod(wrapper.getClass(), "getSqlSegment");
-            if (getSqlSegmentMethod != null) {
-                getSqlSegmentMethod.setAccessible(true);
-                Object result = getSqlSegmentMethod.invoke(wrapper);
-                return result != null ? result.toString() : null;
-            }
-
-            Method getCustomSqlSegmentMethod =
-                    ClazzUtil.findMethod(wrapper.getClass(),
-                            "getCustomSqlSegment");
-            if (getCustomSqlSegmentMethod != null) {
-                getCustomSqlSegmentMethod.setAccessible(true);
-                Object result = getCustomSqlSegmentMethod.invoke(wrapper);
-                return result != null ? result.toString() : null;
+            return algo.encrypt(encryptInfo.getOriginalValue());
+        } catch (RuntimeException e) {
+            if (algo.cryptoThrowable()) {
+                throw e;
             }
-
-            log.debug("Unable to get QueryWrapper SQL segment");
-            return null;
-        } catch (Exception e) {
-            throw new DataSecurityException("Failed to get QueryWrapper SQL " +
-                    "segment", e);
+            log.error("Failed to encrypt value: {}",
+                    encryptInfo.getOriginalValue(), e);
+            return encryptInfo.getOriginalValue();
         }
     }
 
     /**
-     * Parse field-parameter mapping
+     * Compute encrypted values by ParameterMapping position without touching
+     * the parameter object
+     *
+     * @return ciphertexts by 1-based JDBC parameter index, null entries for
+     * parameters bound unchanged
      */
-    private static Map<String, String> parseFieldParamMapping(String sqlSegment) {
-
-        if (StringUtil.isEmpty(sqlSegment)) {
-            return Collections.emptyMap();
+    public static String[] encryptOverlay(List<EncryptInfo> encryptInfos,
+                                          List<ParameterMapping> parameterMappings) {
+        Map<String, String> encryptedByProperty = new HashMap<>();
+        for (EncryptInfo encryptInfo : encryptInfos) {
+            String property = encryptInfo.getTargetObject() != null ?
+                    encryptInfo.getPropertyName() :
+                    encryptInfo.getParameterKey();
+            try {
+                encryptedByProperty.put(property, encryptValue(encryptInfo));
+            } catch (Exception e) {
+                throw new DataSecurityException("Failed to encrypt parameter: "
+                        + encryptInfo.getTableName() + "." + encryptInfo.getFieldName(), e);
+            }
         }
 
-        try {
-            Map<String, String> mapping = new HashMap<>();
-            List<SqlParam> params = ParserHelper.getSpecParam("select * from " +
-                    "dumpy_table where " + sqlSegment);
-            for (SqlParam param : params) {
-                mapping.put("MPGENVAL" + param.getIndex(), param.getColumn());
+        String[] overlay = new String[parameterMappings.size() + 1];
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            ParameterMapping mapping = parameterMappings.get(i);
+            if (mapping.getMode() != ParameterMode.OUT) {
+                overlay[i + 1] = encryptedByProperty.get(mapping.getProperty());
             }
-            return mapping;
-        } catch (Exception e) {
-            throw new DataSecurityException("Failed to parse field-parameter " +
-                    "mapping", e);
         }
+        return overlay;
     }
 
     /**
@@ -356,21 +421,7 @@ public final class ParamUtil {
 
         for (EncryptInfo encryptInfo : encryptInfos) {
             try {
-                EncryptionAlgo algo =
-                        SpringContextUtil.getBean(AbstractEncryptAlgoContainer.class)
-                                .getAlgo(encryptInfo.getAlgoClass());
-
-                String encryptedValue = encryptInfo.getOriginalValue();
-                try {
-                    encryptedValue =
-                            algo.encrypt(encryptInfo.getOriginalValue());
-                } catch (Exception e) {
-                    if (algo.cryptoThrowable()) {
-                        throw e;
-                    }
-                    log.error("Failed to encrypt value: {}",
-                            encryptInfo.getOriginalValue(), e);
-                }
+                String encryptedValue = encryptValue(encryptInfo);
 
                 RestoreInfo restoreInfo = new RestoreInfo();
                 restoreInfo.setOriginalValue(encryptInfo.getOriginalValue());
@@ -431,7 +482,7 @@ public final class ParamUtil {
             }
 
             Map<String, Object> paramNameValuePairs =
-                    getParamNameValuePairs(wrapper);
+                    WrapperUtil.getParamNameValuePairs(wrapper);
             if (paramNameValuePairs == null) {
                 log.error("Unable to get QueryWrapper paramNameValuePairs");
                 return;
@@ -455,33 +506,6 @@ public final class ParamUtil {
         }
     }
 
-    /**
-     * Get QueryWrapper paramNameValuePairs
-     */
-    private static Map<String, Object> getParamNameValuePairs(Object wrapper) {
-        try {
-            Field paramField = ClazzUtil.findField(wrapper.getClass(),
-                    "paramNameValuePairs");
-            if (paramField != null) {
-                paramField.setAccessible(true);
-                return (Map<String, Object>) paramField.get(wrapper);
-            }
-
-            Method getterMethod = ClazzUtil.findMethod(wrapper.getClass(),
-                    "getParamNameValuePairs");
-            if (getterMethod != null) {
-                getterMethod.setAccessible(true);
-                return (Map<String, Object>) getterMethod.invoke(wrapper);
-            }
-
-            log.debug("Unable to get QueryWrapper paramNameValuePairs");
-            return null;
-        } catch (Exception e) {
-            throw new DataSecurityException("Failed to get QueryWrapper " +
-                    "paramNameValuePairs", e);
-        }
-    }
-
     /**
      * Restore original values
      */
@@ -540,7 +564,7 @@ public final class ParamUtil {
             }
 
             Map<String, Object> paramNameValuePairs =
-                    getParamNameValuePairs(wrapper);
+                    WrapperUtil.getParamNameValuePairs(wrapper);
             if (paramNameValuePairs == null) {
                 log.error("Unable to get QueryWrapper paramNameValuePairs for" +
                         " restoration");
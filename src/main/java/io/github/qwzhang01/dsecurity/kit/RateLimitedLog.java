@@ -0,0 +1,65 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logger front that writes at most one message per interval.
+ *
+ * <p>Messages arriving within the interval are only counted; the next
+ * message written reports how many were suppressed. Stack traces are only
+ * included when the logger is enabled for DEBUG, so a burst of identical
+ * failures costs a counter increment each instead of a stack trace.</p>
+ *
+ * @author avinzhang
+ */
+public final class RateLimitedLog {
+    private final Logger log;
+    private final Duration interval;
+    private final long intervalNanos;
+    private final AtomicLong nextNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Creates a rate-limited log.
+     *
+     * @param log      the underlying logger
+     * @param interval the minimum time between two messages
+     */
+    public RateLimitedLog(Logger log, Duration interval) {
+        this.log = log;
+        this.interval = interval;
+        this.intervalNanos = Math.max(0, interval.toNanos());
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Logs a warning unless one was logged within the interval.
+     *
+     * @param message the message
+     * @param error   the failure, logged with its stack trace at DEBUG
+     *                only, or null
+     */
+    public void warn(String message, Throwable error) {
+        long now = System.nanoTime();
+        long next = nextNanos.get();
+        if (now - next < 0 || !nextNanos.compareAndSet(next, now + intervalNanos)) {
+            suppressed.increment();
+            return;
+        }
+        long skipped = suppressed.sumThenReset();
+        if (error == null || log.isDebugEnabled()) {
+            log.warn("{} ({} similar messages suppressed)", message, skipped,
+                    error);
+        } else {
+            log.warn("{}: {} ({} similar messages suppressed)", message,
+                    error, skipped);
+        }
+    }
+}
@@ -8,6 +8,7 @@ package io.github.qwzhang01.dsecurity.kit;
  *   <li>String validation (empty checks)</li>
  *   <li>Naming convention conversions (camelCase ↔ snake_case)</li>
  *   <li>Parameter name extraction and cleanup</li>
+ *   <li>Skipping literals and comments when scanning SQL text</li>
  * </ul>
  *
  * <p><strong>Thread Safety:</strong> All methods are static and stateless,
@@ -192,4 +193,54 @@ public final class StringUtil {
         return sql.trim().replaceAll("`", "");
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the end of a string literal, quoted identifier or comment
+     * starting at an index, or the index itself if none starts there.
+     *
+     * <p>Used by the scanners that look for placeholders and keywords in
+     * SQL text, so these are not matched inside quotes or comments.
+     * Doubled quotes and, in string literals, backslashes escape the next
+     * character.</p>
+     *
+     * <p><strong>Examples:</strong></p>
+     * <pre>
+     * StringUtil.skipQuoted("a = 'it''s' AND b", 4)  = 11
+     * StringUtil.skipQuoted("a = `?` AND b", 4)      = 7
+     * StringUtil.skipQuoted("a = ?", 4)              = 4
+     * </pre>
+     *
+     * @param sql the SQL text
+     * @param i   the index to start at
+     * @return the index after the quoted part or comment, or {@code i}
+     */
+    public static int skipQuoted(String sql, int i) {
+        char c = sql.charAt(i);
+        if (c == '\'' || c == '"' || c == '`') {
+            int j = i + 1;
+            while (j < sql.length()) {
+                if (sql.charAt(j) == c) {
+                    // Doubled quote is an escaped quote
+                    if (j + 1 < sql.length() && sql.charAt(j + 1) == c) {
+                        j += 2;
+                        continue;
+                    }
+                    return j + 1;
+                }
+                if (c == '\'' && sql.charAt(j) == '\\') {
+                    j++;
+                }
+                j++;
+            }
+            return sql.length();
+        }
+        if (c == '-' && sql.startsWith("--", i)) {
+            int end = sql.indexOf('\n', i);
+            return end < 0 ? sql.length() : end;
+        }
+        if (c == '/' && sql.startsWith("/*", i)) {
+            int end = sql.indexOf("*/", i + 2);
+            return end < 0 ? sql.length() : end + 2;
+        }
+        return i;
+    }
+}
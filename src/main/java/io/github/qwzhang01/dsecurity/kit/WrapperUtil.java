@@ -0,0 +1,159 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access to MyBatis-Plus wrapper internals for parameter encryption.
+ *
+ * <p>{@link AbstractWrapper} subclasses, which include {@code QueryWrapper},
+ * {@code LambdaQueryWrapper} and the update wrappers, are read through
+ * their public API. Other wrapper types fall back to a method handle that
+ * is looked up once per class; classes without the member are remembered
+ * too.</p>
+ *
+ * <p>The mapping from {@code MPGENVAL} parameter names to columns only
+ * depends on the SQL segment text, which repeats for wrappers built the
+ * same way, so it is parsed once per distinct segment.</p>
+ *
+ * @author avinzhang
+ */
+public final class WrapperUtil {
+    private static final String PARAM_PREFIX = "MPGENVAL";
+
+    private static final Map<Class<?>, Optional<MethodHandle>> PAIRS_HANDLES =
+            new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<MethodHandle>> SEGMENT_HANDLES =
+            new ConcurrentHashMap<>();
+    private static final BoundedCache<String, Map<String, String>> MAPPINGS =
+            new BoundedCache<>(() -> DataSecurityProperties.current()
+                    .getSqlCache().getMaxSize());
+
+    private WrapperUtil() {
+        throw new UnsupportedOperationException("WrapperUtil is a utility " +
+                "class and cannot be instantiated");
+    }
+
+    /**
+     * Returns the parameter values of a wrapper by {@code MPGENVAL} name.
+     *
+     * @param wrapper the wrapper
+     * @return the live parameter map, or null if the wrapper has none
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> getParamNameValuePairs(Object wrapper) {
+        if (wrapper instanceof AbstractWrapper<?, ?, ?> abstractWrapper) {
+            return abstractWrapper.getParamNameValuePairs();
+        }
+        return (Map<String, Object>) invoke(wrapper, PAIRS_HANDLES
+                .computeIfAbsent(wrapper.getClass(), WrapperUtil::pairsHandle));
+    }
+
+    /**
+     * Returns the SQL segment of a wrapper.
+     *
+     * @param wrapper the wrapper
+     * @return the segment, or null if the wrapper has none
+     */
+    public static String getSqlSegment(Object wrapper) {
+        if (wrapper instanceof Wrapper<?> mpWrapper) {
+            return mpWrapper.getSqlSegment();
+        }
+        Object segment = invoke(wrapper, SEGMENT_HANDLES
+                .computeIfAbsent(wrapper.getClass(), WrapperUtil::segmentHandle));
+        return segment != null ? segment.toString() : null;
+    }
+
+    /**
+     * Maps the {@code MPGENVAL} parameter names of a SQL segment to the
+     * columns they are compared with.
+     *
+     * @param sqlSegment the wrapper SQL segment
+     * @return the columns by parameter name, never null
+     */
+    public static Map<String, String> getFieldParamMapping(String sqlSegment) {
+        if (StringUtil.isEmpty(sqlSegment)) {
+            return Collections.emptyMap();
+        }
+        return MAPPINGS.computeIfAbsent(sqlSegment, WrapperUtil::parseMapping);
+    }
+
+    private static Map<String, String> parseMapping(String sqlSegment) {
+        try {
+            Map<String, String> mapping = new HashMap<>();
+            List<SqlParam> params = ParserHelper.getSpecParam("select * from " +
+                    "dumpy_table where " + sqlSegment);
+            for (SqlParam param : params) {
+                if (param.getColumn() != null) {
+                    mapping.put(PARAM_PREFIX + param.getIndex(), param.getColumn());
+                }
+            }
+            return Map.copyOf(mapping);
+        } catch (Exception e) {
+            throw new DataSecurityException("Failed to parse field-parameter " +
+                    "mapping", e);
+        }
+    }
+
+    private static Object invoke(Object wrapper, Optional<MethodHandle> handle) {
+        if (handle.isEmpty()) {
+            return null;
+        }
+        try {
+            return handle.get().invoke(wrapper);
+        } catch (Throwable e) {
+            throw new DataSecurityException("Failed to read wrapper " +
+                    wrapper.getClass().getName(), e);
+        }
+    }
+
+    private static Optional<MethodHandle> pairsHandle(Class<?> type) {
+        try {
+            Field field = ClazzUtil.findField(type, "paramNameValuePairs");
+            if (field != null) {
+                field.setAccessible(true);
+                return Optional.of(MethodHandles.lookup().unreflectGetter(field));
+            }
+            return methodHandle(type, "getParamNameValuePairs");
+        } catch (Exception e) {
+            throw new DataSecurityException("Failed to get QueryWrapper " +
+                    "paramNameValuePairs", e);
+        }
+    }
+
+    private static Optional<MethodHandle> segmentHandle(Class<?> type) {
+        try {
+            Optional<MethodHandle> handle = methodHandle(type, "getSqlSegment");
+            return handle.isPresent() ? handle :
+                    methodHandle(type, "getCustomSqlSegment");
+        } catch (Exception e) {
+            throw new DataSecurityException("Failed to get QueryWrapper SQL " +
+                    "segment", e);
+        }
+    }
+
+    private static Optional<MethodHandle> methodHandle(Class<?> type, String name)
+            throws IllegalAccessException {
+        Method method = ClazzUtil.findMethod(type, name);
+        if (method == null) {
+            return Optional.empty();
+        }
+        method.setAccessible(true);
+        return Optional.of(MethodHandles.lookup().unreflect(method));
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+/**
+ * Data scope strategy whose fragments may be reused for a principal.
+ *
+ * <p>The result of {@link #join()} and {@link #where(java.util.List)}, or of
+ * {@link ParameterizedDataScopeStrategy#predicate(java.util.List)}, is
+ * cached per strategy, principal and right items for
+ * {@code seven.data-security.scope.cache-ttl}, so a request issuing many
+ * scoped queries computes its scope once. Use
+ * {@link io.github.qwzhang01.dsecurity.scope.cache.DataScopeCache} to
+ * invalidate results when permissions change.</p>
+ *
+ * @param <T> permission data type, typically permission ID or permission object
+ * @author avinzhang
+ */
+public interface CacheableDataScopeStrategy<T> extends DataScopeStrategy<T> {
+
+    /**
+     * Identifies whose scope is computed, e.g. the current user id. The
+     * fragments must only depend on the principal and the right items.
+     *
+     * @return the principal, or null to compute the fragments without
+     * caching
+     */
+    Object principal();
+}
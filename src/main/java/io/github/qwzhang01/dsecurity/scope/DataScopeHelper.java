@@ -26,6 +26,10 @@ import java.util.concurrent.Callable;
  *   <li>Support for both search and validation scenarios</li>
  * </ul>
  *
+ * <p>The context is bound to the calling thread; use
+ * {@link DataScopeSnapshot} to carry it to executors, parallel streams and
+ * Reactor schedulers.</p>
+ *
  * @author avinzhang
  */
 public class DataScopeHelper {
@@ -144,6 +148,26 @@ public class DataScopeHelper {
         }
     }
 
+    /**
+     * Returns the context of the current thread, for
+     * {@link DataScopeSnapshot}.
+     */
+    static Context<?> current() {
+        return CONTEXT.get();
+    }
+
+    /**
+     * Replaces the context of the current thread, for
+     * {@link DataScopeSnapshot}.
+     */
+    static void set(Context<?> context) {
+        if (context == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(context);
+        }
+    }
+
     /**
      * Data scope context information.
      */
@@ -0,0 +1,86 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Reactor integration of the data scope context.
+ *
+ * <p>Two ways are supported and may be combined:</p>
+ * <ul>
+ *   <li>{@link #install()} registers a schedule hook, so tasks submitted to
+ *   Reactor schedulers (e.g. after {@code subscribeOn}) run with the data
+ *   scope of the thread that scheduled them.</li>
+ *   <li>{@link #capture()} stores a snapshot in the subscriber
+ *   {@link Context}; {@link #fromCallable(Callable)} runs a blocking query
+ *   with the snapshot found there, whatever thread subscribes.</li>
+ * </ul>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>
+ * Mono.zip(DataScopeReactor.fromCallable(orderMapper::selectAll)
+ *                 .subscribeOn(Schedulers.boundedElastic()),
+ *         DataScopeReactor.fromCallable(invoiceMapper::selectAll)
+ *                 .subscribeOn(Schedulers.boundedElastic()))
+ *     .contextWrite(DataScopeReactor.capture());
+ * </pre>
+ *
+ * @author avinzhang
+ */
+public final class DataScopeReactor {
+    /**
+     * Key of the {@link DataScopeSnapshot} in a Reactor context, also the
+     * key of the schedule hook.
+     */
+    public static final String CONTEXT_KEY = DataScopeSnapshot.class.getName();
+
+    private DataScopeReactor() {
+    }
+
+    /**
+     * Propagates the data scope to all tasks scheduled on Reactor
+     * schedulers.
+     */
+    public static void install() {
+        Schedulers.onScheduleHook(CONTEXT_KEY,
+                task -> DataScopeSnapshot.capture().wrap(task));
+    }
+
+    /**
+     * Removes the schedule hook registered by {@link #install()}.
+     */
+    public static void uninstall() {
+        Schedulers.resetOnScheduleHook(CONTEXT_KEY);
+    }
+
+    /**
+     * Returns a context modifier storing the data scope of the current
+     * thread, for {@code contextWrite}.
+     *
+     * @return the modifier
+     */
+    public static Function<Context, Context> capture() {
+        DataScopeSnapshot snapshot = DataScopeSnapshot.capture();
+        return context -> context.put(CONTEXT_KEY, snapshot);
+    }
+
+    /**
+     * Creates a Mono running a blocking call with the data scope stored in
+     * the subscriber context, if any.
+     *
+     * @param callable the call, e.g. a mapper query
+     * @param <T>      the result type
+     * @return the Mono
+     */
+    public static <T> Mono<T> fromCallable(Callable<T> callable) {
+        return Mono.deferContextual(view -> {
+            DataScopeSnapshot snapshot = view.getOrDefault(CONTEXT_KEY,
+                    DataScopeSnapshot.capture());
+            return Mono.fromCallable(snapshot.wrap(callable));
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Data scope context captured on one thread to be applied on another.
+ *
+ * <p>{@link DataScopeHelper} keeps its context in a {@code ThreadLocal}, so
+ * queries run on a pool, a parallel stream or a Reactor scheduler are not
+ * scoped unless the context is carried over. A snapshot is captured on the
+ * submitting thread and attached around the task on the worker, then the
+ * worker's previous state is restored, so pooled threads never keep a
+ * scope after the task.</p>
+ *
+ * <p>The snapshot shares the captured context rather than copying it. The
+ * task must not outlive the scoped block it was forked from, as with any
+ * structured fan-out.</p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>
+ * DataScopeHelper.strategy(DeptScopeStrategy.class).execute(() -&gt; {
+ *     ExecutorService pool = DataScopeSnapshot.wrap(queryPool);
+ *     Future&lt;List&lt;Order&gt;&gt; orders = pool.submit(orderMapper::selectAll);
+ *     Future&lt;List&lt;Invoice&gt;&gt; invoices = pool.submit(invoiceMapper::selectAll);
+ *     return merge(orders.get(), invoices.get());
+ * });
+ * </pre>
+ *
+ * <p>Works the same on virtual threads: wrap
+ * {@code Executors.newVirtualThreadPerTaskExecutor()}, or attach a snapshot
+ * with try-with-resources in the thread body.</p>
+ *
+ * @author avinzhang
+ */
+public final class DataScopeSnapshot {
+    private static final DataScopeSnapshot EMPTY = new DataScopeSnapshot(null);
+
+    private final DataScopeHelper.Context<?> context;
+
+    private DataScopeSnapshot(DataScopeHelper.Context<?> context) {
+        this.context = context;
+    }
+
+    /**
+     * Captures the data scope of the current thread.
+     *
+     * @return the snapshot; attaching an empty snapshot clears the scope
+     */
+    public static DataScopeSnapshot capture() {
+        DataScopeHelper.Context<?> context = DataScopeHelper.current();
+        return context == null ? EMPTY : new DataScopeSnapshot(context);
+    }
+
+    /**
+     * Wraps an executor so that every task runs with the data scope of the
+     * thread that submitted it.
+     *
+     * @param executor the executor
+     * @return the wrapping executor
+     */
+    public static Executor wrap(Executor executor) {
+        return command -> executor.execute(capture().wrap(command));
+    }
+
+    /**
+     * Wraps an executor service so that every task runs with the data
+     * scope of the thread that submitted it.
+     *
+     * @param executor the executor service
+     * @return the wrapping executor service; shutting it down shuts down
+     * the delegate
+     */
+    public static ExecutorService wrap(ExecutorService executor) {
+        return new ScopedExecutorService(executor);
+    }
+
+    /**
+     * Checks whether the snapshot carries a data scope.
+     *
+     * @return true if a context was captured
+     */
+    public boolean isEmpty() {
+        return context == null;
+    }
+
+    /**
+     * Applies the snapshot to the current thread until the returned scope
+     * is closed.
+     *
+     * @return the scope restoring the thread's previous context on close
+     */
+    public Scope attach() {
+        DataScopeHelper.Context<?> previous = DataScopeHelper.current();
+        DataScopeHelper.set(context);
+        return new Scope(previous);
+    }
+
+    /**
+     * Wraps a task to run with this snapshot.
+     *
+     * @param task the task
+     * @return the wrapped task
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = attach()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Wraps a task to run with this snapshot.
+     *
+     * @param task the task
+     * @param <V>  the result type
+     * @return the wrapped task
+     */
+    public <V> Callable<V> wrap(Callable<V> task) {
+        return () -> {
+            try (Scope ignored = attach()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * Wraps a supplier to run with this snapshot, e.g. for
+     * {@code CompletableFuture.supplyAsync}. Named apart from
+     * {@link #wrap(Callable)} so that lambdas are not ambiguous.
+     *
+     * @param supplier the supplier
+     * @param <T>      the result type
+     * @return the wrapped supplier
+     */
+    public <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        return () -> {
+            try (Scope ignored = attach()) {
+                return supplier.get();
+            }
+        };
+    }
+
+    /**
+     * Attachment of a snapshot to a thread.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final DataScopeHelper.Context<?> previous;
+
+        private Scope(DataScopeHelper.Context<?> previous) {
+            this.previous = previous;
+        }
+
+        /**
+         * Restores the context the thread had before the snapshot was
+         * attached.
+         */
+        @Override
+        public void close() {
+            DataScopeHelper.set(previous);
+        }
+    }
+
+    private static final class ScopedExecutorService
+            extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        private ScopedExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            // submit and invokeAll funnel through here on the caller thread
+            delegate.execute(capture().wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import java.util.List;
+
+/**
+ * Data scope strategy whose fragments bind the rights as parameters.
+ *
+ * <p>{@link DataScopeStrategy#where(List)} bakes the rights into the SQL as
+ * literals, so each combination of rights produces another statement text
+ * and defeats prepared statement and plan caches. A parameterized strategy
+ * returns fragments with {@code ?} placeholders instead; the values are
+ * added to the statement's parameter mappings, and all users share one
+ * statement text per mapper method.</p>
+ *
+ * <p>Only the SQL fragments change: the rights checks of
+ * {@link #validDs(List)} and {@link #validDs(List, List)} remain up to each
+ * strategy.</p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>
+ * public class DeptScopeStrategy
+ *         implements ParameterizedDataScopeStrategy&lt;Long&gt; {
+ *     {@code @Override}
+ *     public ScopePredicate predicate(List&lt;String&gt; rightItems) {
+ *         return ScopePredicate.where(
+ *                 "dept_id IN (SELECT dept_id FROM user_dept WHERE user_id = ?)",
+ *                 CurrentUser.id());
+ *     }
+ *
+ *     {@code @Override}
+ *     public void validDs(List&lt;Long&gt; validRights) {
+ *         deptService.checkAccess(CurrentUser.id(), validRights);
+ *     }
+ *
+ *     {@code @Override}
+ *     public void validDs(List&lt;Long&gt; validRights,
+ *                         List&lt;Long&gt; withoutRights) {
+ *         deptService.checkAccess(CurrentUser.id(), validRights,
+ *                 withoutRights);
+ *     }
+ * }
+ * </pre>
+ *
+ * @param <T> permission data type, typically permission ID or permission object
+ * @author avinzhang
+ */
+public interface ParameterizedDataScopeStrategy<T> extends DataScopeStrategy<T> {
+
+    /**
+     * Data scope fragments and their bind values.
+     *
+     * @param rightItems the rights of the current context
+     * @return the predicate, {@link ScopePredicate#NONE} if no restriction
+     * applies
+     */
+    ScopePredicate predicate(List<String> rightItems);
+
+    /**
+     * Not used for parameterized strategies; see {@link #predicate(List)}.
+     *
+     * @return empty string
+     */
+    @Override
+    default String join() {
+        return "";
+    }
+
+    /**
+     * Not used for parameterized strategies; see {@link #predicate(List)}.
+     *
+     * @return empty string
+     */
+    @Override
+    default String where(List<String> rightItems) {
+        return "";
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Rights list bound as one SQL array parameter, e.g. for
+ * {@code dept_id = ANY(?)}.
+ *
+ * <p>The element type is taken from the values: integral numbers are bound
+ * as {@code BIGINT}, anything else as {@code VARCHAR}.</p>
+ *
+ * @author avinzhang
+ */
+public final class ScopeArray {
+    /**
+     * Binds a {@link ScopeArray} with
+     * {@link java.sql.Connection#createArrayOf(String, Object[])}.
+     */
+    public static final TypeHandler<ScopeArray> TYPE_HANDLER =
+            new ArrayTypeHandler();
+
+    private final String elementType;
+    private final Object[] values;
+
+    private ScopeArray(String elementType, Object[] values) {
+        this.elementType = elementType;
+        this.values = values;
+    }
+
+    /**
+     * Creates an array of rights.
+     *
+     * @param values the rights, not null
+     * @return the array
+     */
+    public static ScopeArray of(Collection<?> values) {
+        boolean integral = !values.isEmpty();
+        for (Object value : values) {
+            if (!(value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte)) {
+                integral = false;
+                break;
+            }
+        }
+        Object[] elements = integral ?
+                values.stream().map(v -> ((Number) v).longValue()).toArray() :
+                values.stream().map(String::valueOf).toArray();
+        return new ScopeArray(integral ? "BIGINT" : "VARCHAR", elements);
+    }
+
+    public String getElementType() {
+        return elementType;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Binds the values as an SQL array and reads SQL arrays back, so the
+     * handler also works if a statement selects the parameter.
+     */
+    private static final class ArrayTypeHandler
+            implements TypeHandler<ScopeArray> {
+
+        @Override
+        public void setParameter(PreparedStatement ps, int i,
+                                 ScopeArray parameter,
+                                 JdbcType jdbcType) throws SQLException {
+            if (parameter == null) {
+                ps.setNull(i, Types.ARRAY);
+                return;
+            }
+            Array array = ps.getConnection().createArrayOf(
+                    parameter.elementType, parameter.values);
+            ps.setArray(i, array);
+        }
+
+        @Override
+        public ScopeArray getResult(ResultSet rs, String columnName)
+                throws SQLException {
+            return toScopeArray(rs.getArray(columnName));
+        }
+
+        @Override
+        public ScopeArray getResult(ResultSet rs, int columnIndex)
+                throws SQLException {
+            return toScopeArray(rs.getArray(columnIndex));
+        }
+
+        @Override
+        public ScopeArray getResult(CallableStatement cs, int columnIndex)
+                throws SQLException {
+            return toScopeArray(cs.getArray(columnIndex));
+        }
+
+        private static ScopeArray toScopeArray(Array array) throws SQLException {
+            if (array == null) {
+                return null;
+            }
+            try {
+                return of(Arrays.asList((Object[]) array.getArray()));
+            } finally {
+                array.free();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data scope fragments with {@code ?} placeholders and their bind values.
+ *
+ * <p>Returned by {@link ParameterizedDataScopeStrategy}. The values are
+ * bound in placeholder order: first the placeholders of the JOIN fragment,
+ * then those of the WHERE fragment. Placeholders inside string literals,
+ * quoted identifiers and comments are not counted.</p>
+ *
+ * @param join       JOIN clause, or empty string if no join is needed
+ * @param where      WHERE condition, or empty string if no condition is
+ *                   needed
+ * @param parameters the bind values in placeholder order
+ * @author avinzhang
+ */
+public record ScopePredicate(String join, String where,
+                             List<Object> parameters) {
+
+    /**
+     * Predicate that adds nothing.
+     */
+    public static final ScopePredicate NONE = new ScopePredicate("", "",
+            List.of());
+
+    public ScopePredicate {
+        join = join == null ? "" : join;
+        where = where == null ? "" : where;
+        parameters = parameters == null ? List.of() :
+                Collections.unmodifiableList(new ArrayList<>(parameters));
+    }
+
+    /**
+     * Creates a predicate with a WHERE condition only.
+     *
+     * @param where      the condition
+     * @param parameters the bind values
+     * @return the predicate
+     */
+    public static ScopePredicate where(String where, Object... parameters) {
+        return new ScopePredicate("", where, Arrays.asList(parameters));
+    }
+
+    /**
+     * Creates a predicate with a JOIN clause and a WHERE condition.
+     *
+     * @param join       the JOIN clause
+     * @param where      the condition
+     * @param parameters the bind values, JOIN placeholders first
+     * @return the predicate
+     */
+    public static ScopePredicate of(String join, String where,
+                                    List<?> parameters) {
+        return new ScopePredicate(join, where,
+                parameters == null ? null : new ArrayList<>(parameters));
+    }
+
+    /**
+     * Creates a predicate restricting a column to a list of rights.
+     *
+     * <p>Up to {@code seven.data-security.scope.large-list-threshold}
+     * values, the list is bound as {@code column IN (?, ?, ...)}. Larger
+     * lists are bound according to
+     * {@code seven.data-security.scope.large-list-mode} with a single
+     * parameter, so the statement size does not grow with the list:</p>
+     * <ul>
+     *   <li>{@code ARRAY}: {@code column = ANY(?)} with a {@link ScopeArray}
+     *   (H2, PostgreSQL)</li>
+     *   <li>{@code JSON_TABLE}: {@code column IN (SELECT v FROM
+     *   JSON_TABLE(?, ...))} with a JSON array (MySQL 8)</li>
+     * </ul>
+     *
+     * @param column the column, qualified as needed
+     * @param values the rights; an empty list matches no row
+     * @return the predicate
+     */
+    public static ScopePredicate in(String column, Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return where("1 = 0");
+        }
+        DataSecurityProperties.Scope scope =
+                DataSecurityProperties.current().getScope();
+        if (values.size() <= scope.getLargeListThreshold()) {
+            return inList(column, values);
+        }
+        return switch (scope.getLargeListMode()) {
+            case ARRAY -> where(column + " = ANY(?)", ScopeArray.of(values));
+            case JSON_TABLE -> {
+                ScopeArray array = ScopeArray.of(values);
+                String type = "BIGINT".equals(array.getElementType()) ?
+                        "BIGINT" : "VARCHAR(255)";
+                yield where(column + " IN (SELECT scope_list.v FROM " +
+                        "JSON_TABLE(?, '$[*]' COLUMNS (v " + type +
+                        " PATH '$')) scope_list)", toJson(values));
+            }
+            case IN_LIST -> inList(column, values);
+        };
+    }
+
+    /**
+     * Checks whether the predicate adds neither a JOIN nor a condition.
+     *
+     * @return true if both fragments are blank
+     */
+    public boolean isEmpty() {
+        return join.isBlank() && where.isBlank();
+    }
+
+    private static ScopePredicate inList(String column, Collection<?> values) {
+        return where(column + " IN (" +
+                String.join(", ", Collections.nCopies(values.size(), "?")) +
+                ")", values.toArray());
+    }
+
+    /**
+     * Renders rights as a JSON array; integral numbers unquoted.
+     */
+    private static String toJson(Collection<?> values) {
+        StringBuilder json = new StringBuilder(values.size() * 8 + 2);
+        json.append('[');
+        for (Object value : values) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                json.append(value);
+                continue;
+            }
+            json.append('"');
+            String text = String.valueOf(value);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            json.append('"');
+        }
+        return json.append(']').toString();
+    }
+}
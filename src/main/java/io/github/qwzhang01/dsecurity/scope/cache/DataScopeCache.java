@@ -0,0 +1,190 @@
+package io.github.qwzhang01.dsecurity.scope.cache;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+import io.github.qwzhang01.dsecurity.scope.ScopePredicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of data scope fragments computed by
+ * {@link io.github.qwzhang01.dsecurity.scope.CacheableDataScopeStrategy}.
+ *
+ * <p>Entries are keyed by strategy class, principal and right items, expire
+ * after {@code seven.data-security.scope.cache-ttl} and are bounded by
+ * {@code seven.data-security.scope.cache-max-size}. Literal fragments are
+ * stored as a {@link ScopePredicate} without parameters. Both settings are
+ * read from the bound properties when entries are used and stored.</p>
+ *
+ * <p>Concurrent lookups of a missing entry wait for a single load. A load
+ * that overlaps an invalidation is returned to its callers but not cached,
+ * so fragments computed before a revocation never outlive it.</p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>
+ * // After the roles of a user changed
+ * DataScopeCache.getInstance().invalidate(DeptScopeStrategy.class, userId);
+ * </pre>
+ *
+ * @author avinzhang
+ */
+public final class DataScopeCache {
+    private final BoundedCache<Key, Entry> entries = new BoundedCache<>(() ->
+            DataSecurityProperties.current().getScope().getCacheMaxSize());
+    private final Map<Key, CompletableFuture<ScopePredicate>> loading =
+            new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private DataScopeCache() {
+    }
+
+    public static DataScopeCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the cached fragments, computing them if absent or expired.
+     *
+     * @param strategy   the strategy class
+     * @param principal  the principal
+     * @param rightItems the right items of the context
+     * @param loader     computes the fragments
+     * @return the fragments
+     */
+    public ScopePredicate get(Class<?> strategy, Object principal,
+                              List<String> rightItems,
+                              Supplier<ScopePredicate> loader) {
+        long ttlNanos = DataSecurityProperties.current().getScope()
+                .getCacheTtl().toNanos();
+        if (ttlNanos <= 0) {
+            return orNone(loader.get());
+        }
+        Key key = new Key(strategy, principal, rightItems == null ?
+                List.of() : Collections.unmodifiableList(
+                new ArrayList<>(rightItems)));
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.expiresAt() < 0) {
+            return entry.predicate();
+        }
+
+        CompletableFuture<ScopePredicate> load = new CompletableFuture<>();
+        CompletableFuture<ScopePredicate> running = loading.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        long stamp = generation.get();
+        try {
+            ScopePredicate predicate = orNone(loader.get());
+            entries.put(key, new Entry(predicate, System.nanoTime() + ttlNanos));
+            // An invalidation during the load may have run before the put
+            if (generation.get() != stamp) {
+                entries.invalidate(key);
+            }
+            load.complete(predicate);
+            return predicate;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    private static ScopePredicate orNone(ScopePredicate predicate) {
+        return predicate != null ? predicate : ScopePredicate.NONE;
+    }
+
+    /**
+     * Waits for the load of another thread, rethrowing its failure.
+     */
+    private static ScopePredicate await(CompletableFuture<ScopePredicate> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the cached fragments of a strategy.
+     *
+     * @param strategy the strategy class
+     */
+    public void invalidate(Class<?> strategy) {
+        invalidateIf(key -> key.strategy().equals(strategy));
+    }
+
+    /**
+     * Removes the cached fragments of a strategy for one principal.
+     *
+     * @param strategy  the strategy class
+     * @param principal the principal
+     */
+    public void invalidate(Class<?> strategy, Object principal) {
+        invalidateIf(key -> key.strategy().equals(strategy)
+                && Objects.equals(key.principal(), principal));
+    }
+
+    /**
+     * Removes the cached fragments of a principal for all strategies.
+     *
+     * @param principal the principal
+     */
+    public void invalidatePrincipal(Object principal) {
+        invalidateIf(key -> Objects.equals(key.principal(), principal));
+    }
+
+    /**
+     * Removes all cached fragments.
+     */
+    public void invalidateAll() {
+        invalidateIf(key -> true);
+    }
+
+    /**
+     * Removes matching entries and detaches running loads from them. The
+     * generation moves first, so loads still running skip or undo their
+     * put.
+     */
+    private void invalidateIf(Predicate<Key> condition) {
+        generation.incrementAndGet();
+        loading.keySet().removeIf(condition);
+        entries.invalidateIf(condition);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the cache.
+     *
+     * @return the statistics
+     */
+    public BoundedCache.Stats stats() {
+        return entries.stats();
+    }
+
+    private record Key(Class<?> strategy, Object principal,
+                       List<String> rightItems) {
+    }
+
+    private record Entry(ScopePredicate predicate, long expiresAt) {
+    }
+
+    private static final class Holder {
+        private static final DataScopeCache INSTANCE = new DataScopeCache();
+    }
+}
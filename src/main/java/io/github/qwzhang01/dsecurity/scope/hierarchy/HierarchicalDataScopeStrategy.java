@@ -0,0 +1,162 @@
+package io.github.qwzhang01.dsecurity.scope.hierarchy;
+
+import io.github.qwzhang01.dsecurity.kit.RateLimitedLog;
+import io.github.qwzhang01.dsecurity.scope.ParameterizedDataScopeStrategy;
+import io.github.qwzhang01.dsecurity.scope.ScopePredicate;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Data scope "my nodes and everything below them" over an organization
+ * tree.
+ *
+ * <p>Subclasses provide the current {@link OrgTreeIndex} and the subtree
+ * roots of the current user; the subtrees are resolved from the index
+ * instead of recursive queries. The predicate is either:</p>
+ * <ul>
+ *   <li>the set of node ids, {@code column IN (...)}, bound with
+ *   {@link ScopePredicate#in(String, Collection)} so large sets follow the
+ *   large-list settings; or</li>
+ *   <li>if {@link #rangeColumn()} is set, one
+ *   {@code rangeColumn BETWEEN ? AND ?} per merged interval, for tables
+ *   that store the pre-order number of {@link OrgTreeIndex#interval}.</li>
+ * </ul>
+ *
+ * <p><strong>The stored pre-order numbers go stale.</strong> Every
+ * {@link OrgTreeIndex#update} or rebuild renumbers the nodes after the
+ * changed one, so the range column must be rewritten from
+ * {@link OrgTreeIndex#interval} for every node after each rebuild, before
+ * the new index is used. Otherwise rows of other subtrees fall into the
+ * ranges. Override {@link #rangeNumbering()} to guard against this: when
+ * the stored numbering differs from the index, the strategy filters by
+ * node id instead and logs a warning.</p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>
+ * public class DeptTreeScopeStrategy
+ *         extends HierarchicalDataScopeStrategy&lt;Long&gt; {
+ *     {@code @Override}
+ *     protected OrgTreeIndex&lt;Long&gt; index() {
+ *         return deptTreeService.index();
+ *     }
+ *
+ *     {@code @Override}
+ *     protected Collection&lt;Long&gt; scopeRoots(List&lt;String&gt; rightItems) {
+ *         return CurrentUser.deptIds();
+ *     }
+ *
+ *     {@code @Override}
+ *     protected String column() {
+ *         return "dept_id";
+ *     }
+ *
+ *     {@code @Override}
+ *     public void validDs(List&lt;Long&gt; validRights) {
+ *         deptTreeService.checkWithin(CurrentUser.deptIds(), validRights);
+ *     }
+ *
+ *     {@code @Override}
+ *     public void validDs(List&lt;Long&gt; validRights,
+ *                         List&lt;Long&gt; withoutRights) {
+ *         deptTreeService.checkWithin(CurrentUser.deptIds(), validRights,
+ *                 withoutRights);
+ *     }
+ * }
+ * </pre>
+ *
+ * @param <K> the node id type
+ * @author avinzhang
+ */
+public abstract class HierarchicalDataScopeStrategy<K>
+        implements ParameterizedDataScopeStrategy<K> {
+    private static final RateLimitedLog STALE_LOG = new RateLimitedLog(
+            LoggerFactory.getLogger(HierarchicalDataScopeStrategy.class),
+            Duration.ofMinutes(1));
+
+    /**
+     * Returns the current index of the tree.
+     *
+     * @return the index
+     */
+    protected abstract OrgTreeIndex<K> index();
+
+    /**
+     * Returns the nodes whose subtrees are visible.
+     *
+     * @param rightItems the rights of the current context
+     * @return the subtree roots
+     */
+    protected abstract Collection<K> scopeRoots(List<String> rightItems);
+
+    /**
+     * Returns the column holding the node id of a row.
+     *
+     * @return the column, qualified as needed
+     */
+    protected abstract String column();
+
+    /**
+     * Returns the column holding the pre-order number of a row's node, if
+     * the schema stores it.
+     *
+     * @return the column, or null to filter by node id
+     */
+    protected String rangeColumn() {
+        return null;
+    }
+
+    /**
+     * Returns the {@link OrgTreeIndex#numbering()} of the index the range
+     * column was last written from.
+     *
+     * @return the fingerprint, or null to trust the stored numbers
+     */
+    protected Long rangeNumbering() {
+        return null;
+    }
+
+    @Override
+    public ScopePredicate predicate(List<String> rightItems) {
+        OrgTreeIndex<K> index = index();
+        Collection<K> roots = scopeRoots(rightItems);
+        String rangeColumn = rangeColumn();
+        if (rangeColumn != null && isStale(index)) {
+            rangeColumn = null;
+        }
+        if (rangeColumn == null) {
+            return ScopePredicate.in(column(), index.subtrees(roots));
+        }
+
+        List<OrgTreeIndex.Interval> intervals = index.intervals(roots);
+        if (intervals.isEmpty()) {
+            return ScopePredicate.where("1 = 0");
+        }
+        StringBuilder where = new StringBuilder("(");
+        List<Object> parameters = new ArrayList<>(intervals.size() * 2);
+        for (OrgTreeIndex.Interval interval : intervals) {
+            if (!parameters.isEmpty()) {
+                where.append(" OR ");
+            }
+            where.append(rangeColumn).append(" BETWEEN ? AND ?");
+            parameters.add(interval.lft());
+            parameters.add(interval.rgt());
+        }
+        return ScopePredicate.of("", where.append(')').toString(),
+                parameters);
+    }
+
+    private boolean isStale(OrgTreeIndex<K> index) {
+        Long stored = rangeNumbering();
+        if (stored == null || stored == index.numbering()) {
+            return false;
+        }
+        STALE_LOG.warn("Range column " + rangeColumn() + " of " +
+                getClass().getName() + " was written from another tree " +
+                "numbering, filtering by " + column(), null);
+        return true;
+    }
+}
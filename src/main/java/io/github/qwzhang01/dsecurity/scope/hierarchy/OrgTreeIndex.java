@@ -0,0 +1,308 @@
+package io.github.qwzhang01.dsecurity.scope.hierarchy;
+
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Immutable nested-interval index of an organization tree.
+ *
+ * <p>Nodes are numbered in depth-first pre-order, so the subtree of a node
+ * is the contiguous range from its own number to the number of its last
+ * descendant. A subtree lookup is a hash lookup plus a view of the
+ * pre-order list, and "is X under Y" is two integer comparisons, without
+ * recursive queries or loops over the tree.</p>
+ *
+ * <p>The numbers can also be stored in the org table and queried with
+ * {@code lft BETWEEN ? AND ?}; see {@link #interval(Object)}. They are
+ * positions, not ids: adding, moving or removing any node shifts the
+ * numbers of every node after it, so a stored column must be rewritten
+ * from the new index after each change. {@link #numbering()} tells whether
+ * two indexes number the tree alike.</p>
+ *
+ * <p>Nodes whose parent is null, themselves or unknown are roots. Changes
+ * are applied with {@link #update(Map, Collection)}, which returns a new
+ * index and leaves the current one usable by concurrent readers.</p>
+ *
+ * @param <K> the node id type
+ * @author avinzhang
+ */
+public final class OrgTreeIndex<K> {
+    private final Map<K, K> parents;
+    private final Map<K, Integer> positions;
+    private final List<K> order;
+    private final int[] ends;
+    private final long numbering;
+
+    private OrgTreeIndex(Map<K, K> parents, Map<K, Integer> positions,
+                         List<K> order, int[] ends) {
+        this.parents = parents;
+        this.positions = positions;
+        this.order = order;
+        this.ends = ends;
+        long hash = 1;
+        for (int i = 0; i < ends.length; i++) {
+            hash = 31 * hash + order.get(i).hashCode();
+            hash = 31 * hash + ends[i];
+        }
+        this.numbering = hash;
+    }
+
+    /**
+     * Builds an index from a node-to-parent map.
+     *
+     * @param parents the parent of each node, null for roots; children are
+     *                numbered in the map's iteration order
+     * @param <K>     the node id type
+     * @return the index
+     * @throws DataSecurityException if the parents form a cycle
+     */
+    public static <K> OrgTreeIndex<K> of(Map<K, K> parents) {
+        Map<K, K> copy = new LinkedHashMap<>(parents);
+        Map<K, List<K>> children = new HashMap<>();
+        List<K> roots = new ArrayList<>();
+        for (Map.Entry<K, K> entry : copy.entrySet()) {
+            K parent = entry.getValue();
+            if (parent == null || parent.equals(entry.getKey())
+                    || !copy.containsKey(parent)) {
+                roots.add(entry.getKey());
+            } else {
+                children.computeIfAbsent(parent, k -> new ArrayList<>())
+                        .add(entry.getKey());
+            }
+        }
+
+        int size = copy.size();
+        Map<K, Integer> positions = new HashMap<>(size * 4 / 3 + 1);
+        List<K> order = new ArrayList<>(size);
+        int[] ends = new int[size];
+        // Iterative depth-first walk: deep trees must not overflow the stack
+        Object[] stack = new Object[16];
+        int[] next = new int[16];
+        for (K root : roots) {
+            int depth = 0;
+            stack[0] = root;
+            next[0] = 0;
+            positions.put(root, order.size());
+            order.add(root);
+            while (depth >= 0) {
+                @SuppressWarnings("unchecked")
+                K node = (K) stack[depth];
+                List<K> kids = children.getOrDefault(node, List.of());
+                if (next[depth] < kids.size()) {
+                    K child = kids.get(next[depth]++);
+                    if (++depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                        next = Arrays.copyOf(next, depth * 2);
+                    }
+                    stack[depth] = child;
+                    next[depth] = 0;
+                    positions.put(child, order.size());
+                    order.add(child);
+                } else {
+                    ends[positions.get(node)] = order.size();
+                    depth--;
+                }
+            }
+        }
+        if (order.size() != size) {
+            for (K id : copy.keySet()) {
+                if (!positions.containsKey(id)) {
+                    throw new DataSecurityException("Org tree contains a " +
+                            "cycle at node " + id);
+                }
+            }
+        }
+        return new OrgTreeIndex<>(copy, positions,
+                Collections.unmodifiableList(order), ends);
+    }
+
+    /**
+     * Builds an index from node objects.
+     *
+     * @param nodes  the nodes
+     * @param id     returns the id of a node
+     * @param parent returns the parent id of a node, null for roots
+     * @param <T>    the node type
+     * @param <K>    the node id type
+     * @return the index
+     */
+    public static <T, K> OrgTreeIndex<K> of(Collection<? extends T> nodes,
+                                            Function<? super T, K> id,
+                                            Function<? super T, K> parent) {
+        Map<K, K> parents = new LinkedHashMap<>();
+        for (T node : nodes) {
+            parents.put(id.apply(node), parent.apply(node));
+        }
+        return of(parents);
+    }
+
+    /**
+     * Returns an index with nodes added, moved or removed.
+     *
+     * <p>Children of removed nodes become roots unless they are moved as
+     * well. The tree is renumbered in one linear pass.</p>
+     *
+     * @param upserts  new or moved nodes with their parent
+     * @param removals ids of removed nodes
+     * @return the new index
+     */
+    public OrgTreeIndex<K> update(Map<K, K> upserts, Collection<K> removals) {
+        Map<K, K> changed = new LinkedHashMap<>(parents);
+        if (removals != null) {
+            removals.forEach(changed::remove);
+        }
+        if (upserts != null) {
+            changed.putAll(upserts);
+        }
+        return of(changed);
+    }
+
+    /**
+     * Returns a fingerprint of the pre-order numbering.
+     *
+     * <p>Indexes that give every node the same interval have the same
+     * fingerprint. Record it when writing the numbers to the database and
+     * compare it with the current index before querying by them.</p>
+     *
+     * @return the fingerprint
+     */
+    public long numbering() {
+        return numbering;
+    }
+
+    public int size() {
+        return order.size();
+    }
+
+    public boolean contains(K id) {
+        return positions.containsKey(id);
+    }
+
+    /**
+     * Returns the parent of a node.
+     *
+     * @param id the node id
+     * @return the parent id, null for roots and unknown nodes
+     */
+    public K parent(K id) {
+        K parent = parents.get(id);
+        return parent != null && positions.containsKey(parent)
+                && !parent.equals(id) ? parent : null;
+    }
+
+    /**
+     * Returns the nested interval of a node: its own pre-order number
+     * (from 1) and that of its last descendant.
+     *
+     * @param id the node id
+     * @return the interval, null for unknown nodes
+     */
+    public Interval interval(K id) {
+        Integer position = positions.get(id);
+        return position == null ? null :
+                new Interval(position + 1, ends[position]);
+    }
+
+    /**
+     * Checks whether a node is an ancestor of, or the same as, another.
+     *
+     * @param ancestor the candidate ancestor
+     * @param id       the node
+     * @return true if {@code id} is in the subtree of {@code ancestor}
+     */
+    public boolean isDescendant(K ancestor, K id) {
+        Integer from = positions.get(ancestor);
+        Integer position = positions.get(id);
+        return from != null && position != null
+                && position >= from && position < ends[from];
+    }
+
+    /**
+     * Returns a node and all its descendants.
+     *
+     * @param id the node id
+     * @return the subtree in pre-order, empty for unknown nodes
+     */
+    public List<K> subtree(K id) {
+        Integer position = positions.get(id);
+        return position == null ? List.of() :
+                order.subList(position, ends[position]);
+    }
+
+    /**
+     * Returns the union of the subtrees of several nodes, each node once.
+     *
+     * @param ids the subtree roots
+     * @return the nodes in pre-order
+     */
+    public List<K> subtrees(Collection<K> ids) {
+        List<Interval> intervals = intervals(ids);
+        if (intervals.size() == 1) {
+            Interval interval = intervals.get(0);
+            return order.subList(interval.lft() - 1, interval.rgt());
+        }
+        List<K> nodes = new ArrayList<>();
+        for (Interval interval : intervals) {
+            nodes.addAll(order.subList(interval.lft() - 1, interval.rgt()));
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the intervals covering the subtrees of several nodes, with
+     * nested and adjacent intervals merged.
+     *
+     * @param ids the subtree roots; unknown ids are ignored
+     * @return the disjoint intervals in ascending order
+     */
+    public List<Interval> intervals(Collection<K> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        int[] starts = ids.stream().map(positions::get)
+                .filter(Objects::nonNull).mapToInt(Integer::intValue)
+                .sorted().toArray();
+        List<Interval> intervals = new ArrayList<>();
+        int from = -1;
+        int to = -1;
+        for (int start : starts) {
+            if (start <= to) {
+                // Nested in or adjacent to the current interval
+                to = Math.max(to, ends[start]);
+                continue;
+            }
+            if (from >= 0) {
+                intervals.add(new Interval(from + 1, to));
+            }
+            from = start;
+            to = ends[start];
+        }
+        if (from >= 0) {
+            intervals.add(new Interval(from + 1, to));
+        }
+        return intervals;
+    }
+
+    /**
+     * Nested interval of a subtree, both bounds inclusive.
+     *
+     * @param lft pre-order number of the subtree root, from 1
+     * @param rgt pre-order number of its last descendant
+     */
+    public record Interval(int lft, int rgt) {
+
+        public int size() {
+            return rgt - lft + 1;
+        }
+    }
+}
@@ -1,18 +1,32 @@
 package io.github.qwzhang01.dsecurity.scope.processor;
 
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.encrypt.context.StatementContext;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
 import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
 import io.github.qwzhang01.dsecurity.kit.StringUtil;
+import io.github.qwzhang01.dsecurity.scope.CacheableDataScopeStrategy;
 import io.github.qwzhang01.dsecurity.scope.DataScopeHelper;
 import io.github.qwzhang01.dsecurity.scope.DataScopeStrategy;
+import io.github.qwzhang01.dsecurity.scope.ParameterizedDataScopeStrategy;
+import io.github.qwzhang01.dsecurity.scope.ScopeArray;
+import io.github.qwzhang01.dsecurity.scope.ScopePredicate;
+import io.github.qwzhang01.dsecurity.scope.cache.DataScopeCache;
 import io.github.qwzhang01.dsecurity.scope.container.DataScopeStrategyContainer;
+import io.github.qwzhang01.dsecurity.sql.SqlShape;
 import io.github.qwzhang01.sql.tool.helper.ParserHelper;
-import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
-import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Data scope processor for SQL modification.
@@ -29,12 +43,28 @@ import java.lang.reflect.Field;
  *   <li>Automatic context cleanup after SQL execution</li>
  * </ul>
  *
+ * <p>The rewritten SQL is cached by original SQL, strategy and rendered
+ * JOIN/WHERE fragments, so users whose rights render the same fragments
+ * reuse the rewrite without parsing the statement again.</p>
+ *
+ * <p>A {@link ParameterizedDataScopeStrategy} returns its fragments with
+ * placeholders; the rights are bound as additional parameters of the
+ * {@link BoundSql}, so the statement text is the same for all users.</p>
+ *
+ * <p>Fragments of a {@link CacheableDataScopeStrategy} are computed once
+ * per principal and right items and reused from the {@link DataScopeCache}
+ * until they expire or are invalidated.</p>
+ *
  * @author avinzhang
  */
 public class DataScopeProcessor {
     private static final Logger log =
             LoggerFactory.getLogger(DataScopeProcessor.class);
 
+    private final BoundedCache<RewriteKey, ScopeBinding> rewrites =
+            new BoundedCache<>(() -> DataSecurityProperties.current()
+                    .getSqlCache().getMaxSize());
+
     private DataScopeProcessor() {
     }
 
@@ -43,18 +73,15 @@ public class DataScopeProcessor {
     }
 
     /**
-     * Applies data scope (permission control) by modifying the SQL.
+     * Applies data scope to the SQL of a statement being prepared.
      *
      * <p>This method injects additional WHERE clauses and JOINs into the SQL
      * based on the configured data scope strategy. It's used to implement
      * fine-grained data access control.</p>
      *
-     * @param invocation the method invocation containing SQL to modify
-     * @throws NoSuchFieldException   if the SQL field cannot be accessed
-     * @throws IllegalAccessException if field access is denied
+     * @param context the statement context
      */
-    public void apply(Invocation invocation) throws NoSuchFieldException,
-            IllegalAccessException {
+    public void apply(StatementContext context) {
         if (!Boolean.TRUE.equals(DataScopeHelper.isStarted())) {
             return;
         }
@@ -70,38 +97,192 @@ public class DataScopeProcessor {
         // Clean data scope info to avoid affecting other SQL statements
         DataScopeHelper.cache();
 
-        StatementHandler statementHandler =
-                (StatementHandler) invocation.getTarget();
-        BoundSql boundSql = statementHandler.getBoundSql();
+        try {
+            DataScopeStrategyContainer container =
+                    SpringContextUtil.getBean(DataScopeStrategyContainer.class);
+            DataScopeStrategy<?> obj = container.getStrategy(strategy);
+            List<String> rightItems = DataScopeHelper.getRightItems();
+            if (obj instanceof ParameterizedDataScopeStrategy<?> parameterized) {
+                applyParameterized(context, strategy, evaluate(strategy, obj,
+                        rightItems, () -> parameterized.predicate(rightItems)));
+            } else {
+                ScopePredicate fragments = evaluate(strategy, obj, rightItems,
+                        () -> new ScopePredicate(obj.join(),
+                                obj.where(rightItems), List.of()));
+                applyLiteral(context, strategy, fragments.join(),
+                        fragments.where());
+            }
+        } finally {
+            DataScopeHelper.restore();
+        }
+    }
+
+    /**
+     * Computes the fragments of a strategy, through the scope cache if the
+     * strategy is cacheable.
+     */
+    private static ScopePredicate evaluate(Class<?> strategy,
+                                           DataScopeStrategy<?> obj,
+                                           List<String> rightItems,
+                                           Supplier<ScopePredicate> loader) {
+        if (obj instanceof CacheableDataScopeStrategy<?> cacheable) {
+            Object principal = cacheable.principal();
+            if (principal != null) {
+                return DataScopeCache.getInstance().get(strategy, principal,
+                        rightItems, loader);
+            }
+        }
+        return loader.get();
+    }
+
+    /**
+     * Injects fragments with the rights written as literals.
+     */
+    private void applyLiteral(StatementContext context, Class<?> strategy,
+                              String join, String where) {
+        if (StringUtil.isEmpty(join) && StringUtil.isEmpty(where)) {
+            return;
+        }
+        log.info("data scope join:{}", join);
+        log.info("data scope where:{}", where);
+        // Get SQL as left by the previous processors
+        ScopeBinding binding = rewriteOf(context.getSql(), strategy, join,
+                where);
+        context.setSql(binding.sql());
+    }
+
+    /**
+     * Injects fragments with placeholders and binds their values.
+     *
+     * <p>The cache key only holds the fragments with numbered markers, so
+     * every user of the strategy shares the rewrite and the statement
+     * text.</p>
+     */
+    private void applyParameterized(StatementContext context,
+                                    Class<?> strategy,
+                                    ScopePredicate predicate) {
+        if (predicate == null || predicate.isEmpty()) {
+            return;
+        }
+        int joinParameters = ScopeBinding.count(predicate.join());
+        int whereParameters = ScopeBinding.count(predicate.where());
+        if (joinParameters + whereParameters != predicate.parameters().size()) {
+            throw new DataSecurityException("Data scope predicate has " +
+                    (joinParameters + whereParameters) + " placeholders " +
+                    "but " + predicate.parameters().size() + " parameters");
+        }
+        String join = ScopeBinding.mark(predicate.join(), 0);
+        String where = ScopeBinding.mark(predicate.where(), joinParameters);
+        log.debug("data scope join:{}", join);
+        log.debug("data scope where:{}", where);
+
+        ScopeBinding binding = rewriteOf(context.getSql(), strategy, join,
+                where);
+        if (!predicate.parameters().isEmpty()) {
+            bind(context, binding, predicate.parameters());
+        }
+        context.setSql(binding.sql());
+    }
+
+    /**
+     * Interleaves the scope parameters with the statement's own parameter
+     * mappings in the order of the rewritten placeholders.
+     */
+    private static void bind(StatementContext context, ScopeBinding binding,
+                             List<Object> parameters) {
+        List<ParameterMapping> statementMappings =
+                context.getParameterMappings();
+        if (binding.statementParameters() != statementMappings.size()) {
+            throw new DataSecurityException("Data scope rewrite has " +
+                    binding.statementParameters() + " statement placeholders" +
+                    " but the statement has " + statementMappings.size() +
+                    " parameter mappings");
+        }
+        BoundSql boundSql = context.getBoundSql();
+        Configuration configuration = PluginUtils.mpStatementHandler(
+                context.getStatementHandler()).mappedStatement()
+                .getConfiguration();
+        TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+
+        List<ParameterMapping> mappings =
+                new ArrayList<>(binding.slots().length);
+        int next = 0;
+        for (int slot : binding.slots()) {
+            if (slot < 0) {
+                mappings.add(statementMappings.get(next++));
+                continue;
+            }
+            String name = ScopeBinding.MARKER + slot;
+            Object value = parameters.get(slot);
+            if (value instanceof ScopeArray) {
+                mappings.add(new ParameterMapping.Builder(configuration, name,
+                        ScopeArray.TYPE_HANDLER).build());
+            } else {
+                // Unknown types are resolved from the value when binding
+                Class<?> javaType = value != null
+                        && registry.hasTypeHandler(value.getClass()) ?
+                        value.getClass() : Object.class;
+                mappings.add(new ParameterMapping.Builder(configuration, name,
+                        javaType).build());
+            }
+            boundSql.setAdditionalParameter(name, value);
+        }
+        context.setParameterMappings(mappings);
+    }
 
-        // Get original SQL
-        String originalSql = boundSql.getSql();
-        DataScopeStrategyContainer container =
-                SpringContextUtil.getBean(DataScopeStrategyContainer.class);
-        DataScopeStrategy<?> obj = container.getStrategy(strategy);
+    /**
+     * Returns the hit, miss and eviction counts of the rewrite cache.
+     *
+     * @return the statistics
+     */
+    public BoundedCache.Stats stats() {
+        return rewrites.stats();
+    }
 
-        String join = obj.join();
-        String where = obj.where(DataScopeHelper.getRightItems());
+    /**
+     * Returns the cached rewrite of a statement. Large statements are
+     * rewritten by their shape, so bulk IN lists of any length share one
+     * rewrite and only the lists are copied back per execution.
+     */
+    private ScopeBinding rewriteOf(String sql, Class<?> strategy, String join,
+                                   String where) {
+        if (SqlShape.isLarge(sql)) {
+            SqlShape shape = SqlShape.of(sql);
+            if (shape.hasLists()) {
+                return rewrites.computeIfAbsent(
+                        new RewriteKey(shape.template(), strategy, join, where),
+                        DataScopeProcessor::rewrite).restore(shape);
+            }
+        }
+        return rewrites.computeIfAbsent(
+                new RewriteKey(sql, strategy, join, where),
+                DataScopeProcessor::rewrite);
+    }
 
+    /**
+     * Injects the fragments of a key into its SQL.
+     */
+    private static ScopeBinding rewrite(RewriteKey key) {
+        String sql = key.sql().trim();
+        String join = key.join();
+        String where = key.where();
         if (!StringUtil.isEmpty(join) && !StringUtil.isEmpty(where)) {
-            log.info("data scope join:{}", join);
-            log.info("data scope where:{}", where);
-            originalSql = ParserHelper.addJoinAndWhere(originalSql.trim(),
-                    join.trim(), where.trim());
+            sql = ParserHelper.addJoinAndWhere(sql, join.trim(), where.trim());
         } else if (!StringUtil.isEmpty(join)) {
-            log.info("data scope join:{}", join);
-            originalSql = ParserHelper.addJoin(originalSql.trim(), join.trim());
-        } else if (!StringUtil.isEmpty(where)) {
-            log.info("data scope join:{}", where);
-            originalSql = ParserHelper.addWhere(originalSql.trim(),
-                    where.trim());
+            sql = ParserHelper.addJoin(sql, join.trim());
+        } else {
+            sql = ParserHelper.addWhere(sql, where.trim());
         }
+        return ScopeBinding.of(sql);
+    }
 
-        Field field = BoundSql.class.getDeclaredField("sql");
-        field.setAccessible(true);
-        field.set(boundSql, originalSql);
-
-        DataScopeHelper.restore();
+    /**
+     * Identifies a rewrite. The fragments are part of the key, so the
+     * rights they were rendered from only matter through their text;
+     * parameterized fragments only hold markers.
+     */
+    private record RewriteKey(String sql, Class<?> strategy, String join,
+                              String where) {
     }
 
     private static final class Holder {
@@ -0,0 +1,193 @@
+package io.github.qwzhang01.dsecurity.scope.processor;
+
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+import io.github.qwzhang01.dsecurity.sql.SqlShape;
+
+import java.util.Arrays;
+
+/**
+ * Placeholder layout of a statement rewritten with parameterized data scope
+ * fragments.
+ *
+ * <p>The placeholders of the fragments are replaced by numbered markers
+ * before the SQL is rewritten, because the parser may place the fragments
+ * before, between or after the statement's own placeholders. After the
+ * rewrite, the markers are turned back into {@code ?} and the resulting
+ * order of statement and scope parameters is recorded as slots: {@code -1}
+ * for the next parameter of the statement, {@code n >= 0} for the scope
+ * parameter {@code n}.</p>
+ *
+ * <p>String literals, quoted identifiers and comments are skipped when
+ * looking for placeholders and markers.</p>
+ *
+ * @param sql   the rewritten SQL with plain placeholders
+ * @param slots the origin of each placeholder in order
+ * @author avinzhang
+ */
+record ScopeBinding(String sql, int[] slots) {
+    /**
+     * Name of the scope parameter markers, also used as the name of the
+     * additional parameters they are bound from.
+     */
+    static final String MARKER = "dsScopeParam";
+
+    /**
+     * Replaces the placeholders of a fragment by numbered markers.
+     *
+     * @param fragment the fragment with {@code ?} placeholders
+     * @param first    the number of the first marker
+     * @return the fragment with {@code :dsScopeParam<n>} markers
+     */
+    static String mark(String fragment, int first) {
+        StringBuilder out = new StringBuilder(fragment.length() + 16);
+        int next = first;
+        int i = 0;
+        while (i < fragment.length()) {
+            int skip = StringUtil.skipQuoted(fragment, i);
+            if (skip > i) {
+                out.append(fragment, i, skip);
+                i = skip;
+            } else if (fragment.charAt(i) == '?') {
+                out.append(':').append(MARKER).append(next++);
+                i++;
+            } else {
+                out.append(fragment.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Counts the placeholders of a fragment.
+     *
+     * @param fragment the fragment
+     * @return the number of {@code ?} outside literals and comments
+     */
+    static int count(String fragment) {
+        int count = 0;
+        int i = 0;
+        while (i < fragment.length()) {
+            int skip = StringUtil.skipQuoted(fragment, i);
+            if (skip > i) {
+                i = skip;
+            } else if (fragment.charAt(i++) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resolves the markers of a rewritten statement.
+     *
+     * @param sql the rewritten SQL with placeholders and markers
+     * @return the SQL with plain placeholders and its slots
+     */
+    static ScopeBinding of(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int[] slots = new int[16];
+        int size = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            int skip = StringUtil.skipQuoted(sql, i);
+            if (skip > i) {
+                out.append(sql, i, skip);
+                i = skip;
+                continue;
+            }
+            char c = sql.charAt(i);
+            int slot;
+            if (c == '?') {
+                slot = -1;
+                i++;
+            } else if (c == ':' && sql.startsWith(MARKER, i + 1)) {
+                int end = i + 1 + MARKER.length();
+                int number = 0;
+                while (end < sql.length() && Character.isDigit(sql.charAt(end))) {
+                    number = number * 10 + (sql.charAt(end++) - '0');
+                }
+                slot = number;
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+                continue;
+            }
+            out.append('?');
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+        return new ScopeBinding(out.toString(), Arrays.copyOf(slots, size));
+    }
+
+    /**
+     * Puts the lists collapsed by a shape back into a binding rewritten
+     * from its template. The placeholders of the lists belong to the
+     * statement.
+     *
+     * @param shape the shape the template was taken from
+     * @return the binding of the full statement
+     */
+    ScopeBinding restore(SqlShape shape) {
+        StringBuilder out = new StringBuilder(sql.length() * 2);
+        int[] restored = new int[slots.length + 16];
+        int size = 0;
+        int next = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            int skip = StringUtil.skipQuoted(sql, i);
+            if (skip > i) {
+                out.append(sql, i, skip);
+                i = skip;
+                continue;
+            }
+            char c = sql.charAt(i);
+            int marker = SqlShape.markerAt(sql, i);
+            int count;
+            int slot;
+            if (c == '?') {
+                out.append('?');
+                count = 1;
+                slot = slots[next++];
+                i++;
+            } else if (marker >= 0 && marker < shape.segmentCount()) {
+                out.append(shape.segment(marker));
+                count = shape.segmentPlaceholders(marker);
+                slot = -1;
+                i += 1 + SqlShape.LIST_MARKER.length();
+                while (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            } else {
+                out.append(c);
+                i++;
+                continue;
+            }
+            if (size + count > restored.length) {
+                restored = Arrays.copyOf(restored,
+                        Math.max(restored.length * 2, size + count));
+            }
+            Arrays.fill(restored, size, size + count, slot);
+            size += count;
+        }
+        return new ScopeBinding(out.toString(), Arrays.copyOf(restored, size));
+    }
+
+    /**
+     * Returns the number of statement placeholders, i.e. slots of
+     * {@code -1}.
+     *
+     * @return the count
+     */
+    int statementParameters() {
+        int count = 0;
+        for (int slot : slots) {
+            if (slot < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.qwzhang01.dsecurity.sql;
+
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+
+import java.util.List;
+
+/**
+ * Immutable parse result of a SQL statement: the referenced tables and the
+ * columns bound to its parameters, in placeholder order.
+ *
+ * @param tables the referenced tables
+ * @param params the parameter columns
+ * @author avinzhang
+ */
+public record SqlAnalysis(List<SqlTable> tables, List<SqlParam> params) {
+
+    /**
+     * Analysis of statements that could not be parsed or reference no
+     * tables.
+     */
+    public static final SqlAnalysis EMPTY = new SqlAnalysis(List.of(),
+            List.of());
+
+    public SqlAnalysis {
+        tables = tables == null ? List.of() : List.copyOf(tables);
+        params = params == null ? List.of() : List.copyOf(params);
+    }
+
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+}
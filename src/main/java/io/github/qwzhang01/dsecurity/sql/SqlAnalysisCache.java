@@ -0,0 +1,94 @@
+package io.github.qwzhang01.dsecurity.sql;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Cache of {@link SqlAnalysis} results keyed by SQL text.
+ *
+ * <p>A mapper statement produces the same SQL text on every execution, so
+ * the tables and parameter columns are parsed once and then served from a
+ * size-bounded {@link BoundedCache}. Statements that fail to parse are
+ * cached as {@link SqlAnalysis#EMPTY} so they are not parsed again.</p>
+ *
+ * <p>Large statements are analyzed by their {@link SqlShape}: the collapsed
+ * statement is parsed and cached once for all sizes of a bulk statement,
+ * and its parameter columns are expanded to the placeholders of each
+ * execution in linear time. The full text of collapsed statements is not
+ * cached.</p>
+ *
+ * @author avinzhang
+ */
+public final class SqlAnalysisCache {
+    private static final Logger log =
+            LoggerFactory.getLogger(SqlAnalysisCache.class);
+
+    private final BoundedCache<String, SqlAnalysis> analyses =
+            new BoundedCache<>(() -> DataSecurityProperties.current()
+                    .getSqlCache().getMaxSize());
+
+    private SqlAnalysisCache() {
+    }
+
+    public static SqlAnalysisCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the analysis of a SQL statement, parsing it on first use.
+     *
+     * @param sql the SQL statement
+     * @return the analysis, never null
+     */
+    public SqlAnalysis get(String sql) {
+        if (sql == null) {
+            return SqlAnalysis.EMPTY;
+        }
+        if (SqlShape.isLarge(sql)) {
+            SqlShape shape = SqlShape.of(sql);
+            if (shape.isCollapsed()) {
+                // Cached by shape: every size of a bulk statement shares it
+                SqlAnalysis analysis = analyses.computeIfAbsent(
+                        shape.analysisSql(), SqlAnalysisCache::parse);
+                List<SqlParam> params = shape.expand(analysis.params());
+                if (params != null) {
+                    return new SqlAnalysis(analysis.tables(), params);
+                }
+            }
+        }
+        return analyses.computeIfAbsent(sql, SqlAnalysisCache::parse);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the cache.
+     *
+     * @return the statistics
+     */
+    public BoundedCache.Stats stats() {
+        return analyses.stats();
+    }
+
+    public void clear() {
+        analyses.clear();
+    }
+
+    private static SqlAnalysis parse(String sql) {
+        try {
+            return new SqlAnalysis(ParserHelper.getTables(sql),
+                    ParserHelper.getParam(sql));
+        } catch (Exception e) {
+            log.error("Failed to parse SQL: {}", sql, e);
+            return SqlAnalysis.EMPTY;
+        }
+    }
+
+    private static final class Holder {
+        private static final SqlAnalysisCache INSTANCE = new SqlAnalysisCache();
+    }
+}
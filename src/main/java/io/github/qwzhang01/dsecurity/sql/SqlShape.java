@@ -0,0 +1,479 @@
+package io.github.qwzhang01.dsecurity.sql;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape of a large SQL statement with its repeated parts collapsed.
+ *
+ * <p>Bulk statements owe their size to a few repeated constructs. A linear
+ * scan collapses them, so the parser only ever sees a small statement whose
+ * analysis or rewrite is shared by every size of the same bulk
+ * statement:</p>
+ * <ul>
+ *   <li>{@code IN} lists of placeholders or plain literals, e.g.
+ *   {@code id IN (?, ?, ?)}, become {@code id IN (?)} for analysis and
+ *   {@code id IN (:dsList0)} in the rewrite template;</li>
+ *   <li>identical {@code VALUES} rows, e.g. a multi-row INSERT, become one
+ *   row for analysis.</li>
+ * </ul>
+ *
+ * <p>{@link #expand(List)} maps the per-placeholder analysis of the
+ * collapsed statement back to the placeholders of the original, and
+ * {@link #restore(String)} puts the original lists back into a rewritten
+ * template. String literals, quoted identifiers and comments are copied
+ * unchanged.</p>
+ *
+ * @author avinzhang
+ */
+public final class SqlShape {
+    /**
+     * Name of the list markers in the rewrite template.
+     */
+    public static final String LIST_MARKER = "dsList";
+
+    private final String analysisSql;
+    private final String template;
+    private final List<String> segments;
+    private final List<Integer> segmentPlaceholders;
+    /**
+     * Collapsed placeholder runs: start in the analysis placeholders,
+     * placeholders per repetition and number of repetitions.
+     */
+    private final List<int[]> runs;
+    private final int analysisPlaceholders;
+    private final boolean collapsed;
+    private final String firstWord;
+
+    private SqlShape(String analysisSql, String template,
+                     List<String> segments, List<Integer> segmentPlaceholders,
+                     List<int[]> runs, int analysisPlaceholders,
+                     boolean collapsed, String firstWord) {
+        this.analysisSql = analysisSql;
+        this.template = template;
+        this.segments = segments;
+        this.segmentPlaceholders = segmentPlaceholders;
+        this.runs = runs;
+        this.analysisPlaceholders = analysisPlaceholders;
+        this.collapsed = collapsed;
+        this.firstWord = firstWord;
+    }
+
+    /**
+     * Checks whether a statement is long enough to take the shape path,
+     * see {@code seven.data-security.sql-cache.large-statement-length}.
+     *
+     * @param sql the statement
+     * @return true if the statement is large
+     */
+    public static boolean isLarge(String sql) {
+        return sql != null && sql.length() > DataSecurityProperties.current()
+                .getSqlCache().getLargeStatementLength();
+    }
+
+    /**
+     * Scans a statement and collapses its repeated parts.
+     *
+     * @param sql the statement
+     * @return the shape
+     */
+    public static SqlShape of(String sql) {
+        int n = sql.length();
+        StringBuilder analysis = new StringBuilder(Math.min(n, 4096));
+        StringBuilder template = new StringBuilder(Math.min(n, 4096));
+        List<String> segments = new ArrayList<>();
+        List<Integer> segmentPlaceholders = new ArrayList<>();
+        List<int[]> runs = new ArrayList<>();
+        int emitted = 0;
+        String lastWord = null;
+        String firstWord = null;
+        boolean collapsed = false;
+
+        int i = 0;
+        while (i < n) {
+            int skip = StringUtil.skipQuoted(sql, i);
+            if (skip > i) {
+                analysis.append(sql, i, skip);
+                template.append(sql, i, skip);
+                lastWord = null;
+                i = skip;
+                continue;
+            }
+            char c = sql.charAt(i);
+            if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < n && isWordChar(sql.charAt(end))) {
+                    end++;
+                }
+                lastWord = sql.substring(i, end);
+                if (firstWord == null) {
+                    firstWord = lastWord;
+                }
+                analysis.append(sql, i, end);
+                template.append(sql, i, end);
+                i = end;
+                continue;
+            }
+            if (c == '(' && "IN".equalsIgnoreCase(lastWord)) {
+                int[] list = matchList(sql, i);
+                // {end, items, placeholders, firstItemStart, firstItemEnd}
+                if (list != null && list[1] >= 2
+                        && (list[2] == 0 || list[2] == list[1])) {
+                    if (list[2] > 0) {
+                        runs.add(new int[]{emitted, 1, list[1]});
+                        emitted++;
+                        analysis.append("(?)");
+                    } else {
+                        analysis.append('(').append(sql, list[3], list[4])
+                                .append(')');
+                    }
+                    template.append("(:").append(LIST_MARKER)
+                            .append(segments.size()).append(')');
+                    segments.add(sql.substring(i + 1, list[0] - 1));
+                    segmentPlaceholders.add(list[2]);
+                    collapsed = true;
+                    lastWord = null;
+                    i = list[0];
+                    continue;
+                }
+            }
+            if (c == '(' && ("VALUES".equalsIgnoreCase(lastWord)
+                    || "VALUE".equalsIgnoreCase(lastWord))) {
+                int[] rows = matchRows(sql, i);
+                // {end of first row, end of last row, rows, placeholders}
+                if (rows != null && rows[2] >= 2) {
+                    analysis.append(sql, i, rows[0]);
+                    template.append(sql, i, rows[1]);
+                    if (rows[3] > 0) {
+                        runs.add(new int[]{emitted, rows[3], rows[2]});
+                        emitted += rows[3];
+                    }
+                    collapsed = true;
+                    lastWord = null;
+                    i = rows[1];
+                    continue;
+                }
+            }
+            if (c == '?') {
+                emitted++;
+            }
+            if (!Character.isWhitespace(c)) {
+                lastWord = null;
+            }
+            analysis.append(c);
+            template.append(c);
+            i++;
+        }
+        return new SqlShape(analysis.toString(), template.toString(),
+                segments, segmentPlaceholders, runs, emitted, collapsed,
+                firstWord);
+    }
+
+    /**
+     * Checks whether anything was collapsed.
+     *
+     * @return true if the analysis SQL differs from the statement
+     */
+    public boolean isCollapsed() {
+        return collapsed;
+    }
+
+    /**
+     * Checks whether the template has list markers.
+     *
+     * @return true if {@link #restore(String)} has lists to put back
+     */
+    public boolean hasLists() {
+        return !segments.isEmpty();
+    }
+
+    /**
+     * Checks whether the statement starts with {@code SELECT}.
+     *
+     * @return true for plain queries
+     */
+    public boolean isSelect() {
+        return "SELECT".equalsIgnoreCase(firstWord);
+    }
+
+    /**
+     * Returns the statement to analyze, with lists and rows collapsed.
+     *
+     * @return the analysis SQL
+     */
+    public String analysisSql() {
+        return analysisSql;
+    }
+
+    /**
+     * Returns the statement to rewrite, with lists replaced by markers.
+     *
+     * @return the template
+     */
+    public String template() {
+        return template;
+    }
+
+    /**
+     * Returns the number of collapsed lists.
+     *
+     * @return the count of {@code :dsList<n>} markers in the template
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Returns the original content of a collapsed list, without the
+     * parentheses.
+     *
+     * @param index the marker number
+     * @return the list content
+     */
+    public String segment(int index) {
+        return segments.get(index);
+    }
+
+    /**
+     * Returns the number of placeholders of a collapsed list.
+     *
+     * @param index the marker number
+     * @return the placeholder count
+     */
+    public int segmentPlaceholders(int index) {
+        return segmentPlaceholders.get(index);
+    }
+
+    /**
+     * Maps per-placeholder values of the analysis SQL to the placeholders
+     * of the statement, repeating the values of collapsed parts.
+     *
+     * @param values one value per placeholder of {@link #analysisSql()}
+     * @param <T>    the value type
+     * @return one value per placeholder of the statement, or null if the
+     * values do not match the analysis placeholders
+     */
+    public <T> List<T> expand(List<T> values) {
+        if (values.size() != analysisPlaceholders) {
+            return null;
+        }
+        List<T> expanded = new ArrayList<>();
+        int next = 0;
+        for (int[] run : runs) {
+            expanded.addAll(values.subList(next, run[0]));
+            List<T> group = values.subList(run[0], run[0] + run[1]);
+            for (int r = 0; r < run[2]; r++) {
+                expanded.addAll(group);
+            }
+            next = run[0] + run[1];
+        }
+        expanded.addAll(values.subList(next, values.size()));
+        return expanded;
+    }
+
+    /**
+     * Puts the original lists back into a rewritten template.
+     *
+     * @param rewritten the rewritten template
+     * @return the rewritten statement
+     */
+    public String restore(String rewritten) {
+        StringBuilder out = new StringBuilder(rewritten.length()
+                + segments.stream().mapToInt(String::length).sum());
+        int i = 0;
+        while (i < rewritten.length()) {
+            int skip = StringUtil.skipQuoted(rewritten, i);
+            if (skip > i) {
+                out.append(rewritten, i, skip);
+                i = skip;
+                continue;
+            }
+            int marker = markerAt(rewritten, i);
+            if (marker >= 0 && marker < segments.size()) {
+                int end = i + 1 + LIST_MARKER.length();
+                while (end < rewritten.length()
+                        && Character.isDigit(rewritten.charAt(end))) {
+                    end++;
+                }
+                out.append(segments.get(marker));
+                i = end;
+                continue;
+            }
+            out.append(rewritten.charAt(i++));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the number of the list marker at an index.
+     *
+     * @param sql the template
+     * @param i   the index
+     * @return the marker number, or -1 if no marker starts at the index
+     */
+    public static int markerAt(String sql, int i) {
+        if (sql.charAt(i) != ':' || !sql.startsWith(LIST_MARKER, i + 1)) {
+            return -1;
+        }
+        int end = i + 1 + LIST_MARKER.length();
+        int number = -1;
+        while (end < sql.length() && Character.isDigit(sql.charAt(end))) {
+            number = Math.max(number, 0) * 10 + (sql.charAt(end++) - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Matches a list of placeholders or literals starting at a parenthesis.
+     *
+     * @return {end, items, placeholders, firstItemStart, firstItemEnd}, or
+     * null if the list holds anything else
+     */
+    private static int[] matchList(String sql, int open) {
+        int n = sql.length();
+        int items = 0;
+        int placeholders = 0;
+        int firstStart = -1;
+        int firstEnd = -1;
+        int j = open + 1;
+        while (true) {
+            j = skipWhitespace(sql, j);
+            if (j >= n) {
+                return null;
+            }
+            int start = j;
+            char c = sql.charAt(j);
+            if (c == '?') {
+                placeholders++;
+                j++;
+            } else if (c == '\'') {
+                j = StringUtil.skipQuoted(sql, j);
+            } else if (Character.isDigit(c) || ((c == '-' || c == '+')
+                    && j + 1 < n && Character.isDigit(sql.charAt(j + 1)))) {
+                j++;
+                while (j < n && (Character.isDigit(sql.charAt(j))
+                        || sql.charAt(j) == '.')) {
+                    j++;
+                }
+            } else {
+                return null;
+            }
+            if (items++ == 0) {
+                firstStart = start;
+                firstEnd = j;
+            }
+            j = skipWhitespace(sql, j);
+            if (j >= n) {
+                return null;
+            }
+            if (sql.charAt(j) == ')') {
+                return new int[]{j + 1, items, placeholders, firstStart,
+                        firstEnd};
+            }
+            if (sql.charAt(j) != ',') {
+                return null;
+            }
+            j++;
+        }
+    }
+
+    /**
+     * Matches identical rows starting at a parenthesis.
+     *
+     * @return {end of first row, end of last row, rows, placeholders per
+     * row}, or null if the first row is unterminated
+     */
+    private static int[] matchRows(String sql, int open) {
+        int firstEnd = matchParen(sql, open);
+        if (firstEnd < 0) {
+            return null;
+        }
+        String row = compact(sql, open, firstEnd);
+        int rows = 1;
+        int end = firstEnd;
+        while (true) {
+            int comma = skipWhitespace(sql, end);
+            if (comma >= sql.length() || sql.charAt(comma) != ',') {
+                break;
+            }
+            int next = skipWhitespace(sql, comma + 1);
+            if (next >= sql.length() || sql.charAt(next) != '(') {
+                break;
+            }
+            int nextEnd = matchParen(sql, next);
+            if (nextEnd < 0 || !row.equals(compact(sql, next, nextEnd))) {
+                break;
+            }
+            rows++;
+            end = nextEnd;
+        }
+        return new int[]{firstEnd, end, rows,
+                countPlaceholders(sql, open, firstEnd)};
+    }
+
+    /**
+     * Returns the index after the parenthesis closing the one at an index,
+     * or -1.
+     */
+    private static int matchParen(String sql, int open) {
+        int depth = 0;
+        int i = open;
+        while (i < sql.length()) {
+            int skip = StringUtil.skipQuoted(sql, i);
+            if (skip > i) {
+                i = skip;
+                continue;
+            }
+            char c = sql.charAt(i++);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int countPlaceholders(String sql, int from, int to) {
+        int count = 0;
+        int i = from;
+        while (i < to) {
+            int skip = StringUtil.skipQuoted(sql, i);
+            if (skip > i) {
+                i = skip;
+            } else if (sql.charAt(i++) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a range of the statement without whitespace, to compare rows
+     * that only differ in formatting.
+     */
+    private static String compact(String sql, int from, int to) {
+        StringBuilder out = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = sql.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static int skipWhitespace(String sql, int i) {
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
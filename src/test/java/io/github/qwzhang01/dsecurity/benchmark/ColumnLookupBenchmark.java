@@ -0,0 +1,106 @@
+package io.github.qwzhang01.dsecurity.benchmark;
+
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptColumnIndex;
+import io.github.qwzhang01.dsecurity.encrypt.shield.DefaultEncryptionAlgo;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.StringUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH Benchmark for encrypted column lookups
+ * <p>
+ * Compares the former name-variant probing (three spellings, each with
+ * clearSqlTip and key concatenation) with a single probe of the canonical
+ * EncryptColumnIndex, for a hit by property name and for a miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ColumnLookupBenchmark {
+
+    private Map<String, Class<? extends EncryptionAlgo>> legacyColumns;
+    private EncryptColumnIndex index;
+
+    @Setup
+    public void setup() {
+        legacyColumns = new ConcurrentHashMap<>();
+        EncryptColumnIndex.Builder builder = EncryptColumnIndex.builder();
+        for (int t = 0; t < 50; t++) {
+            for (int c = 0; c < 4; c++) {
+                String table = "t_table_" + t;
+                String column = "encrypted_column_" + c;
+                legacyColumns.put(table + ":" + column,
+                        DefaultEncryptionAlgo.class);
+                builder.add(table, column, DefaultEncryptionAlgo.class);
+            }
+        }
+        index = builder.build();
+    }
+
+    @Benchmark
+    public void legacyProbeHit(Blackhole bh) {
+        bh.consume(legacyProbe("t_table_7", "encryptedColumn2"));
+    }
+
+    @Benchmark
+    public void legacyProbeMiss(Blackhole bh) {
+        bh.consume(legacyProbe("t_table_7", "createTime"));
+    }
+
+    @Benchmark
+    public void indexHit(Blackhole bh) {
+        bh.consume(index.get("t_table_7", "encryptedColumn2"));
+    }
+
+    @Benchmark
+    public void indexMiss(Blackhole bh) {
+        bh.consume(index.get("t_table_7", "createTime"));
+    }
+
+    /**
+     * The lookup FieldMatchUtil performed before the canonical index.
+     */
+    private Class<? extends EncryptionAlgo> legacyProbe(String table,
+                                                        String field) {
+        String[] variants = {
+                field,
+                StringUtil.camelToUnderscore(field),
+                StringUtil.underscoreToCamel(field)
+        };
+        for (String variant : variants) {
+            String key = StringUtil.clearSqlTip(table) + ":"
+                    + StringUtil.clearSqlTip(variant);
+            if (legacyColumns.containsKey(key)) {
+                return legacyColumns.get(StringUtil.clearSqlTip(table) + ":"
+                        + StringUtil.clearSqlTip(variant));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Main method to run benchmarks directly
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ColumnLookupBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/column-lookup-benchmark-results.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
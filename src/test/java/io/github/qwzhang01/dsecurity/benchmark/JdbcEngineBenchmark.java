@@ -0,0 +1,193 @@
+package io.github.qwzhang01.dsecurity.benchmark;
+
+import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptionAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.processor.DecryptProcessor;
+import io.github.qwzhang01.dsecurity.encrypt.shield.DefaultEncryptionAlgo;
+import io.github.qwzhang01.dsecurity.jdbc.EncryptDataSource;
+import io.github.qwzhang01.dsecurity.jdbc.JdbcEncryptPlan;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.StaticApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH Benchmark comparing the JDBC encryption engine with the MyBatis
+ * interceptor path
+ * <p>
+ * Both paths read 1000 rows of (id, phone) from an in-memory result set and
+ * fill an entity per row. The interceptor path decrypts the entity list
+ * afterwards through DecryptProcessor, the JDBC path decrypts inside
+ * ResultSet.getString. The raw variants show the cost of the stub driver
+ * alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JdbcEngineBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final String SQL = "SELECT id, phone FROM t_user WHERE phone = ?";
+
+    private String[] ciphertexts;
+    private DataSource rawDataSource;
+    private DataSource encryptDataSource;
+
+    @Setup
+    public void setup() {
+        DefaultEncryptionAlgo algo = new DefaultEncryptionAlgo();
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("encryptAlgoContainer",
+                new EncryptionAlgoContainer(algo));
+        context.refresh();
+        new SpringContextUtil().setApplicationContext(context);
+
+        ciphertexts = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            ciphertexts[i] = algo.encrypt("1380013" + String.format("%04d", i));
+        }
+
+        rawDataSource = stubDataSource();
+        JdbcEncryptPlan plan = JdbcEncryptPlan.of(Map.of(1, algo),
+                Map.of("phone", algo));
+        encryptDataSource = new EncryptDataSource(rawDataSource, sql -> plan);
+    }
+
+    // ============ Read path ============
+
+    @Benchmark
+    public void rawRead(Blackhole bh) throws SQLException {
+        bh.consume(read(rawDataSource));
+    }
+
+    @Benchmark
+    public void interceptorRead(Blackhole bh) throws SQLException {
+        List<User> users = read(rawDataSource);
+        DecryptProcessor.getInstance().decryptList(users);
+        bh.consume(users);
+    }
+
+    @Benchmark
+    public void jdbcEngineRead(Blackhole bh) throws SQLException {
+        bh.consume(read(encryptDataSource));
+    }
+
+    // ============ Bind path ============
+
+    @Benchmark
+    public void rawBind(Blackhole bh) throws SQLException {
+        bind(rawDataSource, bh);
+    }
+
+    @Benchmark
+    public void jdbcEngineBind(Blackhole bh) throws SQLException {
+        bind(encryptDataSource, bh);
+    }
+
+    private List<User> read(DataSource dataSource) throws SQLException {
+        List<User> users = new ArrayList<>(ROWS);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                User user = new User();
+                user.id = resultSet.getLong(1);
+                user.phone = resultSet.getString(2);
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private void bind(DataSource dataSource, Blackhole bh) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
+            statement.setString(1, "13800138000");
+            bh.consume(statement);
+        }
+    }
+
+    /**
+     * A driver-less data source whose result sets return ROWS rows.
+     */
+    private DataSource stubDataSource() {
+        ResultSetMetaData metaData = stub(ResultSetMetaData.class, (method, args) ->
+                switch (method) {
+                    case "getColumnCount" -> 2;
+                    case "getColumnLabel" -> (Integer) args[0] == 1 ? "id" : "phone";
+                    default -> null;
+                });
+        PreparedStatement statement = stub(PreparedStatement.class, (method, args) -> {
+            if ("executeQuery".equals(method)) {
+                int[] row = {-1};
+                return stub(ResultSet.class, (rsMethod, rsArgs) -> switch (rsMethod) {
+                    case "next" -> ++row[0] < ROWS;
+                    case "getLong" -> (long) row[0];
+                    case "getString" -> ciphertexts[row[0]];
+                    case "getMetaData" -> metaData;
+                    default -> null;
+                });
+            }
+            return null;
+        });
+        Connection connection = stub(Connection.class, (method, args) ->
+                "prepareStatement".equals(method) ? statement : null);
+        return stub(DataSource.class, (method, args) ->
+                "getConnection".equals(method) ? connection : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, StubBehavior behavior) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> {
+                    Object result = behavior.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return result;
+                });
+    }
+
+    private interface StubBehavior {
+        Object invoke(String method, Object[] args);
+    }
+
+    public static class User {
+        private long id;
+        @EncryptField
+        private String phone;
+    }
+
+    /**
+     * Main method to run benchmarks directly
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JdbcEngineBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jdbc-engine-benchmark-results.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
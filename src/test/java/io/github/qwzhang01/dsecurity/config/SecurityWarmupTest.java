@@ -0,0 +1,84 @@
+package io.github.qwzhang01.dsecurity.config;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SecurityWarmup
+ */
+@DisplayName("SecurityWarmup Tests")
+class SecurityWarmupTest {
+
+    private SecurityWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        Configuration configuration = new Configuration();
+        add(configuration, "test.UserMapper.selectById",
+                new StaticSqlSource(configuration,
+                        "SELECT id, name FROM users WHERE id = ?"));
+        add(configuration, "test.UserMapper.selectByIds", parameter -> {
+            throw new AssertionError("dynamic SQL must not be bound");
+        });
+        warmup = new SecurityWarmup(
+                List.of(new DefaultSqlSessionFactory(configuration)));
+    }
+
+    @Test
+    @DisplayName("should prepare static statements and skip dynamic ones")
+    void shouldWarmStaticStatements() {
+        SecurityWarmup.Result result = warmup.run(Duration.ofSeconds(30));
+
+        assertEquals(2, result.statements());
+        assertEquals(1, result.analyzed());
+        assertEquals(1, result.skipped());
+        assertEquals(0, result.failed());
+        assertEquals(1, result.types());
+        assertFalse(result.timedOut());
+    }
+
+    @Test
+    @DisplayName("should stop when the timeout is reached")
+    void shouldStopAtTimeout() {
+        SecurityWarmup.Result result = warmup.run(Duration.ZERO);
+
+        assertTrue(result.timedOut());
+        assertEquals(0, result.statements());
+    }
+
+    private static void add(Configuration configuration, String id,
+                            SqlSource sqlSource) {
+        ResultMap resultMap = new ResultMap.Builder(configuration,
+                id + "-Inline", User.class, new ArrayList<>()).build();
+        configuration.addMappedStatement(new MappedStatement.Builder(
+                configuration, id, sqlSource, SqlCommandType.SELECT)
+                .resultMaps(List.of(resultMap))
+                .build());
+    }
+
+    static class User {
+        private Long id;
+        private String name;
+        private List<Address> addresses;
+    }
+
+    static class Address {
+        private String street;
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.qwzhang01.dsecurity.encrypt.cache;
+
+import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptionAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.ClazzUtil;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EncryptedCache
+ */
+@DisplayName("EncryptedCache Tests")
+class EncryptedCacheTest {
+
+    private EncryptedCache cache;
+
+    @BeforeEach
+    void setUp() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("encryptAlgoContainer",
+                new EncryptionAlgoContainer(new ReverseAlgo()));
+        context.refresh();
+        new SpringContextUtil().setApplicationContext(context);
+
+        cache = new EncryptedCache("test");
+    }
+
+    @Test
+    @DisplayName("should store ciphertext and return decrypted copies")
+    void shouldKeepCiphertextAtRest() {
+        List<User> users = new ArrayList<>(List.of(new User("13800138000")));
+        cache.putObject("key", users);
+
+        assertEquals("13800138000", users.get(0).phone,
+                "caller objects must not be modified");
+
+        byte[] stored = (byte[]) cache.removeObject("key");
+        List<User> atRest = ClazzUtil.deserialize(stored);
+        assertEquals("00083100831", atRest.get(0).phone);
+
+        cache.putObject("key", users);
+        @SuppressWarnings("unchecked")
+        List<User> hit = (List<User>) cache.getObject("key");
+        assertEquals("13800138000", hit.get(0).phone);
+        assertNotSame(users.get(0), hit.get(0));
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used entry")
+    void shouldEvictWhenFull() {
+        cache.setSize(2);
+        cache.putObject("a", new ArrayList<>(List.of(new User("1"))));
+        cache.putObject("b", new ArrayList<>(List.of(new User("2"))));
+        cache.getObject("a");
+        cache.putObject("c", new ArrayList<>(List.of(new User("3"))));
+
+        assertEquals(2, cache.getSize());
+        assertNotNull(cache.getObject("a"));
+        assertNull(cache.getObject("b"));
+    }
+
+    @Test
+    @DisplayName("should not cache map rows")
+    void shouldSkipMapRows() {
+        cache.putObject("key", new ArrayList<>(List.of(Map.of("phone", "1"))));
+
+        assertNull(cache.getObject("key"));
+    }
+
+    static class User implements Serializable {
+        @EncryptField
+        private String phone;
+
+        User(String phone) {
+            this.phone = phone;
+        }
+    }
+
+    private static final class ReverseAlgo implements EncryptionAlgo {
+        @Override
+        public String encrypt(String value) {
+            return new StringBuilder(value).reverse().toString();
+        }
+
+        @Override
+        public String decrypt(String value) {
+            return new StringBuilder(value).reverse().toString();
+        }
+    }
+}
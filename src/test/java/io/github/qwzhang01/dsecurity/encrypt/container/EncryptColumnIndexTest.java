@@ -0,0 +1,85 @@
+package io.github.qwzhang01.dsecurity.encrypt.container;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.DefaultEncryptionAlgo;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EncryptColumnIndex
+ */
+@DisplayName("EncryptColumnIndex Tests")
+class EncryptColumnIndexTest {
+
+    private final EncryptColumnIndex index = EncryptColumnIndex.builder()
+            .add("t_user", "phone_number", DefaultEncryptionAlgo.class)
+            .add("`t_order`", "idCard", EncryptionAlgo.class)
+            .build();
+
+    @ParameterizedTest
+    @DisplayName("should resolve every accepted spelling")
+    @CsvSource({
+            "t_user, phone_number",
+            "t_user, phoneNumber",
+            "T_USER, PHONE_NUMBER",
+            "`t_user`, `phone_number`",
+            "' t_user ', ' phoneNumber '"
+    })
+    void shouldResolveSpellings(String table, String column) {
+        assertEquals(DefaultEncryptionAlgo.class, index.get(table, column));
+    }
+
+    @Test
+    @DisplayName("should strip backticks from registered names")
+    void shouldNormalizeRegisteredNames() {
+        assertEquals(EncryptionAlgo.class, index.get("t_order", "id_card"));
+    }
+
+    @Test
+    @DisplayName("should keep underscores significant in table names")
+    void shouldNotFoldTableUnderscores() {
+        assertNull(index.get("tuser", "phone_number"));
+    }
+
+    @Test
+    @DisplayName("should keep names that differ in underscores apart")
+    void shouldNotFoldColumnUnderscores() {
+        EncryptColumnIndex columns = EncryptColumnIndex.builder()
+                .add("t_user", "phone_no", DefaultEncryptionAlgo.class)
+                .add("t_user", "phoneno", EncryptionAlgo.class)
+                .add("t_user", "id_card", DefaultEncryptionAlgo.class)
+                .build();
+
+        assertEquals(3, columns.size());
+        assertEquals(DefaultEncryptionAlgo.class, columns.get("t_user", "phoneNo"));
+        assertEquals(EncryptionAlgo.class, columns.get("t_user", "PHONENO"));
+        assertNull(columns.get("t_user", "idcard"));
+        assertNull(index.get("t_user", "phonenumber"));
+    }
+
+    @Test
+    @DisplayName("should keep the first registration of a column")
+    void shouldKeepFirstRegistration() {
+        EncryptColumnIndex columns = EncryptColumnIndex.builder()
+                .add("t_user", "idCard", DefaultEncryptionAlgo.class)
+                .add("T_USER", "id_card", EncryptionAlgo.class)
+                .build();
+
+        assertEquals(1, columns.size());
+        assertEquals(DefaultEncryptionAlgo.class, columns.get("t_user", "id_card"));
+    }
+
+    @Test
+    @DisplayName("should miss unknown columns and null input")
+    void shouldMissUnknown() {
+        assertNull(index.get("t_user", "email"));
+        assertNull(index.get("t_user", "phone_numbers"));
+        assertNull(index.get(null, "phone_number"));
+        assertNull(EncryptColumnIndex.EMPTY.get("t_user", "phone_number"));
+        assertEquals(2, index.size());
+    }
+}
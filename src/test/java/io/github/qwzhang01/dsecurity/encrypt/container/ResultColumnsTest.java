@@ -0,0 +1,65 @@
+package io.github.qwzhang01.dsecurity.encrypt.container;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysisCache;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ResultColumns
+ */
+@DisplayName("ResultColumns Tests")
+class ResultColumnsTest {
+
+    private EncryptFieldTableContainer container;
+
+    @BeforeEach
+    void setUp() {
+        SecurityFixture.install();
+        container = SpringContextUtil.getBean(EncryptFieldTableContainer.class);
+    }
+
+    @Test
+    @DisplayName("should label columns by alias and skip expressions")
+    void shouldResolveAliases() {
+        assertEquals(Set.of("mobile", "card"), labels("SELECT DISTINCT " +
+                "u.phone AS mobile, `id_card` `card`, name, " +
+                "concat(phone, ', from') AS phone FROM t_user u"));
+    }
+
+    @Test
+    @DisplayName("should expand star items of the qualified table only")
+    void shouldExpandStars() {
+        assertEquals(Set.of("receiver_phone", "receiverphone"),
+                labels("SELECT u.id, o.* FROM t_user u " +
+                        "JOIN t_order o ON o.user_id = u.id"));
+        assertEquals(Set.of("phone", "id_card", "idcard", "receiver_phone",
+                "receiverphone"), labels("SELECT * FROM t_user u " +
+                "JOIN t_order o ON o.user_id = u.id"));
+    }
+
+    @Test
+    @DisplayName("should fall back to table columns for derived tables")
+    void shouldFallBackForSubqueries() {
+        assertEquals(Set.of("phone", "id_card", "idcard"), labels(
+                "SELECT * FROM (SELECT phone, id_card FROM t_user) x"));
+        assertEquals(Set.of("id_card", "idcard", "contact"), labels(
+                "SELECT x.phone AS contact, x.id_card, x.name AS phone " +
+                        "FROM (SELECT * FROM t_user) x"));
+    }
+
+    private Set<String> labels(String sql) {
+        Map<String, Class<? extends EncryptionAlgo>> columns = ResultColumns.of(
+                sql, SqlAnalysisCache.getInstance().get(sql).tables(),
+                container);
+        return columns.keySet();
+    }
+}
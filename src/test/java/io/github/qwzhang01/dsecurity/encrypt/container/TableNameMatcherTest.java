@@ -0,0 +1,53 @@
+package io.github.qwzhang01.dsecurity.encrypt.container;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for TableNameMatcher
+ */
+@DisplayName("TableNameMatcher Tests")
+class TableNameMatcherTest {
+
+    private final TableNameMatcher matcher =
+            TableNameMatcher.of(List.of("`user`", "db.customer_info", "he"));
+
+    @ParameterizedTest
+    @DisplayName("should find table names as whole identifiers")
+    @ValueSource(strings = {
+            "SELECT * FROM user WHERE id = ?",
+            "select * from `USER` u",
+            "update shop.Customer_Info set phone = ?",
+            "select * from orders o join \"customer_info\" c on o.cid = c.id",
+            "delete from he"
+    })
+    void shouldMatchTables(String sql) {
+        assertTrue(matcher.matches(sql));
+    }
+
+    @ParameterizedTest
+    @DisplayName("should ignore names embedded in other identifiers")
+    @ValueSource(strings = {
+            "select * from user_role where id = ?",
+            "select * from sys_user",
+            "select the, hello from orders",
+            "select * from customer_information"
+    })
+    void shouldNotMatchEmbeddedNames(String sql) {
+        assertFalse(matcher.matches(sql));
+    }
+
+    @Test
+    @DisplayName("should match nothing without names and everything with non-ASCII names")
+    void shouldHandleEdgeCases() {
+        assertFalse(TableNameMatcher.EMPTY.matches("select * from user"));
+        assertTrue(TableNameMatcher.of(List.of("用户")).matches("select 1"));
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BatchEncryptingStatement
+ */
+@DisplayName("BatchEncryptingStatement Tests")
+class BatchEncryptingStatementTest {
+
+    @Test
+    @DisplayName("should encrypt buffered rows when the batch is executed")
+    void shouldEncryptRowsOnExecute() throws Exception {
+        List<Map<Integer, Object>> batches = new ArrayList<>();
+        CountingAlgo algo = new CountingAlgo();
+        PreparedStatement ps = (PreparedStatement) BatchEncryptingStatement.wrap(
+                recording(batches), new EncryptionAlgo[]{null, null, algo});
+
+        for (int i = 0; i < 3; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, i < 2 ? "same" : "other");
+            ps.addBatch();
+        }
+        assertTrue(batches.isEmpty(), "rows must be buffered until execution");
+
+        ps.executeBatch();
+
+        assertEquals(3, batches.size());
+        assertEquals(0, batches.get(0).get(1));
+        assertEquals("enc-same", batches.get(0).get(2));
+        assertEquals("enc-same", batches.get(1).get(2));
+        assertEquals("enc-other", batches.get(2).get(2));
+        assertEquals(2, algo.calls.get(), "duplicates must be encrypted once");
+    }
+
+    @Test
+    @DisplayName("should drop buffered rows on clearBatch")
+    void shouldClearBufferedRows() throws Exception {
+        List<Map<Integer, Object>> batches = new ArrayList<>();
+        PreparedStatement ps = (PreparedStatement) BatchEncryptingStatement.wrap(
+                recording(batches), new EncryptionAlgo[]{null, new CountingAlgo()});
+
+        ps.setString(1, "a");
+        ps.addBatch();
+        ps.clearBatch();
+        ps.executeBatch();
+
+        assertTrue(batches.isEmpty());
+        assertTrue(BatchEncryptingStatement.isWrapped(ps));
+    }
+
+    private static PreparedStatement recording(List<Map<Integer, Object>> batches) {
+        Map<Integer, Object> current = new HashMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(
+                BatchEncryptingStatementTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "addBatch" -> {
+                            batches.add(new HashMap<>(current));
+                            current.clear();
+                        }
+                        case "executeBatch" -> {
+                            return new int[batches.size()];
+                        }
+                        default -> {
+                            if (method.getName().startsWith("set")) {
+                                current.put((Integer) args[0], args[1]);
+                            }
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    private static final class CountingAlgo implements EncryptionAlgo {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String encrypt(String value) {
+            calls.incrementAndGet();
+            return "enc-" + value;
+        }
+
+        @Override
+        public String decrypt(String value) {
+            return value.substring(4);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for DecryptMemo
+ */
+@DisplayName("DecryptMemo Tests")
+class DecryptMemoTest {
+
+    @Test
+    @DisplayName("should decrypt each distinct ciphertext once")
+    void shouldDecryptDistinctValuesOnce() {
+        CountingAlgo algo = new CountingAlgo();
+        DecryptMemo memo = new DecryptMemo(16);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("plain-a", memo.decrypt(CountingAlgo.class, algo, "a"));
+            assertEquals("plain-b", memo.decrypt(CountingAlgo.class, algo, "b"));
+        }
+
+        assertEquals(2, algo.calls.get());
+    }
+
+    @Test
+    @DisplayName("should stop memoizing once the cap is reached")
+    void shouldRespectCap() {
+        CountingAlgo algo = new CountingAlgo();
+        DecryptMemo memo = new DecryptMemo(1);
+
+        memo.decrypt(CountingAlgo.class, algo, "a");
+        memo.decrypt(CountingAlgo.class, algo, "b");
+        memo.decrypt(CountingAlgo.class, algo, "a");
+        memo.decrypt(CountingAlgo.class, algo, "b");
+
+        assertEquals(3, algo.calls.get());
+    }
+
+    @Test
+    @DisplayName("should not memoize when disabled")
+    void shouldBypassWhenDisabled() {
+        CountingAlgo algo = new CountingAlgo();
+        DecryptMemo memo = new DecryptMemo(0);
+
+        memo.decrypt(CountingAlgo.class, algo, "a");
+        memo.decrypt(CountingAlgo.class, algo, "a");
+
+        assertEquals(2, algo.calls.get());
+    }
+
+    private static final class CountingAlgo implements EncryptionAlgo {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String encrypt(String value) {
+            return value;
+        }
+
+        @Override
+        public String decrypt(String value) {
+            calls.incrementAndGet();
+            return "plain-" + value;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for DecryptProcessor map rows
+ */
+@DisplayName("DecryptProcessor Tests")
+class DecryptProcessorTest {
+
+    private final DecryptProcessor processor = DecryptProcessor.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        SecurityFixture.install();
+    }
+
+    @Test
+    @DisplayName("should decrypt encrypted columns in any case and spelling")
+    void shouldDecryptByColumnName() {
+        Map<String, Object> upper = row("PHONE", "enc:138", "ID_CARD",
+                "enc:110", "NAME", "enc:alice");
+        Map<String, Object> lower = row("phone", "enc:139", "idCard",
+                "enc:120", "name", "bob");
+
+        processor.decryptMapList(List.of(upper, lower),
+                "SELECT phone, id_card, name FROM t_user");
+
+        assertEquals(row("PHONE", "138", "ID_CARD", "110", "NAME",
+                "enc:alice"), upper);
+        assertEquals(row("phone", "139", "idCard", "120", "name", "bob"),
+                lower);
+    }
+
+    @Test
+    @DisplayName("should follow column aliases of the select list")
+    void shouldDecryptAliasedColumns() {
+        Map<String, Object> row = row("mobile", "enc:138", "phone",
+                "enc:alice", "card", "enc:110");
+
+        processor.decryptMapList(List.of(row), "SELECT u.phone AS mobile, " +
+                "u.name AS phone, u.id_card card FROM t_user u");
+
+        assertEquals(row("mobile", "138", "phone", "enc:alice", "card",
+                "110"), row);
+    }
+
+    @Test
+    @DisplayName("should accept backtick quoted tables, columns and keys")
+    void shouldDecryptBacktickColumns() {
+        Map<String, Object> row = row("phone", "enc:138", "`id_card`",
+                "enc:110", "mobile", "enc:139");
+
+        processor.decryptMapList(List.of(row), "SELECT `phone`, `id_card`, " +
+                "`phone` AS `mobile` FROM `t_user`");
+
+        assertEquals(row("phone", "138", "`id_card`", "110", "mobile",
+                "139"), row);
+    }
+
+    @Test
+    @DisplayName("should decrypt the encrypted columns of every joined table")
+    void shouldDecryptMultiTableRows() {
+        Map<String, Object> row = row("phone", "enc:138", "receiver_phone",
+                "enc:139", "remark", "enc:note", "user_id", 1L);
+
+        processor.decryptMapList(List.of(row), "SELECT u.phone, " +
+                "o.receiver_phone, o.remark, o.user_id FROM t_user u " +
+                "JOIN t_order o ON o.user_id = u.id");
+
+        assertEquals(row("phone", "138", "receiver_phone", "139", "remark",
+                "enc:note", "user_id", 1L), row);
+    }
+
+    @Test
+    @DisplayName("should match table names ignoring case and quotes")
+    void shouldDecryptCaseInsensitiveTables() {
+        Map<String, Object> upper = row("PHONE", "enc:138");
+        Map<String, Object> quoted = row("phone", "enc:139");
+
+        processor.decryptMapList(List.of(upper), "SELECT PHONE FROM T_USER");
+        processor.decryptMapList(List.of(quoted),
+                "SELECT \"phone\" FROM \"T_User\"");
+
+        assertEquals(row("PHONE", "138"), upper);
+        assertEquals(row("phone", "139"), quoted);
+    }
+
+    @Test
+    @DisplayName("should leave rows of tables without encrypted columns alone")
+    void shouldSkipUnrelatedTables() {
+        Map<String, Object> row = row("phone", "enc:138");
+
+        processor.decryptMapList(List.of(row), "SELECT phone FROM t_note");
+
+        assertEquals(row("phone", "enc:138"), row);
+    }
+
+    @Test
+    @DisplayName("should resolve aliases to the table of the column")
+    void shouldDecryptAliasesByTable() {
+        Map<String, Object> row = row("contact", "enc:138", "phone",
+                "enc:note", "receiver_phone", "enc:139");
+
+        processor.decryptMapList(List.of(row), "SELECT u.phone AS contact, " +
+                "o.remark AS phone, o.receiver_phone FROM t_user u " +
+                "JOIN t_order o ON o.user_id = u.id");
+
+        assertEquals(row("contact", "138", "phone", "enc:note",
+                "receiver_phone", "139"), row);
+    }
+
+    @Test
+    @DisplayName("should not decrypt a same-named column of another table")
+    void shouldSkipSameNamedColumnOfOtherTable() {
+        Map<String, Object> row = row("phone", "enc:138", "name", "alice");
+
+        processor.decryptMapList(List.of(row), "SELECT n.phone, u.name " +
+                "FROM t_user u JOIN t_note n ON n.id = u.id");
+
+        assertEquals(row("phone", "enc:138", "name", "alice"), row);
+    }
+
+    private static Map<String, Object> row(Object... entries) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            row.put((String) entries[i], entries[i + 1]);
+        }
+        return row;
+    }
+}
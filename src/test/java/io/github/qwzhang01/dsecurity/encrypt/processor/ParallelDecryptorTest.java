@@ -0,0 +1,104 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ParallelDecryptor
+ */
+@DisplayName("ParallelDecryptor Tests")
+class ParallelDecryptorTest {
+
+    private DataSecurityProperties.Decrypt config;
+
+    @BeforeEach
+    void setUp() {
+        config = new DataSecurityProperties.Decrypt();
+        config.setParallelEnabled(true);
+        config.setParallelThreshold(1000);
+        config.setChunkSize(100);
+        config.setParallelism(4);
+    }
+
+    @Test
+    @DisplayName("should keep small lists on the sequential path")
+    void shouldNotParallelizeSmallLists() {
+        assertFalse(ParallelDecryptor.shouldParallelize(999, config));
+        assertTrue(ParallelDecryptor.shouldParallelize(1000, config));
+
+        config.setParallelEnabled(false);
+        assertFalse(ParallelDecryptor.shouldParallelize(100000, config));
+    }
+
+    @Test
+    @DisplayName("should stay sequential unless enabled")
+    void shouldBeDisabledByDefault() {
+        assertFalse(ParallelDecryptor.shouldParallelize(100000,
+                new DataSecurityProperties.Decrypt()));
+    }
+
+    @Test
+    @DisplayName("should apply the encryption settings to bulk encryption")
+    void shouldUseEncryptSettings() {
+        DataSecurityProperties.Encrypt encrypt =
+                new DataSecurityProperties.Encrypt();
+        assertFalse(ParallelDecryptor.shouldParallelize(100000,
+                ParallelDecryptor.Settings.of(encrypt)));
+
+        encrypt.setParallelEnabled(true);
+        encrypt.setParallelThreshold(200);
+        encrypt.setChunkSize(50);
+        encrypt.setParallelism(4);
+        ParallelDecryptor.Settings settings =
+                ParallelDecryptor.Settings.of(encrypt);
+        assertTrue(ParallelDecryptor.shouldParallelize(200, settings));
+        assertFalse(ParallelDecryptor.shouldParallelize(200, config));
+    }
+
+    @Test
+    @DisplayName("should visit every non-null row exactly once")
+    void shouldVisitEveryRow() {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(i % 7 == 0 ? null : i);
+        }
+        Set<Object> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+
+        ParallelDecryptor.run(rows, row -> {
+            calls.incrementAndGet();
+            seen.add(row);
+        }, config);
+
+        long expected = rows.stream().filter(r -> r != null).count();
+        assertEquals(expected, calls.get());
+        assertEquals(expected, seen.size());
+    }
+
+    @Test
+    @DisplayName("should propagate row failures to the caller")
+    void shouldPropagateFailures() {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(i);
+        }
+
+        assertThrows(DataSecurityException.class, () ->
+                ParallelDecryptor.run(rows, row -> {
+                    if ((Integer) row == 1500) {
+                        throw new DataSecurityException("boom");
+                    }
+                }, config));
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.qwzhang01.dsecurity.encrypt.processor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for ParameterOverlay
+ */
+@DisplayName("ParameterOverlay Tests")
+class ParameterOverlayTest {
+
+    @Test
+    @DisplayName("should bind overlay values in place of plaintext strings")
+    void shouldReplaceOverlaidParameters() throws Exception {
+        Map<Integer, Object> bound = new HashMap<>();
+        PreparedStatement ps = recording(bound);
+        String[] overlay = {null, "cipher-1", null, "cipher-3"};
+
+        PreparedStatement view = (PreparedStatement) ParameterOverlay.wrap(ps, overlay);
+        view.setString(1, "plain-1");
+        view.setString(2, "plain-2");
+        view.setObject(3, "plain-3");
+        view.setInt(4, 4);
+
+        assertEquals("cipher-1", bound.get(1));
+        assertEquals("plain-2", bound.get(2));
+        assertEquals("cipher-3", bound.get(3));
+        assertEquals(4, bound.get(4));
+    }
+
+    @Test
+    @DisplayName("should return plain statements unchanged")
+    void shouldSkipPlainStatements() {
+        Statement statement = (Statement) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> null);
+
+        assertSame(statement, ParameterOverlay.wrap(statement, new String[1]));
+    }
+
+    private static PreparedStatement recording(Map<Integer, Object> bound) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                ParameterOverlayTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args.length == 2) {
+                        bound.put((Integer) args[0], args[1]);
+                    }
+                    return null;
+                });
+    }
+}
@@ -149,4 +149,16 @@ public class SingleSelectProcessorTest {
         String result = processor.process("");
         assertNull(result);
     }
+
+    @Test
+    public void testCachedRewrite() {
+        String sql = "SELECT id FROM cached_user WHERE status = 1";
+        String first = processor.process(sql);
+        String second = processor.process(new String(sql));
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertNull(processor.process("UPDATE cached_user SET status = 1"));
+        assertNull(processor.process("UPDATE cached_user SET status = 1"));
+    }
 }
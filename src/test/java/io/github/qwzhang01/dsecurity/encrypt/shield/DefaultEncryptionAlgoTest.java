@@ -110,6 +110,29 @@ class DefaultEncryptionAlgoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Format Detection Tests")
+    class FormatDetectionTests {
+
+        @ParameterizedTest
+        @DisplayName("should recognize ciphertext with and without prefix")
+        @ValueSource(strings = {"13800138000", "a", "中文内容"})
+        void shouldRecognizeCiphertext(String original) {
+            String encrypted = algo.encrypt(original);
+
+            assertTrue(algo.isEncrypted(encrypted));
+            assertTrue(algo.isEncrypted(encrypted.substring(17)));
+        }
+
+        @ParameterizedTest
+        @DisplayName("should classify plaintext as not encrypted")
+        @ValueSource(strings = {"", "13800138000", "user@test.com",
+                "abcdefghijkl", "张三李四王五赵六钱七孙八"})
+        void shouldRejectPlaintext(String value) {
+            assertFalse(algo.isEncrypted(value));
+        }
+    }
+
     @Nested
     @DisplayName("Edge Cases")
     class EdgeCases {
@@ -0,0 +1,104 @@
+package io.github.qwzhang01.dsecurity.encrypt.shield;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for TolerantDecryptor
+ */
+@DisplayName("TolerantDecryptor Tests")
+class TolerantDecryptorTest {
+
+    private final DataSecurityProperties.Decrypt decrypt =
+            DataSecurityProperties.current().getDecrypt();
+
+    @AfterEach
+    void tearDown() {
+        decrypt.setTolerant(false);
+        decrypt.setFailureLogInterval(Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("should always call the cipher in strict mode")
+    void shouldDecryptStrictly() {
+        assertEquals("138", TolerantDecryptor.decrypt(new TestAlgo(false),
+                "enc:138"));
+        assertThrows(IllegalArgumentException.class,
+                () -> TolerantDecryptor.decrypt(new TestAlgo(false), "138"));
+    }
+
+    @Test
+    @DisplayName("should pass plaintext through in tolerant mode")
+    void shouldPassPlaintextThrough() {
+        decrypt.setTolerant(true);
+        TolerantDecryptor.Stats before = TolerantDecryptor.stats();
+
+        assertEquals("138", TolerantDecryptor.decrypt(new TestAlgo(false),
+                "138"));
+        assertEquals("139", TolerantDecryptor.decrypt(new TestAlgo(false),
+                "enc:139"));
+
+        TolerantDecryptor.Stats after = TolerantDecryptor.stats();
+        assertEquals(1, after.passedThrough() - before.passedThrough());
+        assertEquals(1, after.decrypted() - before.decrypted());
+    }
+
+    @Test
+    @DisplayName("should return undecryptable values unless failures propagate")
+    void shouldTolerateFailures() {
+        decrypt.setTolerant(true);
+        TolerantDecryptor.Stats before = TolerantDecryptor.stats();
+
+        assertEquals("enc:", TolerantDecryptor.decrypt(new TestAlgo(false),
+                "enc:"));
+        assertEquals(1, TolerantDecryptor.stats().failed() - before.failed());
+        assertThrows(IllegalArgumentException.class,
+                () -> TolerantDecryptor.decrypt(new TestAlgo(true), "enc:"));
+    }
+
+    @Test
+    @DisplayName("should use the failure log interval configured after startup")
+    void shouldReadFailureLogInterval() {
+        decrypt.setFailureLogInterval(Duration.ofMinutes(5));
+        assertEquals(Duration.ofMinutes(5),
+                TolerantDecryptor.failureLog().getInterval());
+        assertSame(TolerantDecryptor.failureLog(),
+                TolerantDecryptor.failureLog());
+
+        decrypt.setFailureLogInterval(Duration.ofSeconds(1));
+        assertEquals(Duration.ofSeconds(1),
+                TolerantDecryptor.failureLog().getInterval());
+    }
+
+    /**
+     * Decrypts {@code enc:} values; empty ciphertexts and plaintext fail.
+     */
+    private record TestAlgo(boolean cryptoThrowable) implements EncryptionAlgo {
+
+        @Override
+        public String encrypt(String value) {
+            return "enc:" + value;
+        }
+
+        @Override
+        public String decrypt(String value) {
+            if (!value.startsWith("enc:") || value.length() == 4) {
+                throw new IllegalArgumentException("not decryptable: " + value);
+            }
+            return value.substring(4);
+        }
+
+        @Override
+        public boolean isEncrypted(String value) {
+            return value.startsWith("enc:");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.qwzhang01.dsecurity.interceptor;
+
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture.User;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration tests for DecryptInterceptor on H2
+ */
+@DisplayName("DecryptInterceptor Tests")
+class DecryptInterceptorTest {
+
+    private SqlSessionFactory factory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SecurityFixture.install();
+        DataSource dataSource = SecurityFixture.database("decrypt_interceptor");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO t_user (id, name, phone, id_card) " +
+                    "VALUES (1, 'alice', 'enc:138', 'enc:110')");
+            statement.execute("INSERT INTO t_order (id, user_id, " +
+                    "receiver_phone, remark) VALUES (1, 1, 'enc:139', 'enc:x')");
+        }
+        Configuration configuration = SecurityFixture.mybatis(dataSource);
+        configuration.addInterceptor(new DecryptInterceptor());
+        SecurityFixture.statement(configuration, "test.selectRows",
+                SqlCommandType.SELECT, "SELECT u.phone AS mobile, " +
+                        "u.id_card, o.receiver_phone, o.remark FROM t_user u " +
+                        "JOIN t_order o ON o.user_id = u.id", Map.class);
+        SecurityFixture.statement(configuration, "test.selectUsers",
+                SqlCommandType.SELECT, "SELECT id, name, phone, id_card " +
+                        "FROM t_user", User.class);
+        factory = new DefaultSqlSessionFactory(configuration);
+    }
+
+    @Test
+    @DisplayName("should decrypt map rows by column label")
+    void shouldDecryptMapRows() {
+        try (SqlSession session = factory.openSession()) {
+            List<Map<String, Object>> rows =
+                    session.selectList("test.selectRows");
+
+            assertEquals(1, rows.size());
+            // H2 reports labels in upper case
+            assertEquals(Map.of("MOBILE", "138", "ID_CARD", "110",
+                    "RECEIVER_PHONE", "139", "REMARK", "enc:x"), rows.get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("should decrypt annotated fields of entity rows")
+    void shouldDecryptEntityRows() {
+        try (SqlSession session = factory.openSession()) {
+            List<User> users = session.selectList("test.selectUsers");
+
+            assertEquals(1, users.size());
+            assertEquals("138", users.get(0).getPhone());
+            assertEquals("110", users.get(0).getIdCard());
+            assertEquals("alice", users.get(0).getName());
+        }
+    }
+}
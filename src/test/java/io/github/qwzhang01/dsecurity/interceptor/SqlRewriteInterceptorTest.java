@@ -0,0 +1,200 @@
+package io.github.qwzhang01.dsecurity.interceptor;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture.User;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for SqlRewriteInterceptor on H2
+ */
+@DisplayName("SqlRewriteInterceptor Tests")
+class SqlRewriteInterceptorTest {
+
+    private DataSource dataSource;
+    private SqlSessionFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        SecurityFixture.install();
+        dataSource = SecurityFixture.database("rewrite_interceptor");
+        Configuration configuration = SecurityFixture.mybatis(dataSource);
+        configuration.addInterceptor(new SqlRewriteInterceptor());
+        SecurityFixture.statement(configuration, "test.insertUser",
+                SqlCommandType.INSERT,
+                "INSERT INTO t_user (id, name, phone) VALUES (?, ?, ?)",
+                null, "id", "name", "phone");
+        SecurityFixture.statement(configuration, "test.selectByPhone",
+                SqlCommandType.SELECT,
+                "SELECT id, name, phone FROM t_user WHERE phone = ?",
+                User.class, "phone");
+        SecurityFixture.statement(configuration, "test.insertCard",
+                SqlCommandType.INSERT, "INSERT INTO t_user " +
+                        "(id, name, phone, id_card) VALUES (?, ?, ?, ?)",
+                null, "id", "name", "phone", "idCard");
+        SecurityFixture.script(configuration, "test.selectByPhones",
+                SqlCommandType.SELECT, "SELECT id, name, phone FROM t_user " +
+                        "WHERE phone IN <foreach collection='phones' " +
+                        "item='phone_no' open='(' separator=',' close=')'>" +
+                        "#{phone_no}</foreach> AND id_card IN <foreach " +
+                        "collection='cards' item='item' open='(' " +
+                        "separator=',' close=')'>#{item}</foreach> " +
+                        "ORDER BY id", User.class);
+        SecurityFixture.script(configuration, "test.deleteByPhones",
+                SqlCommandType.DELETE, "DELETE FROM t_user WHERE phone IN " +
+                        "<foreach collection='phones' item='item' open='(' " +
+                        "separator=',' close=')'>#{item}</foreach>", null);
+        factory = new DefaultSqlSessionFactory(configuration);
+    }
+
+    @Test
+    @DisplayName("should encrypt batched inserts when the batch is executed")
+    void shouldEncryptBatchedInserts() throws Exception {
+        try (SqlSession session = factory.openSession(ExecutorType.BATCH)) {
+            User first = new User(1L, "a", "13800000001");
+            session.insert("test.insertUser", first);
+            session.insert("test.insertUser", new User(2L, "b", "13800000002"));
+            session.flushStatements();
+            session.commit();
+
+            assertEquals("13800000001", first.getPhone());
+        }
+        assertEquals("enc:13800000001", storedPhone(1L));
+        assertEquals("enc:13800000002", storedPhone(2L));
+    }
+
+    @Test
+    @DisplayName("should bind query parameters in a batch session without cache")
+    void shouldQueryInBatchSession() {
+        try (SqlSession session = factory.openSession(ExecutorType.BATCH)) {
+            session.insert("test.insertUser", new User(1L, "a", "13800000001"));
+            session.flushStatements();
+
+            // The batch executor creates the query handler itself when the
+            // second level cache is disabled
+            User probe = new User(null, null, "13800000001");
+            List<User> users = session.selectList("test.selectByPhone", probe);
+
+            assertEquals(1, users.size());
+            assertEquals(1L, users.get(0).getId());
+            assertEquals("13800000001", probe.getPhone(),
+                    "query parameters must be restored");
+            assertTrue(session.selectList("test.selectByPhone",
+                    new User(null, null, "13800000002")).isEmpty());
+            session.commit();
+        }
+    }
+
+    @Test
+    @DisplayName("should rebuild the cached plan for another parameter type")
+    void shouldReplanOnParameterKindChange() throws Exception {
+        try (SqlSession session = factory.openSession()) {
+            session.insert("test.insertUser", new User(1L, "a", "13800000001"));
+            Map<String, Object> parameter = new HashMap<>();
+            parameter.put("id", 2L);
+            parameter.put("name", "b");
+            parameter.put("phone", "13800000002");
+            session.insert("test.insertUser", parameter);
+            session.insert("test.insertUser", new User(3L, "c", "13800000003"));
+            session.commit();
+
+            assertEquals("13800000002", parameter.get("phone"));
+        }
+        assertEquals("enc:13800000001", storedPhone(1L));
+        assertEquals("enc:13800000002", storedPhone(2L));
+        assertEquals("enc:13800000003", storedPhone(3L));
+    }
+
+    @Test
+    @DisplayName("should encrypt the elements of two foreach lists")
+    void shouldEncryptForeachLists() {
+        insertCards();
+
+        assertEquals(List.of(1L, 2L), selectByPhones());
+    }
+
+    @Test
+    @DisplayName("should encrypt foreach elements in overlay binding")
+    void shouldEncryptForeachListsByOverlay() {
+        insertCards();
+        DataSecurityProperties.Encrypt encrypt =
+                DataSecurityProperties.current().getEncrypt();
+        encrypt.setBinding(DataSecurityProperties.Binding.OVERLAY);
+        try {
+            assertEquals(List.of(1L, 2L), selectByPhones());
+        } finally {
+            encrypt.setBinding(DataSecurityProperties.Binding.MUTATE);
+        }
+    }
+
+    @Test
+    @DisplayName("should encrypt foreach elements of batched statements")
+    void shouldEncryptBatchedForeach() throws Exception {
+        insertCards();
+        try (SqlSession session = factory.openSession(ExecutorType.BATCH)) {
+            session.delete("test.deleteByPhones",
+                    Map.of("phones", List.of("13800000001", "13800000002")));
+            session.delete("test.deleteByPhones",
+                    Map.of("phones", List.of("13800000003")));
+            session.flushStatements();
+            session.commit();
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT COUNT(*) FROM t_user")) {
+            assertTrue(resultSet.next());
+            assertEquals(0, resultSet.getInt(1));
+        }
+    }
+
+    private void insertCards() {
+        try (SqlSession session = factory.openSession()) {
+            for (long id = 1; id <= 3; id++) {
+                User user = new User(id, "u" + id, "1380000000" + id);
+                user.setIdCard("11000000" + id);
+                session.insert("test.insertCard", user);
+            }
+            session.commit();
+        }
+    }
+
+    private List<Long> selectByPhones() {
+        try (SqlSession session = factory.openSession()) {
+            List<User> users = session.selectList("test.selectByPhones",
+                    Map.of("phones", List.of("13800000001", "13800000002",
+                                    "13800000003"),
+                            "cards", List.of("110000001", "110000002")));
+            return users.stream().map(User::getId).toList();
+        }
+    }
+
+    private String storedPhone(long id) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT phone FROM t_user WHERE id = " + id)) {
+            assertTrue(resultSet.next());
+            return resultSet.getString(1);
+        }
+    }
+}
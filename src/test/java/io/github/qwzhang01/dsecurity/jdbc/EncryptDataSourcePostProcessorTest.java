@@ -0,0 +1,68 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Unit tests for EncryptDataSourcePostProcessor
+ */
+@DisplayName("EncryptDataSourcePostProcessor Tests")
+class EncryptDataSourcePostProcessorTest {
+
+    @Test
+    @DisplayName("should wrap a single data source")
+    void shouldWrapSingleDataSource() {
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.registerBean(EncryptDataSourcePostProcessor.class);
+            context.registerBean("dataSource", JdbcDataSource.class,
+                    JdbcDataSource::new);
+            context.refresh();
+
+            assertInstanceOf(EncryptDataSource.class,
+                    context.getBean("dataSource"));
+        }
+    }
+
+    @Test
+    @DisplayName("should wrap only the primary data source by default")
+    void shouldWrapPrimaryDataSource() {
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.registerBean(EncryptDataSourcePostProcessor.class);
+            context.registerBean("routing", JdbcDataSource.class,
+                    JdbcDataSource::new, bd -> bd.setPrimary(true));
+            context.registerBean("target", JdbcDataSource.class,
+                    JdbcDataSource::new);
+            context.refresh();
+
+            assertInstanceOf(EncryptDataSource.class, context.getBean("routing"));
+            assertInstanceOf(JdbcDataSource.class, context.getBean("target"));
+        }
+    }
+
+    @Test
+    @DisplayName("should wrap only the configured data sources")
+    void shouldWrapConfiguredDataSources() {
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(
+                    new MapPropertySource("test", Map.of(
+                            "seven.data-security.jdbc.data-source-names",
+                            "target")));
+            context.registerBean(EncryptDataSourcePostProcessor.class);
+            context.registerBean("routing", JdbcDataSource.class,
+                    JdbcDataSource::new, bd -> bd.setPrimary(true));
+            context.registerBean("target", JdbcDataSource.class,
+                    JdbcDataSource::new);
+            context.refresh();
+
+            assertInstanceOf(JdbcDataSource.class, context.getBean("routing"));
+            assertInstanceOf(EncryptDataSource.class, context.getBean("target"));
+        }
+    }
+}
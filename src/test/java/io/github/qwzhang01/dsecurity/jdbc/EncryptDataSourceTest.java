@@ -0,0 +1,178 @@
+package io.github.qwzhang01.dsecurity.jdbc;
+
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the JDBC encryption engine on H2
+ */
+@DisplayName("EncryptDataSource Tests")
+class EncryptDataSourceTest {
+
+    private DataSource raw;
+    private DataSource encrypted;
+
+    @BeforeEach
+    void setUp() {
+        SecurityFixture.install();
+        JdbcEncryptPlanCache.getInstance().clear();
+        raw = SecurityFixture.database("encrypt_data_source");
+        encrypted = new EncryptDataSource(raw);
+    }
+
+    @Test
+    @DisplayName("should encrypt parameters of encrypted columns by index")
+    void shouldEncryptByParameterIndex() throws SQLException {
+        insert(1L, "alice", "13800000001");
+
+        assertEquals("enc:13800000001", rawValue("phone", 1L));
+        assertEquals("alice", rawValue("name", 1L));
+    }
+
+    @Test
+    @DisplayName("should decrypt getString and getObject by label and index")
+    void shouldDecryptColumns() throws SQLException {
+        insert(1L, "alice", "13800000001");
+
+        try (Connection connection = encrypted.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT id, name, phone FROM t_user WHERE phone = ?")) {
+            statement.setString(1, "13800000001");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertEquals("13800000001", resultSet.getString("phone"));
+                assertEquals("13800000001", resultSet.getString("PHONE"));
+                assertEquals("13800000001", resultSet.getString(3));
+                assertEquals("13800000001", resultSet.getObject("phone"));
+                assertEquals("13800000001", resultSet.getObject(3));
+                assertEquals("13800000001",
+                        resultSet.getObject(3, String.class));
+                assertEquals("alice", resultSet.getString("name"));
+                assertEquals(1L, resultSet.getLong(1));
+                assertFalse(resultSet.next());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should encrypt every row of a batch")
+    void shouldEncryptBatch() throws SQLException {
+        try (Connection connection = encrypted.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO t_user (id, name, phone) VALUES (?, ?, ?)")) {
+            for (long id = 1; id <= 3; id++) {
+                statement.setLong(1, id);
+                statement.setString(2, "user" + id);
+                statement.setObject(3, "1380000000" + id);
+                statement.addBatch();
+            }
+            assertEquals(3, statement.executeBatch().length);
+        }
+
+        for (long id = 1; id <= 3; id++) {
+            assertEquals("enc:1380000000" + id, rawValue("phone", id));
+            assertEquals("user" + id, rawValue("name", id));
+        }
+    }
+
+    @Test
+    @DisplayName("should pass statements on unrelated tables through")
+    void shouldPassThroughUnrelatedSql() throws SQLException {
+        try (Connection connection = encrypted.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS t_note " +
+                    "(id BIGINT, phone VARCHAR(64))");
+            statement.execute("DELETE FROM t_note");
+        }
+        try (Connection connection = encrypted.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO t_note (id, phone) VALUES (?, ?)")) {
+            assertFalse(Proxy.isProxyClass(statement.getClass()),
+                    "statements without encrypted columns are not wrapped");
+            statement.setLong(1, 1L);
+            statement.setString(2, "13800000001");
+            statement.executeUpdate();
+        }
+        try (Connection connection = encrypted.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT phone FROM t_note")) {
+            assertTrue(resultSet.next());
+            assertEquals("13800000001", resultSet.getString(1));
+        }
+    }
+
+    @Test
+    @DisplayName("should decrypt columns of plain statements")
+    void shouldDecryptPlainStatements() throws SQLException {
+        insert(1L, "alice", "13800000001");
+
+        try (Connection connection = encrypted.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT phone FROM t_user WHERE id = 1")) {
+            assertTrue(resultSet.next());
+            assertEquals("13800000001", resultSet.getString("phone"));
+            assertSame(statement, resultSet.getStatement());
+        }
+    }
+
+    @Test
+    @DisplayName("should decrypt result columns by their table, not label")
+    void shouldDecryptAliasedColumns() throws SQLException {
+        insert(1L, "alice", "13800000001");
+        try (Connection connection = raw.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO t_order (id, user_id, remark) " +
+                    "VALUES (1, 1, 'enc:note')");
+        }
+
+        try (Connection connection = encrypted.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " +
+                     "u.phone AS contact, o.remark AS phone FROM t_user u " +
+                     "JOIN t_order o ON o.user_id = u.id")) {
+            assertTrue(resultSet.next());
+            assertEquals("13800000001", resultSet.getString("contact"));
+            assertEquals("13800000001", resultSet.getString(1));
+            assertEquals("enc:note", resultSet.getString("phone"));
+            assertEquals("enc:note", resultSet.getString(2));
+        }
+    }
+
+    private void insert(long id, String name, String phone) throws SQLException {
+        try (Connection connection = encrypted.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO t_user (id, name, phone) VALUES (?, ?, ?)")) {
+            statement.setLong(1, id);
+            statement.setString(2, name);
+            statement.setString(3, phone);
+            statement.executeUpdate();
+        }
+    }
+
+    private String rawValue(String column, long id) throws SQLException {
+        try (Connection connection = raw.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " + column
+                     + " FROM t_user WHERE id = " + id)) {
+            assertTrue(resultSet.next());
+            return resultSet.getString(1);
+        }
+    }
+}
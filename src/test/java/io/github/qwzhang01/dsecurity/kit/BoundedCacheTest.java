@@ -0,0 +1,92 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedCache
+ */
+@DisplayName("BoundedCache Tests")
+class BoundedCacheTest {
+
+    @Test
+    @DisplayName("should load each key once and count hits and misses")
+    void shouldLoadOnce() {
+        BoundedCache<String, String> cache = new BoundedCache<>(16);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v", cache.computeIfAbsent("k", k -> {
+                loads.incrementAndGet();
+                return "v";
+            }));
+        }
+
+        assertEquals(1, loads.get());
+        BoundedCache.Stats stats = cache.stats();
+        assertEquals(9, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.9, stats.hitRate(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("should stay within the size bound and keep referenced entries")
+    void shouldEvict() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(3);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+        cache.get(1);
+
+        cache.put(4, 4);
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(1, cache.get(1));
+    }
+
+    @Test
+    @DisplayName("should not cache when disabled")
+    void shouldBypassWhenDisabled() {
+        BoundedCache<String, String> cache = new BoundedCache<>(0);
+
+        cache.computeIfAbsent("k", k -> "v");
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("k"));
+    }
+
+    @Test
+    @DisplayName("should read a supplied bound when storing values")
+    void shouldFollowSuppliedBound() {
+        AtomicInteger maxSize = new AtomicInteger(0);
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(maxSize::get);
+
+        cache.put(1, 1);
+        maxSize.set(2);
+        for (int i = 2; i <= 4; i++) {
+            cache.put(i, i);
+        }
+
+        assertNull(cache.get(1));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("should invalidate matching keys only")
+    void shouldInvalidateIf() {
+        BoundedCache<String, String> cache = new BoundedCache<>(16);
+        cache.put("a:1", "v");
+        cache.put("a:2", "v");
+        cache.put("b:1", "v");
+
+        cache.invalidateIf(key -> key.startsWith("a:"));
+
+        assertEquals(1, cache.size());
+        assertEquals("v", cache.get("b:1"));
+    }
+}
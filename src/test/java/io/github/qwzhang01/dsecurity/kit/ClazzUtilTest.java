@@ -0,0 +1,66 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ClazzUtil property access
+ */
+@DisplayName("ClazzUtil Property Access Tests")
+class ClazzUtilTest {
+
+    @Test
+    @DisplayName("should read and write through accessors")
+    void shouldUseAccessors() throws Exception {
+        Account account = new Account();
+        ClazzUtil.setPropertyValue(account, "phone", "138");
+
+        assertEquals("138", account.getPhone());
+        assertEquals("138", ClazzUtil.getPropertyValue(account, "phone"));
+        assertEquals(1, account.setterCalls);
+    }
+
+    @Test
+    @DisplayName("should read boolean is-getters and inherited fields")
+    void shouldResolveIsGetterAndFields() throws Exception {
+        Account account = new Account();
+        ClazzUtil.setPropertyValue(account, "secret", "s");
+
+        assertEquals(Boolean.TRUE, ClazzUtil.getPropertyValue(account, "active"));
+        assertEquals("s", ClazzUtil.getPropertyValue(account, "secret"));
+    }
+
+    @Test
+    @DisplayName("should fail fast on unknown properties")
+    void shouldRejectUnknownProperty() {
+        assertThrows(DataSecurityException.class,
+                () -> ClazzUtil.getPropertyValue(new Account(), "missing"));
+        assertThrows(DataSecurityException.class,
+                () -> ClazzUtil.setPropertyValue(new Account(), "missing", "x"));
+    }
+
+    static class Base {
+        private String secret;
+    }
+
+    static class Account extends Base {
+        private String phone;
+        private int setterCalls;
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public void setPhone(String phone) {
+            this.phone = phone;
+            setterCalls++;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import io.github.qwzhang01.dsecurity.domain.EncryptInfo;
+import io.github.qwzhang01.dsecurity.encrypt.plan.EncryptPlan;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysis;
+import io.github.qwzhang01.dsecurity.sql.SqlAnalysisCache;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture.User;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ParamUtil
+ */
+@DisplayName("ParamUtil Tests")
+class ParamUtilTest {
+
+    private final Configuration configuration = new Configuration();
+
+    @BeforeEach
+    void setUp() {
+        SecurityFixture.install();
+    }
+
+    @Test
+    @DisplayName("should plan entity parameters by property")
+    void shouldPlanObjectParameters() {
+        String sql = "INSERT INTO t_user (id, name, phone) VALUES (?, ?, ?)";
+        User user = new User(1L, "alice", "138");
+
+        EncryptPlan plan = plan(sql, user, "id", "name", "phone");
+
+        assertSame(EncryptPlan.Kind.OBJECT, plan.getKind());
+        assertEquals(List.of("phone"), properties(plan));
+        assertEquals("t_user", plan.getEntries().get(0).tableName());
+        assertSame(EncryptionAlgo.class, plan.getEntries().get(0).algoClass());
+
+        List<EncryptInfo> infos = ParamUtil.analyzeParameters(plan, user);
+        assertEquals(1, infos.size());
+        assertSame(user, infos.get(0).getTargetObject());
+        assertEquals("phone", infos.get(0).getPropertyName());
+        assertEquals("138", infos.get(0).getOriginalValue());
+    }
+
+    @Test
+    @DisplayName("should plan map parameters by bound key only")
+    void shouldPlanMapParameters() {
+        String sql = "SELECT id FROM t_user WHERE phone = ? AND name = ?";
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("phone", "138");
+        parameter.put("name", "alice");
+        // Named like an encrypted column but bound by no placeholder
+        parameter.put("idCard", "110");
+
+        EncryptPlan plan = plan(sql, parameter, "phone", "name");
+
+        assertSame(EncryptPlan.Kind.MAP, plan.getKind());
+        assertEquals(List.of("phone"), properties(plan));
+
+        List<EncryptInfo> infos = ParamUtil.analyzeParameters(plan, parameter);
+        assertEquals(1, infos.size());
+        assertEquals("phone", infos.get(0).getParameterKey());
+        assertEquals("138", infos.get(0).getOriginalValue());
+    }
+
+    @Test
+    @DisplayName("should plan wrapper parameters from the wrapper segment")
+    void shouldPlanQueryWrapperParameters() {
+        QueryWrapper<User> wrapper = new QueryWrapper<User>()
+                .eq("phone", "138").eq("name", "alice");
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("ew", wrapper);
+        String sql = "SELECT id FROM t_user WHERE (phone = ? AND name = ?)";
+
+        EncryptPlan plan = plan(sql, parameter,
+                "ew.paramNameValuePairs.MPGENVAL1",
+                "ew.paramNameValuePairs.MPGENVAL2");
+
+        assertSame(EncryptPlan.Kind.QUERY_WRAPPER, plan.getKind());
+        assertFalse(plan.isEmpty());
+        assertTrue(plan.getEntries().isEmpty());
+
+        List<EncryptInfo> infos = ParamUtil.analyzeParameters(plan, parameter);
+        assertEquals(1, infos.size());
+        assertTrue(infos.get(0).isQueryWrapperParam());
+        assertEquals("ew.paramNameValuePairs.MPGENVAL1",
+                infos.get(0).getParameterKey());
+        assertEquals("138", infos.get(0).getOriginalValue());
+    }
+
+    @Test
+    @DisplayName("should group the elements of a foreach list")
+    void shouldGroupForeachElements() {
+        String sql = "SELECT id FROM t_user WHERE phone IN (?, ?, ?)";
+
+        EncryptPlan plan = plan(sql, Map.of("list", List.of()),
+                "__frch_item_0", "__frch_item_1", "__frch_item_2");
+
+        assertTrue(plan.getEntries().isEmpty());
+        assertEquals(1, plan.getGroups().size());
+        EncryptPlan.ForeachGroup group = plan.getGroups().get(0);
+        assertEquals(List.of("__frch_item_0", "__frch_item_1",
+                "__frch_item_2"), group.properties());
+        assertEquals("t_user", group.tableName());
+    }
+
+    @Test
+    @DisplayName("should group foreach item names containing underscores")
+    void shouldGroupUnderscoredItemNames() {
+        String sql = "SELECT id FROM t_user WHERE phone IN (?, ?)";
+
+        EncryptPlan plan = plan(sql, Map.of("list", List.of()),
+                "__frch_phone_no_0", "__frch_phone_no_1");
+
+        assertEquals(List.of(List.of("__frch_phone_no_0",
+                "__frch_phone_no_1")), groups(plan));
+    }
+
+    @Test
+    @DisplayName("should split foreach lists bound to different columns")
+    void shouldSplitForeachLists() {
+        String sql = "SELECT id FROM t_user WHERE phone IN (?, ?) " +
+                "AND id_card IN (?, ?) AND name IN (?, ?)";
+
+        EncryptPlan plan = plan(sql, Map.of("list", List.of()),
+                "__frch_item_0", "__frch_item_1", "__frch_item_2",
+                "__frch_item_3", "__frch_item_4", "__frch_item_5");
+
+        // The name list is not encrypted and forms no group
+        assertEquals(List.of(List.of("__frch_item_0", "__frch_item_1"),
+                List.of("__frch_item_2", "__frch_item_3")), groups(plan));
+    }
+
+    @Test
+    @DisplayName("should tell parameter kinds apart")
+    void shouldResolveParameterKind() {
+        assertSame(EncryptPlan.Kind.OBJECT,
+                ParamUtil.parameterKind(new User()));
+        assertSame(EncryptPlan.Kind.MAP,
+                ParamUtil.parameterKind(Map.of("phone", "138")));
+        assertSame(EncryptPlan.Kind.QUERY_WRAPPER,
+                ParamUtil.parameterKind(Map.of("ew", new QueryWrapper<>())));
+    }
+
+    private EncryptPlan plan(String sql, Object parameter,
+                             String... properties) {
+        SqlAnalysis analysis = SqlAnalysisCache.getInstance().get(sql);
+        return ParamUtil.buildPlan(mappings(properties), analysis.params(),
+                analysis.tables(), parameter);
+    }
+
+    private List<ParameterMapping> mappings(String... properties) {
+        List<ParameterMapping> mappings = new ArrayList<>();
+        for (String property : properties) {
+            mappings.add(new ParameterMapping.Builder(configuration, property,
+                    Object.class).build());
+        }
+        return mappings;
+    }
+
+    private static List<List<String>> groups(EncryptPlan plan) {
+        return plan.getGroups().stream()
+                .map(EncryptPlan.ForeachGroup::properties).toList();
+    }
+
+    private static List<String> properties(EncryptPlan plan) {
+        return plan.getEntries().stream().map(EncryptPlan.Entry::property)
+                .toList();
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for RateLimitedLog
+ */
+@DisplayName("RateLimitedLog Tests")
+class RateLimitedLogTest {
+
+    private static final String WITH_ERROR =
+            "{}: {} ({} similar messages suppressed)";
+    private static final String WITH_TRACE =
+            "{} ({} similar messages suppressed)";
+
+    private final Logger logger = mock(Logger.class);
+    private final RuntimeException error = new IllegalStateException("bad");
+
+    @Test
+    @DisplayName("should log once per interval and count the rest")
+    void shouldSuppressWithinInterval() throws InterruptedException {
+        RateLimitedLog log = new RateLimitedLog(logger, Duration.ofMillis(200));
+
+        log.warn("failed", error);
+        log.warn("failed", error);
+        log.warn("failed", error);
+        verify(logger).warn(WITH_ERROR, "failed", error, 0L);
+
+        Thread.sleep(300);
+        log.warn("failed", error);
+        verify(logger).warn(WITH_ERROR, "failed", error, 2L);
+    }
+
+    @Test
+    @DisplayName("should log every message without an interval")
+    void shouldLogAllWithoutInterval() {
+        RateLimitedLog log = new RateLimitedLog(logger, Duration.ZERO);
+
+        log.warn("failed", error);
+        log.warn("failed", error);
+
+        verify(logger, times(2)).warn(WITH_ERROR, "failed", error, 0L);
+    }
+
+    @Test
+    @DisplayName("should include the stack trace at DEBUG only")
+    void shouldLogStackTraceAtDebug() {
+        when(logger.isDebugEnabled()).thenReturn(true);
+        RateLimitedLog log = new RateLimitedLog(logger, Duration.ZERO);
+
+        log.warn("failed", error);
+
+        verify(logger).warn(WITH_TRACE, "failed", 0L, error);
+        verify(logger, never()).warn(WITH_ERROR, "failed", error, 0L);
+    }
+
+    @Test
+    @DisplayName("should log messages without a failure")
+    void shouldLogWithoutError() {
+        RateLimitedLog log = new RateLimitedLog(logger, Duration.ZERO);
+
+        log.warn("stale", null);
+
+        verify(logger).warn(WITH_TRACE, "stale", 0L, null);
+    }
+}
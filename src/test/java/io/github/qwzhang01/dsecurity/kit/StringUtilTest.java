@@ -215,6 +215,47 @@ class StringUtilTest {
         }
     }
 
+    @Nested
+    @DisplayName("skipQuoted Tests")
+    class SkipQuotedTests {
+
+        @Test
+        @DisplayName("should skip literals with escaped quotes")
+        void shouldSkipLiterals() {
+            assertEquals(11, StringUtil.skipQuoted("a = 'it''s' AND b", 4));
+            assertEquals(10, StringUtil.skipQuoted("a = 'x\\'?' AND b", 4));
+        }
+
+        @Test
+        @DisplayName("should skip quoted identifiers")
+        void shouldSkipIdentifiers() {
+            assertEquals(7, StringUtil.skipQuoted("a = `?` AND b", 4));
+            assertEquals(7, StringUtil.skipQuoted("a = \"?\" AND b", 4));
+        }
+
+        @Test
+        @DisplayName("should skip comments")
+        void shouldSkipComments() {
+            assertEquals(6, StringUtil.skipQuoted("a -- ?\n= ?", 2));
+            assertEquals(9, StringUtil.skipQuoted("a /* ? */ = ?", 2));
+        }
+
+        @Test
+        @DisplayName("should run unterminated parts to the end")
+        void shouldStopAtEnd() {
+            assertEquals(6, StringUtil.skipQuoted("a = '?", 4));
+            assertEquals(10, StringUtil.skipQuoted("a /* ? = ?", 2));
+        }
+
+        @Test
+        @DisplayName("should not move outside quotes and comments")
+        void shouldStayOnPlainText() {
+            assertEquals(4, StringUtil.skipQuoted("a = ?", 4));
+            assertEquals(2, StringUtil.skipQuoted("a - b / c", 2));
+            assertEquals(6, StringUtil.skipQuoted("a - b / c", 6));
+        }
+    }
+
     @Nested
     @DisplayName("Round-trip Conversion Tests")
     class RoundTripTests {
@@ -0,0 +1,158 @@
+package io.github.qwzhang01.dsecurity.kit;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for WrapperUtil
+ */
+@DisplayName("WrapperUtil Tests")
+class WrapperUtilTest {
+
+    private static final String PAIRS = "ew.paramNameValuePairs.";
+
+    @BeforeEach
+    void setUp() {
+        SecurityFixture.install();
+    }
+
+    @Test
+    @DisplayName("should read QueryWrapper through its public API")
+    void shouldReadQueryWrapper() {
+        QueryWrapper<User> wrapper = new QueryWrapper<User>()
+                .eq("phone", "138").eq("name", "alice");
+
+        assertSame(wrapper.getParamNameValuePairs(),
+                WrapperUtil.getParamNameValuePairs(wrapper));
+        assertEquals(wrapper.getSqlSegment(),
+                WrapperUtil.getSqlSegment(wrapper));
+        assertEquals(Map.of("MPGENVAL1", "phone", "MPGENVAL2", "name"),
+                WrapperUtil.getFieldParamMapping(
+                        WrapperUtil.getSqlSegment(wrapper)));
+    }
+
+    @Test
+    @DisplayName("should read LambdaQueryWrapper through its public API")
+    void shouldReadLambdaQueryWrapper() {
+        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<User>()
+                .eq(User::getPhone, "138");
+
+        Map<String, Object> pairs = WrapperUtil.getParamNameValuePairs(wrapper);
+        assertSame(wrapper.getParamNameValuePairs(), pairs);
+        assertEquals("138", pairs.get("MPGENVAL1"));
+        assertEquals(Map.of("MPGENVAL1", "phone"),
+                WrapperUtil.getFieldParamMapping(
+                        WrapperUtil.getSqlSegment(wrapper)));
+    }
+
+    @Test
+    @DisplayName("should read other wrappers through their private members")
+    void shouldReadFieldWrapper() {
+        FieldWrapper wrapper = new FieldWrapper();
+        wrapper.paramNameValuePairs.put("MPGENVAL1", "138");
+
+        // The second read uses the handle looked up by the first
+        for (int i = 0; i < 2; i++) {
+            assertSame(wrapper.paramNameValuePairs,
+                    WrapperUtil.getParamNameValuePairs(wrapper));
+            assertEquals("phone = #{" + PAIRS + "MPGENVAL1}",
+                    WrapperUtil.getSqlSegment(wrapper));
+        }
+    }
+
+    @Test
+    @DisplayName("should fall back to the getter and custom segment methods")
+    void shouldReadGetterWrapper() {
+        GetterWrapper wrapper = new GetterWrapper();
+
+        assertEquals(Map.of("MPGENVAL1", "138"),
+                WrapperUtil.getParamNameValuePairs(wrapper));
+        assertEquals("WHERE phone = #{" + PAIRS + "MPGENVAL1}",
+                WrapperUtil.getSqlSegment(wrapper));
+    }
+
+    @Test
+    @DisplayName("should return null for wrappers without the members")
+    void shouldReturnNullForUnknownWrapper() {
+        Object wrapper = new Object();
+
+        // The missing members are remembered, so both reads return null
+        for (int i = 0; i < 2; i++) {
+            assertNull(WrapperUtil.getParamNameValuePairs(wrapper));
+            assertNull(WrapperUtil.getSqlSegment(wrapper));
+        }
+    }
+
+    @Test
+    @DisplayName("should drop parameters that are not compared with a column")
+    void shouldDropParametersWithoutColumn() {
+        String segment = "(phone = #{" + PAIRS + "MPGENVAL1} AND #{" + PAIRS +
+                "MPGENVAL2} = #{" + PAIRS + "MPGENVAL3})";
+
+        Map<String, String> mapping = WrapperUtil.getFieldParamMapping(segment);
+
+        assertEquals(Map.of("MPGENVAL1", "phone"), mapping);
+    }
+
+    @Test
+    @DisplayName("should parse each distinct segment once")
+    void shouldCacheMappingBySegment() {
+        String segment = "(id_card = #{" + PAIRS + "MPGENVAL1})";
+
+        Map<String, String> mapping = WrapperUtil.getFieldParamMapping(segment);
+
+        assertSame(mapping, WrapperUtil.getFieldParamMapping(segment));
+        assertSame(mapping, WrapperUtil.getFieldParamMapping(
+                new String(segment)));
+        assertEquals(Map.of("MPGENVAL1", "id_card"), mapping);
+    }
+
+    @Test
+    @DisplayName("should map empty segments to nothing and reject bad ones")
+    void shouldHandleEmptyAndInvalidSegments() {
+        assertTrue(WrapperUtil.getFieldParamMapping(null).isEmpty());
+        assertTrue(WrapperUtil.getFieldParamMapping(" ").isEmpty());
+        assertThrows(DataSecurityException.class,
+                () -> WrapperUtil.getFieldParamMapping("phone = = ("));
+    }
+
+    /**
+     * Wrapper outside the MyBatis-Plus hierarchy with private members.
+     */
+    private static class FieldWrapper {
+        private final Map<String, Object> paramNameValuePairs = new HashMap<>();
+
+        private String getSqlSegment() {
+            return "phone = #{" + PAIRS + "MPGENVAL1}";
+        }
+    }
+
+    /**
+     * Wrapper exposing its parameters by getter and only a custom segment.
+     */
+    private static class GetterWrapper {
+
+        public Map<String, Object> getParamNameValuePairs() {
+            return Map.of("MPGENVAL1", "138");
+        }
+
+        public String getCustomSqlSegment() {
+            return "WHERE phone = #{" + PAIRS + "MPGENVAL1}";
+        }
+    }
+}
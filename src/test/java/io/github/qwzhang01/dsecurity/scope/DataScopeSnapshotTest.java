@@ -0,0 +1,94 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DataScopeSnapshot and DataScopeReactor
+ */
+@DisplayName("DataScopeSnapshot Tests")
+class DataScopeSnapshotTest {
+
+    @AfterEach
+    void tearDown() {
+        DataScopeHelper.clear();
+        DataScopeReactor.uninstall();
+    }
+
+    @Test
+    @DisplayName("should run pooled tasks with the submitter's scope only")
+    void shouldPropagateToExecutor() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            ExecutorService scoped = DataScopeSnapshot.wrap(pool);
+            DataScopeHelper.strategy(EmptyDataScopeStrategy.class);
+
+            assertTrue(scoped.submit(DataScopeHelper::isStarted).get());
+            assertEquals(EmptyDataScopeStrategy.class,
+                    scoped.submit(DataScopeHelper::getStrategy).get());
+            // The worker does not keep the scope after the task
+            assertFalse(pool.submit(DataScopeHelper::isStarted).get());
+
+            DataScopeHelper.clear();
+            assertFalse(scoped.submit(DataScopeHelper::isStarted).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("should carry the scope into CompletableFuture suppliers")
+    void shouldPropagateToSupplier() {
+        DataScopeHelper.strategy(EmptyDataScopeStrategy.class);
+        DataScopeSnapshot snapshot = DataScopeSnapshot.capture();
+
+        assertTrue(CompletableFuture.supplyAsync(
+                snapshot.wrapSupplier(DataScopeHelper::isStarted)).join());
+    }
+
+    @Test
+    @DisplayName("should restore the previous scope when closed")
+    void shouldRestoreOnClose() {
+        DataScopeSnapshot empty = DataScopeSnapshot.capture();
+        DataScopeHelper.strategy(EmptyDataScopeStrategy.class);
+
+        try (DataScopeSnapshot.Scope ignored = empty.attach()) {
+            assertFalse(DataScopeHelper.isStarted());
+        }
+        assertTrue(DataScopeHelper.isStarted());
+    }
+
+    @Test
+    @DisplayName("should propagate the scope through Reactor schedulers")
+    void shouldPropagateToReactor() {
+        DataScopeReactor.install();
+        DataScopeHelper.strategy(EmptyDataScopeStrategy.class);
+
+        assertTrue(Mono.fromCallable(DataScopeHelper::isStarted)
+                .subscribeOn(Schedulers.boundedElastic()).block());
+    }
+
+    @Test
+    @DisplayName("should run callables with the scope of the Reactor context")
+    void shouldReadReactorContext() {
+        DataScopeHelper.strategy(EmptyDataScopeStrategy.class);
+        Mono<Boolean> started = DataScopeReactor
+                .fromCallable(DataScopeHelper::isStarted)
+                .subscribeOn(Schedulers.boundedElastic())
+                .contextWrite(DataScopeReactor.capture());
+        DataScopeHelper.clear();
+
+        assertTrue(started.block());
+    }
+}
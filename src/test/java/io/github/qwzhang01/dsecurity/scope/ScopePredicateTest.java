@@ -0,0 +1,92 @@
+package io.github.qwzhang01.dsecurity.scope;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ScopePredicate
+ */
+@DisplayName("ScopePredicate Tests")
+class ScopePredicateTest {
+
+    private final DataSecurityProperties.Scope scope =
+            DataSecurityProperties.current().getScope();
+
+    @AfterEach
+    void tearDown() {
+        scope.setLargeListThreshold(1000);
+        scope.setLargeListMode(DataSecurityProperties.LargeListMode.IN_LIST);
+    }
+
+    @Test
+    @DisplayName("should bind small lists with one placeholder per value")
+    void shouldBindSmallListInline() {
+        ScopePredicate predicate = ScopePredicate.in("t.dept_id",
+                List.of(1L, 2L, 3L));
+
+        assertEquals("t.dept_id IN (?, ?, ?)", predicate.where());
+        assertEquals(List.of(1L, 2L, 3L), predicate.parameters());
+        assertEquals("1 = 0", ScopePredicate.in("t.dept_id", List.of())
+                .where());
+    }
+
+    @Test
+    @DisplayName("should bind large lists as one JSON parameter")
+    void shouldBindLargeListAsJson() {
+        scope.setLargeListThreshold(1);
+        scope.setLargeListMode(DataSecurityProperties.LargeListMode.JSON_TABLE);
+
+        ScopePredicate predicate = ScopePredicate.in("dept_code",
+                List.of("a\"1", "b"));
+
+        assertTrue(predicate.where().startsWith("dept_code IN (SELECT"));
+        assertEquals(List.of("[\"a\\\"1\",\"b\"]"), predicate.parameters());
+    }
+
+    @Test
+    @DisplayName("should bind large lists as one array parameter on H2")
+    void shouldBindLargeListAsArray() throws SQLException {
+        scope.setLargeListThreshold(2);
+        scope.setLargeListMode(DataSecurityProperties.LargeListMode.ARRAY);
+
+        ScopePredicate predicate = ScopePredicate.in("dept_id",
+                List.of(1L, 3L, 5L));
+        assertEquals("dept_id = ANY(?)", predicate.where());
+        ScopeArray array = assertInstanceOf(ScopeArray.class,
+                predicate.parameters().get(0));
+        assertEquals(3, array.size());
+
+        try (Connection connection = DriverManager.getConnection(
+                "jdbc:h2:mem:scope_array;DB_CLOSE_DELAY=-1")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE dept_data (id BIGINT, " +
+                        "dept_id BIGINT)");
+                statement.execute("INSERT INTO dept_data VALUES (1, 1), " +
+                        "(2, 2), (3, 3), (4, 4), (5, 5), (6, 5)");
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM dept_data WHERE " +
+                            predicate.where())) {
+                ScopeArray.TYPE_HANDLER.setParameter(ps, 1, array, null);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(4, rs.getInt(1));
+                }
+            }
+        }
+    }
+}
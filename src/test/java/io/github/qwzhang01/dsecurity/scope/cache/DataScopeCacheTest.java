@@ -0,0 +1,146 @@
+package io.github.qwzhang01.dsecurity.scope.cache;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.scope.ScopePredicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DataScopeCache
+ */
+@DisplayName("DataScopeCache Tests")
+class DataScopeCacheTest {
+
+    private final DataScopeCache cache = DataScopeCache.getInstance();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        cache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("should compute fragments once per principal and rights")
+    void shouldComputeOnce() {
+        for (int i = 0; i < 30; i++) {
+            cache.get(DeptStrategy.class, 1L, List.of("r1"), loader());
+        }
+        cache.get(DeptStrategy.class, 2L, List.of("r1"), loader());
+        cache.get(DeptStrategy.class, 1L, List.of("r2"), loader());
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("should recompute after invalidation")
+    void shouldInvalidate() {
+        cache.get(DeptStrategy.class, 1L, List.of(), loader());
+        cache.get(DeptStrategy.class, 2L, List.of(), loader());
+        cache.get(RegionStrategy.class, 1L, List.of(), loader());
+
+        cache.invalidate(DeptStrategy.class, 1L);
+        cache.get(DeptStrategy.class, 1L, List.of(), loader());
+        cache.get(DeptStrategy.class, 2L, List.of(), loader());
+        assertEquals(4, loads.get());
+
+        cache.invalidatePrincipal(1L);
+        cache.get(DeptStrategy.class, 1L, List.of(), loader());
+        cache.get(RegionStrategy.class, 1L, List.of(), loader());
+        assertEquals(6, loads.get());
+
+        cache.invalidate(DeptStrategy.class);
+        cache.get(DeptStrategy.class, 2L, List.of(), loader());
+        assertEquals(7, loads.get());
+    }
+
+    @Test
+    @DisplayName("should let concurrent lookups wait for a single load")
+    void shouldLoadOnceConcurrently() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ScopePredicate> first = executor.submit(() -> cache.get(
+                    DeptStrategy.class, 1L, List.of(), () -> {
+                        started.countDown();
+                        await(release);
+                        return loader().get();
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<ScopePredicate> second = executor.submit(() -> cache.get(
+                    DeptStrategy.class, 1L, List.of(), loader()));
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS),
+                    second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("should not cache a load that overlapped an invalidation")
+    void shouldDropLoadOverlappingInvalidation() {
+        cache.get(DeptStrategy.class, 1L, List.of(), () -> {
+            cache.invalidate(DeptStrategy.class, 1L);
+            return loader().get();
+        });
+        cache.get(DeptStrategy.class, 1L, List.of(), loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("should read the TTL from properties bound after first use")
+    void shouldReadBoundTtl() {
+        cache.get(DeptStrategy.class, 1L, List.of(), loader());
+        DataSecurityProperties properties = new DataSecurityProperties();
+        properties.getScope().setCacheTtl(Duration.ZERO);
+        properties.afterPropertiesSet();
+        try {
+            cache.get(DeptStrategy.class, 2L, List.of(), loader());
+            cache.get(DeptStrategy.class, 2L, List.of(), loader());
+        } finally {
+            properties.destroy();
+        }
+
+        assertEquals(3, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Supplier<ScopePredicate> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return ScopePredicate.where("dept_id = ?", 1L);
+        };
+    }
+
+    private static final class DeptStrategy {
+    }
+
+    private static final class RegionStrategy {
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.qwzhang01.dsecurity.scope.hierarchy;
+
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.dsecurity.scope.ScopePredicate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for OrgTreeIndex
+ */
+@DisplayName("OrgTreeIndex Tests")
+class OrgTreeIndexTest {
+
+    /**
+     * <pre>
+     * 1
+     * ├── 2
+     * │   ├── 4
+     * │   └── 5
+     * └── 3
+     *     └── 6
+     * 7
+     * </pre>
+     */
+    private OrgTreeIndex<Long> index = OrgTreeIndex.of(tree());
+
+    private static Map<Long, Long> tree() {
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        parents.put(1L, null);
+        parents.put(2L, 1L);
+        parents.put(3L, 1L);
+        parents.put(4L, 2L);
+        parents.put(5L, 2L);
+        parents.put(6L, 3L);
+        parents.put(7L, null);
+        return parents;
+    }
+
+    @Test
+    @DisplayName("should number subtrees as contiguous intervals")
+    void shouldResolveSubtrees() {
+        assertEquals(List.of(1L, 2L, 4L, 5L, 3L, 6L), index.subtree(1L));
+        assertEquals(List.of(2L, 4L, 5L), index.subtree(2L));
+        assertEquals(new OrgTreeIndex.Interval(2, 4), index.interval(2L));
+        assertEquals(List.of(), index.subtree(99L));
+        assertNull(index.interval(99L));
+    }
+
+    @Test
+    @DisplayName("should check ancestry with interval comparisons")
+    void shouldCheckDescendants() {
+        assertTrue(index.isDescendant(1L, 6L));
+        assertTrue(index.isDescendant(2L, 2L));
+        assertFalse(index.isDescendant(2L, 6L));
+        assertFalse(index.isDescendant(7L, 1L));
+    }
+
+    @Test
+    @DisplayName("should merge nested and adjacent subtrees")
+    void shouldMergeIntervals() {
+        assertEquals(List.of(new OrgTreeIndex.Interval(2, 6)),
+                index.intervals(List.of(2L, 4L, 3L)));
+        assertEquals(List.of(new OrgTreeIndex.Interval(2, 4),
+                        new OrgTreeIndex.Interval(7, 7)),
+                index.intervals(List.of(7L, 2L, 5L)));
+        assertEquals(List.of(2L, 4L, 5L, 7L),
+                index.subtrees(List.of(7L, 2L, 5L)));
+    }
+
+    @Test
+    @DisplayName("should renumber after nodes are moved and removed")
+    void shouldUpdate() {
+        OrgTreeIndex<Long> updated = index.update(Map.of(6L, 7L, 8L, 6L),
+                Set.of(2L));
+
+        assertEquals(List.of(7L, 6L, 8L), updated.subtree(7L));
+        assertEquals(List.of(4L), updated.subtree(4L));
+        assertNull(updated.parent(4L));
+        assertFalse(updated.contains(2L));
+        // The original index is unchanged
+        assertEquals(List.of(2L, 4L, 5L), index.subtree(2L));
+    }
+
+    @Test
+    @DisplayName("should shift the numbering of later nodes on update")
+    void shouldShiftNumberingOnUpdate() {
+        OrgTreeIndex<Long> updated = index.update(Map.of(8L, 2L), null);
+
+        // Adding a child of 2 moves the subtrees of 3 and 7 one place right
+        assertEquals(new OrgTreeIndex.Interval(5, 6), index.interval(3L));
+        assertEquals(new OrgTreeIndex.Interval(6, 7), updated.interval(3L));
+        assertEquals(new OrgTreeIndex.Interval(7, 7), index.interval(7L));
+        assertEquals(new OrgTreeIndex.Interval(8, 8), updated.interval(7L));
+        assertNotEquals(index.numbering(), updated.numbering());
+        assertEquals(index.numbering(), OrgTreeIndex.of(tree()).numbering());
+    }
+
+    @Test
+    @DisplayName("should filter by id when the stored numbering is stale")
+    void shouldFallBackToIdsWhenStale() {
+        long stored = index.numbering();
+        index = index.update(Map.of(8L, 2L), null);
+
+        ScopePredicate stale = strategy("dept_lft", stored)
+                .predicate(List.of());
+        assertEquals("dept_id IN (?, ?, ?, ?)", stale.where());
+        assertEquals(List.of(2L, 4L, 5L, 8L), stale.parameters());
+
+        ScopePredicate current = strategy("dept_lft", index.numbering())
+                .predicate(List.of());
+        assertEquals("(dept_lft BETWEEN ? AND ?)", current.where());
+        assertEquals(List.of(2, 5), current.parameters());
+    }
+
+    @Test
+    @DisplayName("should reject cycles")
+    void shouldRejectCycles() {
+        Map<Long, Long> parents = tree();
+        parents.put(8L, 9L);
+        parents.put(9L, 8L);
+
+        assertThrows(DataSecurityException.class,
+                () -> OrgTreeIndex.of(parents));
+    }
+
+    @Test
+    @DisplayName("should build range and id predicates")
+    void shouldBuildPredicates() {
+        ScopePredicate byId = strategy(null).predicate(List.of());
+        assertEquals("dept_id IN (?, ?, ?)", byId.where());
+        assertEquals(List.of(2L, 4L, 5L), byId.parameters());
+
+        ScopePredicate byRange = strategy("dept_lft").predicate(List.of());
+        assertEquals("(dept_lft BETWEEN ? AND ?)", byRange.where());
+        assertEquals(List.of(2, 4), byRange.parameters());
+    }
+
+    private HierarchicalDataScopeStrategy<Long> strategy(String rangeColumn) {
+        return strategy(rangeColumn, null);
+    }
+
+    private HierarchicalDataScopeStrategy<Long> strategy(String rangeColumn,
+                                                         Long rangeNumbering) {
+        return new HierarchicalDataScopeStrategy<>() {
+            @Override
+            protected OrgTreeIndex<Long> index() {
+                return index;
+            }
+
+            @Override
+            protected Collection<Long> scopeRoots(List<String> rightItems) {
+                return List.of(2L);
+            }
+
+            @Override
+            protected String column() {
+                return "dept_id";
+            }
+
+            @Override
+            protected String rangeColumn() {
+                return rangeColumn;
+            }
+
+            @Override
+            protected Long rangeNumbering() {
+                return rangeNumbering;
+            }
+
+            @Override
+            public void validDs(List<Long> validRights) {
+                // No-op
+            }
+
+            @Override
+            public void validDs(List<Long> validRights,
+                                List<Long> withoutRights) {
+                // No-op
+            }
+        };
+    }
+}
@@ -0,0 +1,427 @@
+package io.github.qwzhang01.dsecurity.scope.processor;
+
+import io.github.qwzhang01.dsecurity.config.DataSecurityProperties;
+import io.github.qwzhang01.dsecurity.encrypt.context.StatementContext;
+import io.github.qwzhang01.dsecurity.exception.DataSecurityException;
+import io.github.qwzhang01.dsecurity.kit.BoundedCache;
+import io.github.qwzhang01.dsecurity.scope.DataScopeHelper;
+import io.github.qwzhang01.dsecurity.scope.DataScopeStrategy;
+import io.github.qwzhang01.dsecurity.scope.ParameterizedDataScopeStrategy;
+import io.github.qwzhang01.dsecurity.scope.ScopeArray;
+import io.github.qwzhang01.dsecurity.scope.ScopePredicate;
+import io.github.qwzhang01.dsecurity.support.SecurityFixture;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DataScopeProcessor
+ */
+@DisplayName("DataScopeProcessor Tests")
+class DataScopeProcessorTest {
+
+    private final DataSecurityProperties.Scope scope =
+            DataSecurityProperties.current().getScope();
+    private DataSource dataSource;
+    private Configuration configuration;
+    private int statements;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        SecurityFixture.install();
+        dataSource = SecurityFixture.database("data_scope_processor");
+        configuration = SecurityFixture.mybatis(dataSource);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS dept_data");
+            statement.execute("CREATE TABLE dept_data (id BIGINT, " +
+                    "dept_id BIGINT, name VARCHAR(64))");
+            statement.execute("INSERT INTO dept_data VALUES (1, 1, 'a'), " +
+                    "(2, 2, 'a'), (3, 3, 'a'), (4, 5, 'a'), (5, 5, 'b')");
+            statement.execute("DROP TABLE IF EXISTS dept");
+            statement.execute("CREATE TABLE dept (id BIGINT, " +
+                    "org VARCHAR(16), level INT)");
+            statement.execute("INSERT INTO dept VALUES (1, 'x', 1), " +
+                    "(2, 'x', 3), (3, 'y', 1), (5, 'x', 2)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        DataScopeHelper.clear();
+        scope.setLargeListThreshold(1000);
+        scope.setLargeListMode(DataSecurityProperties.LargeListMode.IN_LIST);
+    }
+
+    @Test
+    @DisplayName("should inject an ARRAY predicate and bind it as one array")
+    void shouldRewriteArrayPredicate() throws SQLException {
+        scope.setLargeListThreshold(2);
+        scope.setLargeListMode(DataSecurityProperties.LargeListMode.ARRAY);
+        DataScopeHelper.strategy(DeptScope.class).setRightItems("1", "3", "5");
+
+        StatementHandler handler = handler(
+                "SELECT id FROM dept_data WHERE name = ?", "name", "a");
+        apply(handler);
+
+        BoundSql boundSql = handler.getBoundSql();
+        assertTrue(compact(boundSql.getSql()).contains("dept_id=ANY(?)"),
+                boundSql.getSql());
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        assertEquals(List.of("name", "dsScopeParam0"), properties(mappings));
+        assertSame(ScopeArray.TYPE_HANDLER, mappings.get(1).getTypeHandler());
+        assertInstanceOf(ScopeArray.class,
+                boundSql.getAdditionalParameter("dsScopeParam0"));
+        assertEquals(List.of(1L, 3L, 4L), execute(handler));
+    }
+
+    @Test
+    @DisplayName("should inject a JSON_TABLE predicate with one JSON parameter")
+    void shouldRewriteJsonTablePredicate() {
+        scope.setLargeListThreshold(1);
+        scope.setLargeListMode(DataSecurityProperties.LargeListMode.JSON_TABLE);
+        DataScopeHelper.strategy(DeptScope.class).setRightItems("1", "2");
+
+        StatementHandler handler = handler(
+                "SELECT id FROM dept_data WHERE name = ?", "name", "a");
+        apply(handler);
+
+        BoundSql boundSql = handler.getBoundSql();
+        String sql = compact(boundSql.getSql()).toUpperCase();
+        assertTrue(sql.contains("DEPT_IDIN(SELECT"), boundSql.getSql());
+        assertTrue(sql.contains("JSON_TABLE(?"), boundSql.getSql());
+        assertEquals(List.of("name", "dsScopeParam0"),
+                properties(boundSql.getParameterMappings()));
+        assertEquals(String.class,
+                boundSql.getParameterMappings().get(1).getJavaType());
+        assertEquals("[1,2]", boundSql.getAdditionalParameter("dsScopeParam0"));
+    }
+
+    @Test
+    @DisplayName("should interleave JOIN and WHERE parameters with the statement's")
+    void shouldBindJoinAndWhereParameters() throws SQLException {
+        DataScopeHelper.strategy(OrgScope.class).setRightItems("x");
+
+        StatementHandler handler = handler("SELECT dept_data.id FROM " +
+                        "dept_data WHERE dept_data.name = ? LIMIT ?",
+                "name", "a", "limit", 10);
+        BoundSql boundSql = handler.getBoundSql();
+        List<ParameterMapping> shared = boundSql.getParameterMappings();
+        StatementContext context = StatementContext.of(handler);
+        DataScopeProcessor.getInstance().apply(context);
+
+        // Nothing reaches the bound SQL before the commit
+        assertSame(shared, boundSql.getParameterMappings());
+        assertEquals(4, context.getParameterMappings().size());
+        context.commit();
+
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        assertNotSame(shared, mappings);
+        assertEquals(List.of("dsScopeParam0", "name", "dsScopeParam1",
+                "limit"), properties(mappings));
+        assertEquals(String.class, mappings.get(0).getJavaType());
+        assertEquals(Integer.class, mappings.get(2).getJavaType());
+        assertEquals("x", boundSql.getAdditionalParameter("dsScopeParam0"));
+        assertEquals(2, boundSql.getAdditionalParameter("dsScopeParam1"));
+        String sql = compact(boundSql.getSql()).toUpperCase();
+        assertTrue(sql.contains("JOINDEPTD"), boundSql.getSql());
+        assertTrue(sql.contains("D.LEVEL<=?"), boundSql.getSql());
+
+        // The mapping list of the static statement is shared by all
+        // executions and stays as it was
+        assertEquals(List.of("name", "limit"), properties(shared));
+        MappedStatement statement = configuration.getMappedStatement(
+                "test.scope" + statements);
+        assertSame(shared, statement.getBoundSql(Map.of())
+                .getParameterMappings());
+
+        assertEquals(List.of(1L, 4L), execute(handler));
+    }
+
+    @Test
+    @DisplayName("should reject a statement whose mappings do not match")
+    void shouldRejectMismatchedMappings() {
+        DataScopeHelper.strategy(OrgScope.class).setRightItems("x");
+        StatementHandler handler = handler("SELECT dept_data.id FROM " +
+                "dept_data WHERE dept_data.name = ?");
+
+        assertThrows(DataSecurityException.class, () -> apply(handler));
+    }
+
+    @Test
+    @DisplayName("should rewrite literal fragments per rendered rights")
+    void shouldRewriteLiteralRightsSeparately() throws SQLException {
+        String sql = "SELECT dept_data.id FROM dept_data " +
+                "WHERE dept_data.name = ?";
+
+        DataScopeHelper.strategy(DeptWhere.class).setRightItems("1", "3");
+        StatementHandler first = handler(sql, "name", "a");
+        apply(first);
+        DataScopeHelper.strategy(DeptWhere.class).setRightItems("2");
+        StatementHandler second = handler(sql, "name", "a");
+        apply(second);
+
+        String firstSql = first.getBoundSql().getSql();
+        String secondSql = second.getBoundSql().getSql();
+        assertTrue(compact(firstSql).contains("IN(1,3)"), firstSql);
+        assertTrue(compact(secondSql).contains("IN(2)"), secondSql);
+        assertEquals(List.of(1L, 3L), execute(first));
+        assertEquals(List.of(2L), execute(second));
+    }
+
+    @Test
+    @DisplayName("should inject a literal JOIN without a WHERE fragment")
+    void shouldRewriteLiteralJoinOnly() throws SQLException {
+        DataScopeHelper.strategy(OrgJoin.class).setRightItems("x");
+
+        StatementHandler handler = handler("SELECT dept_data.id FROM " +
+                "dept_data WHERE dept_data.name = ?", "name", "a");
+        apply(handler);
+
+        String sql = compact(handler.getBoundSql().getSql()).toUpperCase();
+        assertTrue(sql.contains("JOINDEPTD"), sql);
+        assertTrue(sql.contains("D.ORG='X'"), sql);
+        assertEquals(List.of(1L, 2L, 4L), execute(handler));
+    }
+
+    @Test
+    @DisplayName("should inject a literal WHERE without a JOIN fragment")
+    void shouldRewriteLiteralWhereOnly() throws SQLException {
+        DataScopeHelper.strategy(OrgWhere.class).setRightItems("y");
+
+        StatementHandler handler = handler("SELECT dept_data.id FROM " +
+                "dept_data WHERE dept_data.name = ?", "name", "a");
+        apply(handler);
+
+        String sql = compact(handler.getBoundSql().getSql()).toUpperCase();
+        assertFalse(sql.contains("JOIN"), sql);
+        assertTrue(sql.contains("ORG='Y'"), sql);
+        assertEquals(List.of(3L), execute(handler));
+    }
+
+    @Test
+    @DisplayName("should return the cached rewrite for the same statement and rights")
+    void shouldReuseCachedRewrite() {
+        String sql = "SELECT dept_data.id FROM dept_data " +
+                "WHERE dept_data.name = ? AND dept_data.id > 0";
+        DataScopeHelper.strategy(DeptWhere.class).setRightItems("1", "5");
+        StatementHandler first = handler(sql, "name", "a");
+        apply(first);
+
+        BoundedCache.Stats before = DataScopeProcessor.getInstance().stats();
+        StatementHandler second = handler(sql, "name", "a");
+        apply(second);
+        BoundedCache.Stats after = DataScopeProcessor.getInstance().stats();
+
+        assertSame(first.getBoundSql().getSql(), second.getBoundSql().getSql());
+        assertEquals(1, after.hits() - before.hits());
+        assertEquals(0, after.misses() - before.misses());
+
+        DataScopeHelper.strategy(DeptWhere.class).setRightItems("1");
+        StatementHandler third = handler(sql, "name", "a");
+        apply(third);
+        assertNotEquals(first.getBoundSql().getSql(),
+                third.getBoundSql().getSql());
+        assertEquals(1, DataScopeProcessor.getInstance().stats().misses()
+                - after.misses());
+    }
+
+    /**
+     * Creates the handler of a new static SELECT statement.
+     *
+     * @param sql        the SQL
+     * @param properties alternating bound property names and values
+     */
+    private StatementHandler handler(String sql, Object... properties) {
+        List<String> names = new ArrayList<>();
+        Map<String, Object> parameter = new HashMap<>();
+        for (int i = 0; i < properties.length; i += 2) {
+            names.add((String) properties[i]);
+            parameter.put((String) properties[i], properties[i + 1]);
+        }
+        MappedStatement statement = SecurityFixture.statement(configuration,
+                "test.scope" + ++statements, SqlCommandType.SELECT, sql, null,
+                names.toArray(new String[0]));
+        return new RoutingStatementHandler(null, statement, parameter,
+                RowBounds.DEFAULT, null, null);
+    }
+
+    private static StatementContext apply(StatementHandler handler) {
+        StatementContext context = StatementContext.of(handler);
+        DataScopeProcessor.getInstance().apply(context);
+        context.commit();
+        return context;
+    }
+
+    /**
+     * Runs a handler's SQL and returns the ids of the rows.
+     */
+    private List<Long> execute(StatementHandler handler) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     handler.getBoundSql().getSql())) {
+            handler.parameterize(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static List<String> properties(List<ParameterMapping> mappings) {
+        return mappings.stream().map(ParameterMapping::getProperty).toList();
+    }
+
+    /**
+     * Removes whitespace, so assertions do not depend on how the parser
+     * prints the statement.
+     */
+    private static String compact(String sql) {
+        return sql.replaceAll("\\s+", "");
+    }
+
+    /**
+     * Restricts rows to the departments of an organization up to a level,
+     * with a parameter in the JOIN and one in the WHERE fragment.
+     */
+    public static class OrgScope
+            implements ParameterizedDataScopeStrategy<String> {
+
+        @Override
+        public ScopePredicate predicate(List<String> rightItems) {
+            return ScopePredicate.of("JOIN dept d ON d.id = " +
+                            "dept_data.dept_id AND d.org = ?", "d.level <= ?",
+                    List.of(rightItems.get(0), 2));
+        }
+
+        @Override
+        public void validDs(List<String> validRights) {
+            // No-op
+        }
+
+        @Override
+        public void validDs(List<String> validRights,
+                            List<String> withoutRights) {
+            // No-op
+        }
+    }
+
+    /**
+     * Restricts rows to the departments listed in the right items.
+     */
+    public static class DeptScope
+            implements ParameterizedDataScopeStrategy<Long> {
+
+        @Override
+        public ScopePredicate predicate(List<String> rightItems) {
+            return ScopePredicate.in("dept_id",
+                    rightItems.stream().map(Long::valueOf).toList());
+        }
+
+        @Override
+        public void validDs(List<Long> validRights) {
+            // No-op
+        }
+
+        @Override
+        public void validDs(List<Long> validRights,
+                            List<Long> withoutRights) {
+            // No-op
+        }
+    }
+
+    /**
+     * Literal strategy without permission checks on writes.
+     */
+    private abstract static class LiteralScope
+            implements DataScopeStrategy<String> {
+
+        @Override
+        public String join() {
+            return "";
+        }
+
+        @Override
+        public String where(List<String> rightItems) {
+            return "";
+        }
+
+        @Override
+        public void validDs(List<String> validRights) {
+        }
+
+        @Override
+        public void validDs(List<String> validRights,
+                            List<String> withoutRights) {
+        }
+    }
+
+    /**
+     * Restricts rows to the listed departments, written as literals.
+     */
+    public static class DeptWhere extends LiteralScope {
+
+        @Override
+        public String where(List<String> rightItems) {
+            return "dept_data.dept_id IN (" + String.join(", ", rightItems)
+                    + ")";
+        }
+    }
+
+    /**
+     * Restricts rows to the departments of organization x with a JOIN only.
+     */
+    public static class OrgJoin extends LiteralScope {
+
+        @Override
+        public String join() {
+            return "JOIN dept d ON d.id = dept_data.dept_id AND d.org = 'x'";
+        }
+    }
+
+    /**
+     * Restricts rows to the departments of the first right item's
+     * organization with a WHERE subquery only.
+     */
+    public static class OrgWhere extends LiteralScope {
+
+        @Override
+        public String where(List<String> rightItems) {
+            return "dept_data.dept_id IN (SELECT id FROM dept WHERE org = '"
+                    + rightItems.get(0) + "')";
+        }
+    }
+}
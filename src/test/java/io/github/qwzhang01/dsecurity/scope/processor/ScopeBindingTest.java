@@ -0,0 +1,50 @@
+package io.github.qwzhang01.dsecurity.scope.processor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ScopeBinding
+ */
+@DisplayName("ScopeBinding Tests")
+class ScopeBindingTest {
+
+    @Test
+    @DisplayName("should mark and count placeholders outside literals")
+    void shouldMarkPlaceholders() {
+        String fragment = "t.dept_id IN (?, ?) AND t.note <> '?' /* ? */";
+
+        assertEquals(2, ScopeBinding.count(fragment));
+        assertEquals("t.dept_id IN (:dsScopeParam3, :dsScopeParam4) AND " +
+                        "t.note <> '?' /* ? */",
+                ScopeBinding.mark(fragment, 3));
+    }
+
+    @Test
+    @DisplayName("should interleave scope markers with statement placeholders")
+    void shouldResolveSlots() {
+        ScopeBinding binding = ScopeBinding.of("SELECT * FROM t " +
+                "JOIN d ON d.id = t.dept_id AND d.org = :dsScopeParam0 " +
+                "WHERE t.name = ? AND t.dept_id = :dsScopeParam1 LIMIT ?");
+
+        assertEquals("SELECT * FROM t JOIN d ON d.id = t.dept_id AND " +
+                "d.org = ? WHERE t.name = ? AND t.dept_id = ? LIMIT ?",
+                binding.sql());
+        assertArrayEquals(new int[]{0, -1, 1, -1}, binding.slots());
+        assertEquals(2, binding.statementParameters());
+    }
+
+    @Test
+    @DisplayName("should leave markers in literals untouched")
+    void shouldSkipLiterals() {
+        ScopeBinding binding = ScopeBinding.of(
+                "SELECT ':dsScopeParam0', `a?` FROM t WHERE a = ?");
+
+        assertEquals("SELECT ':dsScopeParam0', `a?` FROM t WHERE a = ?",
+                binding.sql());
+        assertArrayEquals(new int[]{-1}, binding.slots());
+    }
+}
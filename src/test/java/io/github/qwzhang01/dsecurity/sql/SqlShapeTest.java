@@ -0,0 +1,87 @@
+package io.github.qwzhang01.dsecurity.sql;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SqlShape
+ */
+@DisplayName("SqlShape Tests")
+class SqlShapeTest {
+
+    private static final String SELECT = "SELECT * FROM t WHERE a = ? " +
+            "AND id IN (?, ?, ?) AND code in ('x','y') " +
+            "AND note = 'IN (?, ?)' LIMIT ?";
+
+    @Test
+    @DisplayName("should collapse IN lists to a single item")
+    void shouldCollapseLists() {
+        SqlShape shape = SqlShape.of(SELECT);
+
+        assertTrue(shape.isCollapsed());
+        assertTrue(shape.isSelect());
+        assertEquals("SELECT * FROM t WHERE a = ? AND id IN (?) " +
+                "AND code in ('x') AND note = 'IN (?, ?)' LIMIT ?",
+                shape.analysisSql());
+        assertEquals("SELECT * FROM t WHERE a = ? AND id IN (:dsList0) " +
+                "AND code in (:dsList1) AND note = 'IN (?, ?)' LIMIT ?",
+                shape.template());
+        assertEquals(3, shape.segmentPlaceholders(0));
+        assertEquals(0, shape.segmentPlaceholders(1));
+    }
+
+    @Test
+    @DisplayName("should expand analysis values over collapsed lists")
+    void shouldExpand() {
+        SqlShape shape = SqlShape.of(SELECT);
+
+        assertEquals(List.of("a", "id", "id", "id", "limit"),
+                shape.expand(List.of("a", "id", "limit")));
+        assertNull(shape.expand(List.of("a")));
+    }
+
+    @Test
+    @DisplayName("should put the lists back into a rewritten template")
+    void shouldRestore() {
+        SqlShape shape = SqlShape.of(SELECT);
+
+        assertEquals("SELECT t.* FROM t WHERE t.a = ? " +
+                        "AND t.id IN (?, ?, ?) AND t.code IN ('x','y') " +
+                        "AND t.note = 'IN (?, ?)' LIMIT ?",
+                shape.restore("SELECT t.* FROM t WHERE t.a = ? " +
+                        "AND t.id IN (:dsList0) AND t.code IN (:dsList1) " +
+                        "AND t.note = 'IN (?, ?)' LIMIT ?"));
+    }
+
+    @Test
+    @DisplayName("should collapse identical VALUES rows")
+    void shouldCollapseRows() {
+        SqlShape shape = SqlShape.of("INSERT INTO u (a, b) VALUES (?, ?) ," +
+                " (?,?),( ?, ? ) ON DUPLICATE KEY UPDATE a = VALUES(a)");
+
+        assertTrue(shape.isCollapsed());
+        assertFalse(shape.hasLists());
+        assertFalse(shape.isSelect());
+        assertEquals("INSERT INTO u (a, b) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE a = VALUES(a)", shape.analysisSql());
+        assertEquals(List.of("a", "b", "a", "b", "a", "b"),
+                shape.expand(List.of("a", "b")));
+    }
+
+    @Test
+    @DisplayName("should keep lists mixing placeholders and literals")
+    void shouldKeepMixedLists() {
+        String sql = "select * from t where id in (?, 1) and x in (?)";
+        SqlShape shape = SqlShape.of(sql);
+
+        assertFalse(shape.isCollapsed());
+        assertEquals(sql, shape.analysisSql());
+    }
+}
@@ -0,0 +1,299 @@
+package io.github.qwzhang01.dsecurity.support;
+
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import io.github.qwzhang01.dsecurity.encrypt.annotation.EncryptField;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptFieldTableContainer;
+import io.github.qwzhang01.dsecurity.encrypt.container.EncryptionAlgoContainer;
+import io.github.qwzhang01.dsecurity.encrypt.plan.EncryptPlanCache;
+import io.github.qwzhang01.dsecurity.encrypt.shield.EncryptionAlgo;
+import io.github.qwzhang01.dsecurity.kit.SpringContextUtil;
+import io.github.qwzhang01.dsecurity.scope.container.DataScopeStrategyContainer;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.context.support.StaticApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared setup of tests that run the encryption pipeline: encrypted
+ * entities registered with MyBatis-Plus, a Spring context holding the
+ * containers, and H2 backed MyBatis configurations.
+ *
+ * <p>Encrypted values are readable in assertions: {@link PrefixAlgo}
+ * encrypts {@code 138} to {@code enc:138}.</p>
+ */
+public final class SecurityFixture {
+
+    private SecurityFixture() {
+    }
+
+    /**
+     * Registers the fixture entities and installs a context with the
+     * default containers and {@link PrefixAlgo} as default algorithm.
+     *
+     * @return the context, to register further beans
+     */
+    public static StaticApplicationContext install() {
+        for (Class<?> entity : List.of(User.class, Order.class)) {
+            if (TableInfoHelper.getTableInfo(entity) == null) {
+                MapperBuilderAssistant assistant = new MapperBuilderAssistant(
+                        new MybatisConfiguration(), "fixture");
+                assistant.setCurrentNamespace("fixture." + entity.getSimpleName());
+                TableInfoHelper.initTableInfo(assistant, entity);
+            }
+        }
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("encryptAlgoContainer",
+                new EncryptionAlgoContainer(new PrefixAlgo()));
+        context.getBeanFactory().registerSingleton("encryptFieldTableContainer",
+                new EncryptFieldTableContainer());
+        context.getBeanFactory().registerSingleton("dataScopeStrategyContainer",
+                new DataScopeStrategyContainer());
+        context.refresh();
+        new SpringContextUtil().setApplicationContext(context);
+        EncryptPlanCache.getInstance().clear();
+        return context;
+    }
+
+    /**
+     * Creates an in-memory H2 database with the fixture tables.
+     *
+     * @param name the database name, unique per test class
+     * @return the data source
+     */
+    public static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS t_user");
+            statement.execute("DROP TABLE IF EXISTS t_order");
+            statement.execute("CREATE TABLE t_user (id BIGINT PRIMARY KEY, " +
+                    "name VARCHAR(64), phone VARCHAR(64), " +
+                    "id_card VARCHAR(64))");
+            statement.execute("CREATE TABLE t_order (id BIGINT PRIMARY KEY, " +
+                    "user_id BIGINT, receiver_phone VARCHAR(64), " +
+                    "remark VARCHAR(64))");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+
+    /**
+     * Creates a MyBatis configuration over a data source, with the second
+     * level cache disabled.
+     *
+     * @param dataSource the data source
+     * @return the configuration
+     */
+    public static Configuration mybatis(DataSource dataSource) {
+        Configuration configuration = new Configuration(new Environment(
+                "test", new JdbcTransactionFactory(), dataSource));
+        configuration.setCacheEnabled(false);
+        configuration.setMapUnderscoreToCamelCase(true);
+        return configuration;
+    }
+
+    /**
+     * Adds a static statement binding the given properties in order.
+     *
+     * @param configuration the configuration
+     * @param id            the statement id
+     * @param commandType   the command type
+     * @param sql           the SQL
+     * @param resultType    the result type of queries, or null
+     * @param properties    the bound properties
+     * @return the statement
+     */
+    public static MappedStatement statement(Configuration configuration,
+                                            String id,
+                                            SqlCommandType commandType,
+                                            String sql, Class<?> resultType,
+                                            String... properties) {
+        List<ParameterMapping> mappings = new ArrayList<>();
+        for (String property : properties) {
+            mappings.add(new ParameterMapping.Builder(configuration, property,
+                    Object.class).build());
+        }
+        return add(configuration, id, commandType,
+                new StaticSqlSource(configuration, sql, mappings), resultType);
+    }
+
+    /**
+     * Adds a dynamic statement from a MyBatis {@code <script>}, e.g. with
+     * {@code <foreach>} elements.
+     *
+     * @param configuration the configuration
+     * @param id            the statement id
+     * @param commandType   the command type
+     * @param script        the script, without the {@code <script>} tag
+     * @param resultType    the result type of queries, or null
+     * @return the statement
+     */
+    public static MappedStatement script(Configuration configuration,
+                                         String id,
+                                         SqlCommandType commandType,
+                                         String script, Class<?> resultType) {
+        SqlSource sqlSource = new XMLLanguageDriver().createSqlSource(
+                configuration, "<script>" + script + "</script>", Map.class);
+        return add(configuration, id, commandType, sqlSource, resultType);
+    }
+
+    private static MappedStatement add(Configuration configuration, String id,
+                                       SqlCommandType commandType,
+                                       SqlSource sqlSource,
+                                       Class<?> resultType) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(
+                configuration, id, sqlSource, commandType);
+        if (resultType != null) {
+            builder.resultMaps(List.of(new ResultMap.Builder(configuration,
+                    id + "-Inline", resultType, new ArrayList<>()).build()));
+        }
+        MappedStatement statement = builder.build();
+        configuration.addMappedStatement(statement);
+        return statement;
+    }
+
+    /**
+     * Readable test algorithm.
+     */
+    public static final class PrefixAlgo implements EncryptionAlgo {
+        public static final String PREFIX = "enc:";
+
+        @Override
+        public String encrypt(String value) {
+            return value == null ? null : PREFIX + value;
+        }
+
+        @Override
+        public String decrypt(String value) {
+            return value != null && value.startsWith(PREFIX) ?
+                    value.substring(PREFIX.length()) : value;
+        }
+
+        @Override
+        public boolean isEncrypted(String value) {
+            return value.startsWith(PREFIX);
+        }
+    }
+
+    /**
+     * User with encrypted phone and id card.
+     */
+    @TableName("t_user")
+    public static class User {
+        @TableId
+        private Long id;
+        private String name;
+        @EncryptField
+        private String phone;
+        @EncryptField
+        private String idCard;
+
+        public User() {
+        }
+
+        public User(Long id, String name, String phone) {
+            this.id = id;
+            this.name = name;
+            this.phone = phone;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public void setPhone(String phone) {
+            this.phone = phone;
+        }
+
+        public String getIdCard() {
+            return idCard;
+        }
+
+        public void setIdCard(String idCard) {
+            this.idCard = idCard;
+        }
+    }
+
+    /**
+     * Order with encrypted receiver phone.
+     */
+    @TableName("t_order")
+    public static class Order {
+        @TableId
+        private Long id;
+        private Long userId;
+        @EncryptField
+        private String receiverPhone;
+        private String remark;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public String getReceiverPhone() {
+            return receiverPhone;
+        }
+
+        public void setReceiverPhone(String receiverPhone) {
+            this.receiverPhone = receiverPhone;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+    }
+}